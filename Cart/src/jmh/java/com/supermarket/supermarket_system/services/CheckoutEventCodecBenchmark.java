@@ -0,0 +1,67 @@
+package com.supermarket.supermarket_system.services;
+
+import com.supermarket.common.messaging.JacksonCborMessageConverter;
+import com.supermarket.supermarket_system.dto.payment.CheckoutEventV2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.util.concurrent.TimeUnit;
+
+// Checkout events (v2, CheckoutEventCodecTest.LINES lines) serialized and read back per
+// second, through the same message converters CartPublisher and the consumers use.
+//
+//   mvn -P benchmarks test-compile exec:exec -Djmh.args=CheckoutEventCodecBenchmark
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CheckoutEventCodecBenchmark {
+
+    private final MessageConverter json = new Jackson2JsonMessageConverter();
+    private final MessageConverter cbor = new JacksonCborMessageConverter();
+
+    private CheckoutEventV2 event;
+    private Message jsonMessage;
+    private Message cborMessage;
+
+    @Setup
+    public void setUp() {
+        event = CheckoutEventCodecTest.sampleEvent();
+        jsonMessage = json.toMessage(event, new MessageProperties());
+        cborMessage = cbor.toMessage(event, new MessageProperties());
+    }
+
+    @Benchmark
+    public Message serializeJson() {
+        return json.toMessage(event, new MessageProperties());
+    }
+
+    @Benchmark
+    public Message serializeCbor() {
+        return cbor.toMessage(event, new MessageProperties());
+    }
+
+    @Benchmark
+    public Object deserializeJson() {
+        return json.fromMessage(jsonMessage);
+    }
+
+    @Benchmark
+    public Object deserializeCbor() {
+        return cbor.fromMessage(cborMessage);
+    }
+}
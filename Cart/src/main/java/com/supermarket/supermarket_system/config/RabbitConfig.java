@@ -1,20 +1,29 @@
 package com.supermarket.supermarket_system.config;
 
+import com.supermarket.common.messaging.JacksonCborMessageConverter;
+import com.supermarket.common.outbox.OutboxConfiguration;
+import org.springframework.amqp.core.AnonymousQueue;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.FanoutExchange;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.annotation.EnableRabbit;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 
+// Checkout events are published through the shared transactional outbox
 @Configuration
 @EnableRabbit
+@Import(OutboxConfiguration.class)
 public class RabbitConfig {
 
     @Value("${app.rabbitmq.order-queue:orders.queue}")
@@ -26,6 +35,18 @@ public class RabbitConfig {
     @Value("${app.rabbitmq.order-routing-key:orders.routingkey}")
     private String orderRoutingKey;
 
+    @Value("${app.rabbitmq.item-events-exchange:items.events}")
+    private String itemEventsExchange;
+
+    @Value("${app.rabbitmq.checkout-saga-queue:cart.checkout.saga.queue}")
+    private String checkoutSagaQueue;
+
+    @Value("${app.rabbitmq.checkout-saga-exchange:cart.checkout.saga.exchange}")
+    private String checkoutSagaExchange;
+
+    @Value("${app.rabbitmq.checkout-saga-routing-key:cart.checkout.saga.routingkey}")
+    private String checkoutSagaRoutingKey;
+
     // Declare the queue (durable = true means it survives broker restart)
     @Bean
     public Queue orderQueue() {
@@ -44,9 +65,55 @@ public class RabbitConfig {
         return BindingBuilder.bind(orderQueue()).to(orderExchange()).with(orderRoutingKey);
     }
 
+    // Item change events from Items (fanout): each Cart instance gets its own
+    // auto-delete queue, since every instance keeps its own item cache
+    @Bean
+    public FanoutExchange itemEventsExchange() {
+        return new FanoutExchange(itemEventsExchange, true, false);
+    }
+
+    @Bean
+    public Queue itemEventsQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding itemEventsBinding() {
+        return BindingBuilder.bind(itemEventsQueue()).to(itemEventsExchange());
+    }
+
+    // Checkout saga steps, shared by all Cart instances
+    @Bean
+    public Queue checkoutSagaQueue() {
+        return new Queue(checkoutSagaQueue, true);
+    }
+
+    @Bean
+    public DirectExchange checkoutSagaExchange() {
+        return new DirectExchange(checkoutSagaExchange);
+    }
+
+    @Bean
+    public Binding checkoutSagaBinding() {
+        return BindingBuilder.bind(checkoutSagaQueue()).to(checkoutSagaExchange()).with(checkoutSagaRoutingKey);
+    }
+
+    // Saga steps that need the payment details held in this instance's memory (PAYING);
+    // addressed by queue name through the default exchange, gone with the instance
+    @Bean
+    public Queue checkoutSagaNodeQueue() {
+        return new AnonymousQueue();
+    }
+
+    // JSON by default; messages are read with the converter matching their content type,
+    // so publishers can switch a message to CBOR without breaking consumers
     @Bean
     public MessageConverter jacksonMessageConverter() {
-        return new Jackson2JsonMessageConverter();
+        Jackson2JsonMessageConverter json = new Jackson2JsonMessageConverter();
+        ContentTypeDelegatingMessageConverter converter = new ContentTypeDelegatingMessageConverter(json);
+        converter.addDelegate(MessageProperties.CONTENT_TYPE_JSON, json);
+        converter.addDelegate(JacksonCborMessageConverter.CONTENT_TYPE, new JacksonCborMessageConverter());
+        return converter;
     }
 
     @Bean
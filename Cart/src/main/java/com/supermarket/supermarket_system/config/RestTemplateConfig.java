@@ -1,11 +1,15 @@
 package com.supermarket.supermarket_system.config;
 
+import com.supermarket.common.loadbalancer.LatencyAwareLoadBalancerConfig;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
 
+// Instances are picked by latency, see LatencyAwareLoadBalancer
 @Configuration
+@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerConfig.class)
 public class RestTemplateConfig {
 
     @Bean
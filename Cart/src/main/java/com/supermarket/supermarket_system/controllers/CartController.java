@@ -4,15 +4,19 @@ import com.supermarket.supermarket_system.dto.cart.CartResponseDto;
 import com.supermarket.supermarket_system.dto.cart.UpdateCartItemQuantityRequestDto;
 import com.supermarket.supermarket_system.dto.cart.AddCartItemRequestDto;
 import com.supermarket.supermarket_system.dto.payment.CheckoutRequestDto;
-import com.supermarket.supermarket_system.dto.payment.CheckoutResponseDto;
 import com.supermarket.supermarket_system.mappers.CartMapper;
 import com.supermarket.supermarket_system.models.Cart;
 import com.supermarket.supermarket_system.services.CartService;
+import com.supermarket.supermarket_system.services.CheckoutSagaService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/cart")
 public class CartController {
@@ -20,6 +24,9 @@ public class CartController {
     @Autowired
     private CartService cartService;
 
+    @Autowired
+    private CheckoutSagaService checkoutSagaService;
+
     @GetMapping
     public CartResponseDto getCart(@RequestHeader("X-User-Id") Long userId) {
         Cart cart = cartService.getCartByUserId(userId);
@@ -31,9 +38,12 @@ public class CartController {
             @RequestHeader("X-User-Id") Long userId,
             @Valid @RequestBody CheckoutRequestDto request) {
 
+        // Checkout runs in the background: poll the returned location for the outcome
         try {
-            CheckoutResponseDto response = cartService.checkout(userId, request);
-            return ResponseEntity.ok(response);
+            Map<String, Object> status = checkoutSagaService.start(userId, request);
+            URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .path("/{sagaId}").buildAndExpand(status.get("sagaId")).toUri();
+            return ResponseEntity.accepted().location(location).body(status);
         } catch (IllegalStateException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
@@ -41,6 +51,18 @@ public class CartController {
         }
     }
 
+    @GetMapping("/checkout/{sagaId}")
+    public ResponseEntity<?> getCheckoutStatus(
+            @RequestHeader("X-User-Id") Long userId,
+            @PathVariable String sagaId) {
+
+        Map<String, Object> status = checkoutSagaService.status(userId, sagaId);
+        if (status == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(status);
+    }
+
     @PostMapping("/items")
     public ResponseEntity<?> addItemToCart(
             @RequestHeader("X-User-Id") Long userId,
@@ -1,5 +1,7 @@
 package com.supermarket.supermarket_system.controllers;
 
+import com.supermarket.supermarket_system.services.ItemCatalogCache;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -9,6 +11,9 @@ import java.util.Map;
 @RestController
 public class CartHealthController {
 
+    @Autowired
+    private ItemCatalogCache itemCatalogCache;
+
     @GetMapping("/cart/health")
     public Map<String, String> healthCheck() {
         Map<String, String> status = new HashMap<>();
@@ -16,4 +21,14 @@ public class CartHealthController {
         status.put("service", "Cart Service");
         return status;
     }
+
+    @GetMapping("/cart/health/item-cache")
+    public Map<String, Object> itemCacheStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("size", itemCatalogCache.size());
+        stats.put("hits", itemCatalogCache.getHits());
+        stats.put("misses", itemCatalogCache.getMisses());
+        stats.put("evictions", itemCatalogCache.getEvictions());
+        return stats;
+    }
 }
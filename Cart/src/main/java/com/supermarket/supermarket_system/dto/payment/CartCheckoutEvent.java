@@ -11,6 +11,8 @@ public class CartCheckoutEvent implements Serializable {
 
     private Map<String, ItemDetailsDto> itemDetails;
 
+    private Long orderId;
+
     private Long userId;
 
     // Option 1: Structured items (used by Payment service)
@@ -55,6 +57,14 @@ public class CartCheckoutEvent implements Serializable {
 
     // -------- Getters & Setters --------
 
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
     public Long getUserId() {
         return userId;
     }
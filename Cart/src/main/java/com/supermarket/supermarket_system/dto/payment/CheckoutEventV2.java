@@ -0,0 +1,147 @@
+package com.supermarket.supermarket_system.dto.payment;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checkout event, schema version 2.
+ *
+ * Carries each cart line exactly once, where version 1 (CartCheckoutEvent) repeated
+ * every item across the items, itemPrices and itemDetails maps. The version is also
+ * sent in the "x-schema-version" message header, so consumers can pick the right
+ * type before reading the body.
+ */
+public class CheckoutEventV2 implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int SCHEMA_VERSION = 2;
+
+    private int schemaVersion = SCHEMA_VERSION;
+
+    private Long orderId;
+
+    private Long userId;
+
+    private String paymentMethod;
+
+    private Double totalPrice;
+
+    private List<Line> lines = new ArrayList<>();
+
+    public CheckoutEventV2() {}
+
+    // -------- Getters & Setters --------
+
+    public int getSchemaVersion() {
+        return schemaVersion;
+    }
+
+    public void setSchemaVersion(int schemaVersion) {
+        this.schemaVersion = schemaVersion;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getPaymentMethod() {
+        return paymentMethod;
+    }
+
+    public void setPaymentMethod(String paymentMethod) {
+        this.paymentMethod = paymentMethod;
+    }
+
+    public Double getTotalPrice() {
+        return totalPrice;
+    }
+
+    public void setTotalPrice(Double totalPrice) {
+        this.totalPrice = totalPrice;
+    }
+
+    public List<Line> getLines() {
+        return lines;
+    }
+
+    public void setLines(List<Line> lines) {
+        this.lines = lines;
+    }
+
+    // One purchased item
+    public static class Line implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Long itemId;
+        private String name;
+        private String imageUrl;
+        private Double unitPrice;
+        private Integer quantity;
+        private Double subtotal;
+
+        public Line() {}
+
+        public Long getItemId() {
+            return itemId;
+        }
+
+        public void setItemId(Long itemId) {
+            this.itemId = itemId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getImageUrl() {
+            return imageUrl;
+        }
+
+        public void setImageUrl(String imageUrl) {
+            this.imageUrl = imageUrl;
+        }
+
+        public Double getUnitPrice() {
+            return unitPrice;
+        }
+
+        public void setUnitPrice(Double unitPrice) {
+            this.unitPrice = unitPrice;
+        }
+
+        public Integer getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(Integer quantity) {
+            this.quantity = quantity;
+        }
+
+        public Double getSubtotal() {
+            return subtotal;
+        }
+
+        public void setSubtotal(Double subtotal) {
+            this.subtotal = subtotal;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.supermarket.supermarket_system.listeners;
+
+import com.supermarket.supermarket_system.services.CheckoutSagaService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// Runs one checkout saga step per message; see CheckoutSagaService
+@Component
+@Slf4j
+public class CheckoutSagaListener {
+
+    @Autowired
+    private CheckoutSagaService checkoutSagaService;
+
+    @RabbitListener(queues = "${app.rabbitmq.checkout-saga-queue:cart.checkout.saga.queue}",
+            concurrency = "${app.checkout.saga.consumers:4}")
+    public void handleStep(Map<String, Object> message) {
+        if (message == null || !(message.get("sagaId") instanceof String) || !(message.get("state") instanceof String)) {
+            log.warn("Ignoring malformed checkout saga message");
+            return;
+        }
+        String sagaId = (String) message.get("sagaId");
+        String state = (String) message.get("state");
+        try {
+            checkoutSagaService.handleStep(sagaId, state);
+        } catch (Exception e) {
+            // Not requeued: the recovery sweep picks the saga up again
+            log.error("Checkout saga {} step {} failed", sagaId, state, e);
+        }
+    }
+
+    // Steps addressed to this instance (see PaymentDetailsVault)
+    @RabbitListener(queues = "#{checkoutSagaNodeQueue.name}")
+    public void handleNodeStep(Map<String, Object> message) {
+        handleStep(message);
+    }
+}
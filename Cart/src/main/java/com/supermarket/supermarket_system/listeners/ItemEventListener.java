@@ -0,0 +1,28 @@
+package com.supermarket.supermarket_system.listeners;
+
+import com.supermarket.supermarket_system.services.ItemCatalogCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// Drops the cached snapshot of an item whenever Items reports a change to it
+@Component
+@Slf4j
+public class ItemEventListener {
+
+    @Autowired
+    private ItemCatalogCache itemCatalogCache;
+
+    @RabbitListener(queues = "#{itemEventsQueue.name}")
+    public void handleItemEvent(Map<String, Object> event) {
+        if (event == null || !(event.get("itemId") instanceof Number itemIdNum)) {
+            log.warn("Ignoring malformed item event: {}", event);
+            return;
+        }
+        log.debug("Item {} {}, invalidating cached snapshot", itemIdNum, event.get("type"));
+        itemCatalogCache.invalidate(itemIdNum.longValue());
+    }
+}
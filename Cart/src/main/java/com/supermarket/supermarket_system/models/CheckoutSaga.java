@@ -0,0 +1,129 @@
+package com.supermarket.supermarket_system.models;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+// Persisted state of one checkout. The id doubles as the Items stock reservation id.
+// Payment details are never stored: they stay in the memory of the node that took the
+// checkout (see PaymentDetailsVault), which paymentQueue points to.
+@Entity
+@Table(name = "checkout_sagas", indexes = {
+        @Index(name = "idx_checkout_saga_user_state", columnList = "userId, state"),
+        @Index(name = "idx_checkout_saga_state_updated", columnList = "state, updatedAt")
+})
+public class CheckoutSaga {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private CheckoutSagaState state;
+
+    // null while running, then true or false once DONE
+    private Boolean succeeded;
+
+    @Column(length = 500)
+    private String message;
+
+    @Column(nullable = false)
+    private Long orderId;
+
+    @Column(nullable = false, length = 32)
+    private String paymentMethod;
+
+    @Column(nullable = false)
+    private Double totalPrice;
+
+    // Cart lines at checkout time (JSON), so later cart edits do not change the order
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String cartSnapshot;
+
+    // Step queue of the node holding the payment details
+    @Column(length = 255)
+    private String paymentQueue;
+
+    // Set before the card is charged, so a redelivered PAYING step never charges twice
+    private Instant chargeStartedAt;
+
+    private Long paymentId;
+    private String transactionId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private PaymentStatus paymentStatus;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+
+    // Guards against two step handlers moving the same saga at once
+    @Version
+    private long version;
+
+    public CheckoutSaga() {}
+
+    public CheckoutSaga(String id, Long userId, Long orderId, String paymentMethod, Double totalPrice, String cartSnapshot) {
+        this.id = id;
+        this.userId = userId;
+        this.orderId = orderId;
+        this.paymentMethod = paymentMethod;
+        this.totalPrice = totalPrice;
+        this.cartSnapshot = cartSnapshot;
+        this.state = CheckoutSagaState.RESERVING;
+        this.createdAt = Instant.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    public String getId() { return id; }
+
+    public Long getUserId() { return userId; }
+
+    public CheckoutSagaState getState() { return state; }
+    public void setState(CheckoutSagaState state) {
+        this.state = state;
+        this.updatedAt = Instant.now();
+    }
+
+    public Boolean getSucceeded() { return succeeded; }
+    public void setSucceeded(Boolean succeeded) { this.succeeded = succeeded; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) {
+        this.message = message != null && message.length() > 500 ? message.substring(0, 500) : message;
+    }
+
+    public Long getOrderId() { return orderId; }
+
+    public String getPaymentMethod() { return paymentMethod; }
+
+    public Double getTotalPrice() { return totalPrice; }
+
+    public String getCartSnapshot() { return cartSnapshot; }
+
+    public String getPaymentQueue() { return paymentQueue; }
+    public void setPaymentQueue(String paymentQueue) { this.paymentQueue = paymentQueue; }
+
+    public Instant getChargeStartedAt() { return chargeStartedAt; }
+    public void setChargeStartedAt(Instant chargeStartedAt) { this.chargeStartedAt = chargeStartedAt; }
+
+    public Long getPaymentId() { return paymentId; }
+    public void setPaymentId(Long paymentId) { this.paymentId = paymentId; }
+
+    public String getTransactionId() { return transactionId; }
+    public void setTransactionId(String transactionId) { this.transactionId = transactionId; }
+
+    public PaymentStatus getPaymentStatus() { return paymentStatus; }
+    public void setPaymentStatus(PaymentStatus paymentStatus) { this.paymentStatus = paymentStatus; }
+
+    public Instant getCreatedAt() { return createdAt; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+}
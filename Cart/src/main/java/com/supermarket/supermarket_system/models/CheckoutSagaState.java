@@ -0,0 +1,10 @@
+package com.supermarket.supermarket_system.models;
+
+// States of the checkout saga, in order; failures go through COMPENSATING
+public enum CheckoutSagaState {
+    RESERVING,     // reserving stock in Items
+    PAYING,        // charging the payment in Payment
+    CONFIRMING,    // committing the reservation, publishing the order, clearing the cart
+    COMPENSATING,  // releasing the reservation and refunding the payment, if any
+    DONE           // finished; see succeeded
+}
@@ -0,0 +1,42 @@
+package com.supermarket.supermarket_system.models;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Which Cart instance currently owns an order id node (see OrderIdGenerator).
+// Written with plain SQL against the database clock; the entity only defines the table.
+@Entity
+@Table(name = "order_id_node_leases")
+public class OrderIdNodeLease {
+
+    @Id
+    private Integer nodeId;
+
+    @Column(nullable = false, length = 64)
+    private String owner;
+
+    // UTC, database clock
+    @Column(nullable = false, columnDefinition = "DATETIME(6)")
+    private LocalDateTime expiresAt;
+
+    // Last id timestamp the owner reported, so the next owner starts after it
+    @Column(nullable = false)
+    private Long lastTimestamp;
+
+    public Integer getNodeId() {
+        return nodeId;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public Long getLastTimestamp() {
+        return lastTimestamp;
+    }
+}
@@ -0,0 +1,23 @@
+package com.supermarket.supermarket_system.repositories;
+
+import com.supermarket.supermarket_system.models.CheckoutSaga;
+import com.supermarket.supermarket_system.models.CheckoutSagaState;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CheckoutSagaRepository extends JpaRepository<CheckoutSaga, String> {
+
+    Optional<CheckoutSaga> findByIdAndUserId(String id, Long userId);
+
+    // The running checkout of a user, if any
+    Optional<CheckoutSaga> findFirstByUserIdAndStateNot(Long userId, CheckoutSagaState state);
+
+    // Running sagas that have not moved for a while (lost step message or crashed node)
+    List<CheckoutSaga> findByStateNotAndUpdatedAtBefore(CheckoutSagaState state, Instant cutoff, Pageable pageable);
+}
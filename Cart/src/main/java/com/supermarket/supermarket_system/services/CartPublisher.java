@@ -1,18 +1,27 @@
 package com.supermarket.supermarket_system.services;
 
+import com.supermarket.common.outbox.OutboxService;
+import com.supermarket.common.messaging.JacksonCborMessageConverter;
 import com.supermarket.supermarket_system.dto.payment.CartCheckoutEvent;
+import com.supermarket.supermarket_system.dto.payment.CheckoutEventV2;
+import com.supermarket.supermarket_system.dto.payment.ItemDetailsDto;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @Service
 @Slf4j
 public class CartPublisher {
 
+    public static final String SCHEMA_VERSION_HEADER = "x-schema-version";
+
     @Autowired
-    private RabbitTemplate rabbitTemplate;
+    private OutboxService outboxService;
 
     @Value("${app.rabbitmq.order-exchange:orders.exchange}")
     private String orderExchange;
@@ -20,16 +29,57 @@ public class CartPublisher {
     @Value("${app.rabbitmq.order-routing-key:orders.routingkey}")
     private String orderRoutingKey;
 
-    public void publishCheckout(CartCheckoutEvent event) {
-        log.info("Publishing checkout event for user {} to exchange {} with routing key {}",
-                event.getUserId(), orderExchange, orderRoutingKey);
+    // Wire format of checkout events:
+    //   cbor    - schema v2, CBOR body (default)
+    //   json    - schema v2, JSON body
+    //   json-v1 - legacy CartCheckoutEvent as JSON, for consumers that only read version 1
+    @Value("${app.messaging.checkout-format:cbor}")
+    private String checkoutFormat;
+
+    // Stored in the outbox inside the caller's transaction; OutboxRelay sends it after the commit
+    public void publishCheckout(CheckoutEventV2 event) {
+        log.info("Queueing checkout event for user {} to exchange {} with routing key {} ({})",
+                event.getUserId(), orderExchange, orderRoutingKey, checkoutFormat);
 
-        try {
-            rabbitTemplate.convertAndSend(orderExchange, orderRoutingKey, event);
-            log.info("Successfully published checkout event for user {}", event.getUserId());
-        } catch (Exception e) {
-            log.error("Failed to publish checkout event for user {}", event.getUserId(), e);
-            throw new RuntimeException("Failed to publish checkout event", e);
+        MessageProperties properties = new MessageProperties();
+        switch (checkoutFormat) {
+            case "json-v1" -> {
+                properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+                properties.setHeader(SCHEMA_VERSION_HEADER, 1);
+                outboxService.enqueue(orderExchange, orderRoutingKey, toLegacyEvent(event), properties);
+                return;
+            }
+            case "json" -> properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+            case "cbor" -> properties.setContentType(JacksonCborMessageConverter.CONTENT_TYPE);
+            default -> throw new IllegalStateException("Unknown app.messaging.checkout-format: " + checkoutFormat);
         }
+        properties.setHeader(SCHEMA_VERSION_HEADER, CheckoutEventV2.SCHEMA_VERSION);
+        outboxService.enqueue(orderExchange, orderRoutingKey, event, properties);
+    }
+
+    // Spreads the lines back over the three maps of the version 1 event
+    static CartCheckoutEvent toLegacyEvent(CheckoutEventV2 event) {
+        Map<String, Integer> items = new HashMap<>();
+        Map<String, Double> itemPrices = new HashMap<>();
+        Map<String, ItemDetailsDto> itemDetails = new HashMap<>();
+
+        for (CheckoutEventV2.Line line : event.getLines()) {
+            String itemId = String.valueOf(line.getItemId());
+            items.put(itemId, line.getQuantity());
+            itemPrices.put(itemId, line.getUnitPrice());
+
+            ItemDetailsDto dto = new ItemDetailsDto();
+            dto.setName(line.getName());
+            dto.setImageUrl(line.getImageUrl());
+            dto.setUnitPrice(line.getUnitPrice());
+            dto.setQuantity(line.getQuantity());
+            dto.setSubtotal(line.getSubtotal());
+            itemDetails.put(itemId, dto);
+        }
+
+        CartCheckoutEvent legacy = new CartCheckoutEvent(event.getUserId(), items, itemPrices, itemDetails,
+                event.getPaymentMethod(), event.getTotalPrice());
+        legacy.setOrderId(event.getOrderId());
+        return legacy;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,166 @@
+package com.supermarket.supermarket_system.services;
+
+import com.supermarket.supermarket_system.dto.payment.PaymentRequestDto;
+import com.supermarket.supermarket_system.dto.payment.PaymentResponseDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.*;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// HTTP calls made by the checkout saga: stock reservations in Items, payments in Payment.
+// None of them runs inside a database transaction.
+@Component
+@Slf4j
+public class CheckoutClient {
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Value("${app.items.service.url:http://items}")
+    private String itemsServiceUrl;
+
+    @Value("${app.payment.service.url:lb://Payment}")
+    private String paymentServiceUrl;
+
+    @Value("${app.checkout.reservation-ttl-seconds:600}")
+    private int reservationTtlSeconds;
+
+    // ----------------------
+    // ITEMS: STOCK RESERVATIONS
+    // ----------------------
+
+    // All lines are reserved in one transaction on the Items side, or none are.
+    // Returns the Items response: {"success": bool, "message": str, ...}
+    public Map<String, Object> reserve(String reservationId, List<Map<String, Object>> lines) {
+        Map<String, Object> reserveRequest = new HashMap<>();
+        reserveRequest.put("reservationId", reservationId);
+        reserveRequest.put("ttlSeconds", reservationTtlSeconds);
+        reserveRequest.put("items", lines);
+
+        return callReservationEndpoint("", reserveRequest);
+    }
+
+    // Idempotent: committing an already committed reservation succeeds
+    public Map<String, Object> commit(String reservationId) {
+        return callReservationEndpoint("/" + reservationId + "/commit", null);
+    }
+
+    // Best effort: if this fails the reservation still expires on its own
+    public void release(String reservationId) {
+        try {
+            callReservationEndpoint("/" + reservationId + "/release", null);
+        } catch (Exception e) {
+            log.warn("Failed to release stock reservation {}, it will expire: {}", reservationId, e.getMessage());
+        }
+    }
+
+    private Map<String, Object> callReservationEndpoint(String path, Map<String, Object> body) {
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(body, headers);
+
+            ResponseEntity<Map> response = restTemplate.postForEntity(
+                    itemsServiceUrl + "/items/reservations" + path,
+                    entity,
+                    Map.class
+            );
+
+            if (response.getStatusCode() != HttpStatus.OK || response.getBody() == null) {
+                throw new ResponseStatusException(
+                        HttpStatus.SERVICE_UNAVAILABLE,
+                        "Items service did not respond properly for reservation"
+                );
+            }
+            return response.getBody();
+        } catch (HttpClientErrorException e) {
+            // Rejected request (not enough stock, unknown or closed reservation): the body explains why
+            Map<String, Object> respMap = e.getResponseBodyAs(Map.class);
+            if (respMap == null) {
+                throw new IllegalStateException("Items service rejected the reservation request");
+            }
+            return respMap;
+        } catch (ResponseStatusException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ResponseStatusException(
+                    HttpStatus.SERVICE_UNAVAILABLE,
+                    "Failed to communicate with Items service: " + e.getMessage()
+            );
+        }
+    }
+
+    // ----------------------
+    // PAYMENT
+    // ----------------------
+
+    public PaymentResponseDto processPayment(PaymentRequestDto paymentRequest) {
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.set("X-User-Id", String.valueOf(paymentRequest.getUserId()));
+
+            HttpEntity<PaymentRequestDto> entity = new HttpEntity<>(paymentRequest, headers);
+
+            ResponseEntity<PaymentResponseDto> response = restTemplate.postForEntity(
+                    paymentServiceUrl + "/payment/process",
+                    entity,
+                    PaymentResponseDto.class
+            );
+
+            if (response.getStatusCode() == HttpStatus.OK || response.getStatusCode() == HttpStatus.CREATED) {
+                return response.getBody();
+            } else {
+                throw new RuntimeException("Payment service returned error: " + response.getStatusCode());
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to process payment: " + e.getMessage(), e);
+        }
+    }
+
+    // The completed payment recorded for an order, if any (used when a PAYING step was lost)
+    public Map<String, Object> findCompletedPayment(Long userId, Long orderId) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-User-Id", String.valueOf(userId));
+        headers.set("X-User-Role", "USER");
+
+        ResponseEntity<List> response = restTemplate.postForEntity(
+                paymentServiceUrl + "/payment/order",
+                new HttpEntity<>(Map.of("orderId", orderId), headers),
+                List.class
+        );
+
+        if (response.getBody() == null) {
+            return null;
+        }
+        for (Object payment : response.getBody()) {
+            Map<String, Object> p = (Map<String, Object>) payment;
+            if ("COMPLETED".equals(p.get("status"))) {
+                return p;
+            }
+        }
+        return null;
+    }
+
+    // Service-to-service refund of a payment taken for a checkout that could not complete
+    public void refund(Long paymentId) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-User-Role", "ADMIN");
+
+        restTemplate.postForEntity(
+                paymentServiceUrl + "/payment/refund",
+                new HttpEntity<>(Map.of("id", paymentId), headers),
+                Map.class
+        );
+    }
+}
@@ -0,0 +1,599 @@
+package com.supermarket.supermarket_system.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.supermarket.supermarket_system.dto.payment.*;
+import com.supermarket.supermarket_system.models.Cart;
+import com.supermarket.supermarket_system.models.CartItem;
+import com.supermarket.supermarket_system.models.CheckoutSaga;
+import com.supermarket.supermarket_system.models.CheckoutSagaState;
+import com.supermarket.supermarket_system.models.PaymentMethod;
+import com.supermarket.supermarket_system.models.PaymentStatus;
+import com.supermarket.supermarket_system.repositories.CheckoutSagaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Checkout as a persisted saga:
+ *
+ *   RESERVING → PAYING → CONFIRMING → DONE (succeeded)
+ *        \          \          \
+ *         `----------`----------`→ COMPENSATING → DONE (failed)
+ *
+ * POST /cart/checkout only validates the request, snapshots the cart and stores the
+ * saga; every step then runs from a RabbitMQ message, with no database transaction
+ * held across the remote calls. A step only runs if the saga is still in the state
+ * the message was sent for, so redelivered messages are harmless. Sagas that stop
+ * moving (lost message, crashed node) are picked up by {@link #recoverStuckSagas()}.
+ *
+ * Step messages carry only the saga id and state. The payment details stay in the
+ * memory of the node that took the checkout ({@link PaymentDetailsVault}), and the
+ * PAYING step is sent to that node's own queue. The charge is marked on the saga
+ * before it is made, so a redelivered PAYING step cannot charge the card again.
+ */
+@Service
+@Slf4j
+public class CheckoutSagaService {
+
+    private static final TypeReference<List<Map<String, Object>>> LINES = new TypeReference<>() {};
+
+    // Routes to a queue by its name
+    private static final String DEFAULT_EXCHANGE = "";
+
+    @Autowired
+    private CheckoutSagaRepository sagaRepository;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CheckoutClient checkoutClient;
+
+    @Autowired
+    private CartPublisher cartPublisher;
+
+    @Autowired
+    private OrderIdGenerator orderIdGenerator;
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PaymentDetailsVault paymentDetailsVault;
+
+    @Value("${app.rabbitmq.checkout-saga-exchange:cart.checkout.saga.exchange}")
+    private String sagaExchange;
+
+    @Value("${app.rabbitmq.checkout-saga-routing-key:cart.checkout.saga.routingkey}")
+    private String sagaRoutingKey;
+
+    @Value("${app.checkout.saga.stuck-after-ms:60000}")
+    private long stuckAfterMillis;
+
+    // ----------------------
+    // START / STATUS
+    // ----------------------
+
+    /**
+     * Validates the request and starts the saga; the outcome is read with {@link #status}.
+     * A user with a checkout already running gets that checkout back.
+     */
+    public Map<String, Object> start(Long userId, CheckoutRequestDto request) {
+        // 1. Validate payment method specific data
+        validatePaymentMethodData(request);
+
+        // 2. Validate expiry date for card payments
+        if (request.getPaymentMethod() == PaymentMethod.CREDIT_CARD ||
+                request.getPaymentMethod() == PaymentMethod.DEBIT_CARD) {
+            validateExpiryDate(request);
+        }
+
+        Optional<CheckoutSaga> running = sagaRepository.findFirstByUserIdAndStateNot(userId, CheckoutSagaState.DONE);
+        if (running.isPresent()) {
+            return toStatus(running.get());
+        }
+
+        // 3. Snapshot the cart
+        Cart cart = cartService.getCartByUserId(userId);
+        if (cart == null || cart.getItems().isEmpty()) {
+            throw new IllegalStateException("Cart is empty");
+        }
+
+        List<Map<String, Object>> lines = new ArrayList<>();
+        for (CartItem ci : cart.getItems()) {
+            Map<String, Object> line = new HashMap<>();
+            line.put("itemId", ci.getItemId());
+            line.put("quantity", ci.getQuantity());
+            line.put("unitPrice", ci.getUnitPrice());
+            line.put("name", ci.getName());
+            line.put("imageUrl", ci.getImageUrl());
+            lines.add(line);
+        }
+
+        // 4. Calculate total price
+        double totalPrice = cart.getItems().stream()
+                .mapToDouble(ci -> (ci.getUnitPrice() == null ? 0.0 : ci.getUnitPrice()) * ci.getQuantity())
+                .sum();
+
+        // Final order id, shared with Payment and used by Orders as its primary key
+        Long orderId = orderIdGenerator.nextId();
+
+        // 5. Persist the saga, then kick off the first step
+        CheckoutSaga saga = new CheckoutSaga(UUID.randomUUID().toString(), userId, orderId,
+                request.getPaymentMethod().name(), totalPrice, writeLines(lines));
+        saga.setPaymentQueue(paymentDetailsVault.getNodeQueue());
+        paymentDetailsVault.put(saga.getId(), buildPaymentRequest(userId, orderId, totalPrice, request));
+        sagaRepository.save(saga);
+
+        sendStep(saga.getId(), CheckoutSagaState.RESERVING);
+
+        return toStatus(saga);
+    }
+
+    // null if the saga does not exist or belongs to another user
+    public Map<String, Object> status(Long userId, String sagaId) {
+        return sagaRepository.findByIdAndUserId(sagaId, userId).map(this::toStatus).orElse(null);
+    }
+
+    // ----------------------
+    // STEPS
+    // ----------------------
+
+    // Step message: {"sagaId": str, "state": CheckoutSagaState}
+    public void handleStep(String sagaId, String state) {
+        CheckoutSagaState step = CheckoutSagaState.valueOf(state);
+
+        CheckoutSaga saga = sagaRepository.findById(sagaId).orElse(null);
+        if (saga == null || saga.getState() != step) {
+            log.debug("Ignoring {} step for checkout saga {}: already moved on", step, sagaId);
+            return;
+        }
+
+        switch (step) {
+            case RESERVING -> reserve(saga);
+            case PAYING -> pay(saga);
+            case CONFIRMING -> confirm(saga);
+            case COMPENSATING -> compensate(saga);
+            default -> { }
+        }
+    }
+
+    private void reserve(CheckoutSaga saga) {
+        List<Map<String, Object>> lines = new ArrayList<>();
+        for (Map<String, Object> line : readLines(saga)) {
+            lines.add(Map.of("itemId", line.get("itemId"), "quantity", line.get("quantity")));
+        }
+
+        Map<String, Object> response;
+        try {
+            response = checkoutClient.reserve(saga.getId(), lines);
+        } catch (RuntimeException e) {
+            // The reservation may have gone through before the failure: release it
+            toCompensating(saga.getId(), CheckoutSagaState.RESERVING, "Could not reserve stock: " + e.getMessage());
+            return;
+        }
+
+        if (!Boolean.TRUE.equals(response.get("success"))) {
+            String message = (String) response.getOrDefault("message", "Failed to reserve item quantities");
+            finish(saga.getId(), CheckoutSagaState.RESERVING, false, message);
+            return;
+        }
+
+        if (transition(saga.getId(), CheckoutSagaState.RESERVING, CheckoutSagaState.PAYING, s -> { })) {
+            sendPayingStep(saga);
+        }
+    }
+
+    private void pay(CheckoutSaga saga) {
+        if (saga.getChargeStartedAt() != null) {
+            // Redelivered: the charge already ran (or is running); recovery settles it if it never finished
+            log.debug("Ignoring redelivered PAYING step for checkout saga {}", saga.getId());
+            return;
+        }
+        PaymentRequestDto payment = paymentDetailsVault.get(saga.getId());
+        if (payment == null) {
+            toCompensating(saga.getId(), CheckoutSagaState.PAYING, "Payment details are no longer available, please retry");
+            return;
+        }
+
+        // Marked before the charge: whoever commits the marker first is the only one to charge
+        if (!transition(saga.getId(), CheckoutSagaState.PAYING, CheckoutSagaState.PAYING, s -> {
+            if (s.getChargeStartedAt() != null) {
+                throw new ChargeAlreadyStarted();
+            }
+            s.setChargeStartedAt(Instant.now());
+        })) {
+            return;
+        }
+        paymentDetailsVault.remove(saga.getId());
+
+        PaymentResponseDto response;
+        try {
+            response = checkoutClient.processPayment(payment);
+        } catch (RuntimeException e) {
+            toCompensating(saga.getId(), CheckoutSagaState.PAYING, e.getMessage());
+            return;
+        }
+        if (response == null || response.getStatus() == PaymentStatus.FAILED) {
+            toCompensating(saga.getId(), CheckoutSagaState.PAYING, "Payment was declined");
+            return;
+        }
+
+        boolean moved = transition(saga.getId(), CheckoutSagaState.PAYING, CheckoutSagaState.CONFIRMING, s -> {
+            s.setPaymentId(response.getPaymentId());
+            s.setTransactionId(response.getTransactionId());
+            s.setPaymentStatus(response.getStatus());
+        });
+        if (moved) {
+            sendStep(saga.getId(), CheckoutSagaState.CONFIRMING);
+        } else {
+            // The saga was compensated meanwhile (timed out): do not keep the money
+            log.warn("Checkout saga {} was compensated while paying, refunding payment {}", saga.getId(), response.getPaymentId());
+            refundQuietly(response.getPaymentId());
+        }
+    }
+
+    private void confirm(CheckoutSaga saga) {
+        Map<String, Object> commit;
+        try {
+            commit = checkoutClient.commit(saga.getId());
+        } catch (RuntimeException e) {
+            log.warn("Could not commit reservation of checkout saga {}, will retry: {}", saga.getId(), e.getMessage());
+            return;
+        }
+        if (!Boolean.TRUE.equals(commit.get("success"))) {
+            // Only possible if the reservation expired while the payment was processed
+            toCompensating(saga.getId(), CheckoutSagaState.CONFIRMING, "Reserved stock expired before checkout completed");
+            return;
+        }
+
+        // The order event (through the outbox), the cart clearing and the saga completion commit together
+        transition(saga.getId(), CheckoutSagaState.CONFIRMING, CheckoutSagaState.DONE, s -> {
+            cartPublisher.publishCheckout(buildCheckoutEvent(s));
+            cartService.clearCart(s.getUserId());
+            s.setSucceeded(true);
+            s.setMessage("Checkout completed successfully");
+        });
+    }
+
+    private void compensate(CheckoutSaga saga) {
+        paymentDetailsVault.remove(saga.getId());
+        checkoutClient.release(saga.getId());
+
+        Long paymentId = saga.getPaymentStatus() == PaymentStatus.COMPLETED ? saga.getPaymentId() : null;
+        if (saga.getPaymentId() == null && saga.getChargeStartedAt() != null) {
+            // The charge call failed (e.g. read timeout), but Payment may have taken the money anyway
+            Map<String, Object> payment;
+            try {
+                payment = checkoutClient.findCompletedPayment(saga.getUserId(), saga.getOrderId());
+            } catch (RuntimeException e) {
+                log.warn("Could not look up the payment of checkout saga {}, will retry: {}", saga.getId(), e.getMessage());
+                return;
+            }
+            if (payment != null) {
+                paymentId = ((Number) payment.get("id")).longValue();
+            } else if (saga.getChargeStartedAt().isAfter(Instant.now().minusMillis(stuckAfterMillis))) {
+                // The charge may still be running: look again when recovery picks the saga up
+                log.info("No payment found yet for checkout saga {}, will look again", saga.getId());
+                return;
+            }
+        }
+
+        boolean refunded = false;
+        if (paymentId != null) {
+            try {
+                checkoutClient.refund(paymentId);
+                refunded = true;
+            } catch (HttpClientErrorException e) {
+                // Payment rejects refunds of payments that are no longer COMPLETED: already refunded
+                refunded = true;
+            } catch (RuntimeException e) {
+                log.error("Could not refund payment {} of checkout saga {}, will retry", paymentId, saga.getId(), e);
+                return;
+            }
+        }
+
+        Long refundedPaymentId = refunded ? paymentId : null;
+        transition(saga.getId(), CheckoutSagaState.COMPENSATING, CheckoutSagaState.DONE, s -> {
+            s.setSucceeded(false);
+            if (refundedPaymentId != null) {
+                s.setPaymentId(refundedPaymentId);
+                s.setPaymentStatus(PaymentStatus.REFUNDED);
+            }
+        });
+    }
+
+    // ----------------------
+    // RECOVERY
+    // ----------------------
+
+    @Scheduled(fixedDelayString = "${app.checkout.saga.recovery-interval-ms:30000}")
+    public void recoverStuckSagas() {
+        Instant cutoff = Instant.now().minusMillis(stuckAfterMillis);
+        List<CheckoutSaga> stuck = sagaRepository.findByStateNotAndUpdatedAtBefore(
+                CheckoutSagaState.DONE, cutoff, PageRequest.of(0, 100));
+
+        for (CheckoutSaga saga : stuck) {
+            try {
+                recover(saga);
+            } catch (RuntimeException e) {
+                log.error("Failed to recover checkout saga {}", saga.getId(), e);
+            }
+        }
+    }
+
+    private void recover(CheckoutSaga saga) {
+        log.warn("Recovering checkout saga {} stuck in {}", saga.getId(), saga.getState());
+        switch (saga.getState()) {
+            case RESERVING -> toCompensating(saga.getId(), CheckoutSagaState.RESERVING, "Checkout timed out while reserving stock");
+            case PAYING -> {
+                // The payment details are gone; find out whether the payment went through
+                Map<String, Object> payment = checkoutClient.findCompletedPayment(saga.getUserId(), saga.getOrderId());
+                if (payment == null) {
+                    toCompensating(saga.getId(), CheckoutSagaState.PAYING, "Checkout timed out while processing payment");
+                } else if (transition(saga.getId(), CheckoutSagaState.PAYING, CheckoutSagaState.CONFIRMING, s -> {
+                    s.setPaymentId(((Number) payment.get("id")).longValue());
+                    s.setTransactionId((String) payment.get("transactionId"));
+                    s.setPaymentStatus(PaymentStatus.COMPLETED);
+                })) {
+                    sendStep(saga.getId(), CheckoutSagaState.CONFIRMING);
+                }
+            }
+            case CONFIRMING, COMPENSATING -> {
+                // Both steps are idempotent: run them again
+                if (transition(saga.getId(), saga.getState(), saga.getState(), s -> { })) {
+                    sendStep(saga.getId(), saga.getState());
+                }
+            }
+            default -> { }
+        }
+    }
+
+    // ----------------------
+    // STATE TRANSITIONS
+    // ----------------------
+
+    // Moves the saga from one state to another in a short transaction; false if it was not in "from"
+    private boolean transition(String sagaId, CheckoutSagaState from, CheckoutSagaState to, Consumer<CheckoutSaga> change) {
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                CheckoutSaga saga = sagaRepository.findById(sagaId).orElse(null);
+                if (saga == null || saga.getState() != from) {
+                    return false;
+                }
+                change.accept(saga);
+                saga.setState(to);
+                sagaRepository.save(saga);
+                return true;
+            }));
+        } catch (ObjectOptimisticLockingFailureException | ChargeAlreadyStarted e) {
+            // Another handler moved it first
+            return false;
+        }
+    }
+
+    private void toCompensating(String sagaId, CheckoutSagaState from, String reason) {
+        if (transition(sagaId, from, CheckoutSagaState.COMPENSATING, s -> s.setMessage(reason))) {
+            sendStep(sagaId, CheckoutSagaState.COMPENSATING);
+        }
+    }
+
+    private void finish(String sagaId, CheckoutSagaState from, boolean succeeded, String message) {
+        transition(sagaId, from, CheckoutSagaState.DONE, s -> {
+            s.setSucceeded(succeeded);
+            s.setMessage(message);
+        });
+    }
+
+    private void sendStep(String sagaId, CheckoutSagaState state) {
+        rabbitTemplate.convertAndSend(sagaExchange, sagaRoutingKey, stepMessage(sagaId, state));
+    }
+
+    // To the node holding the payment details; if it is gone the message is dropped and recovery takes over
+    private void sendPayingStep(CheckoutSaga saga) {
+        if (saga.getPaymentQueue() == null) {
+            toCompensating(saga.getId(), CheckoutSagaState.PAYING, "Payment details are no longer available, please retry");
+            return;
+        }
+        rabbitTemplate.convertAndSend(DEFAULT_EXCHANGE, saga.getPaymentQueue(),
+                stepMessage(saga.getId(), CheckoutSagaState.PAYING));
+    }
+
+    private Map<String, Object> stepMessage(String sagaId, CheckoutSagaState state) {
+        Map<String, Object> message = new HashMap<>();
+        message.put("sagaId", sagaId);
+        message.put("state", state.name());
+        return message;
+    }
+
+    // Rolls back the marker transaction when another handler marked the charge first
+    private static final class ChargeAlreadyStarted extends RuntimeException {
+        private ChargeAlreadyStarted() {
+            super(null, null, false, false);
+        }
+    }
+
+    private void refundQuietly(Long paymentId) {
+        try {
+            checkoutClient.refund(paymentId);
+        } catch (RuntimeException e) {
+            log.error("Could not refund payment {}, needs manual refund", paymentId, e);
+        }
+    }
+
+    // ----------------------
+    // HELPERS
+    // ----------------------
+
+    private Map<String, Object> toStatus(CheckoutSaga saga) {
+        Map<String, Object> status = new HashMap<>();
+        status.put("sagaId", saga.getId());
+        status.put("state", saga.getState().name());
+        status.put("result", saga.getSucceeded() == null ? "PENDING" : (saga.getSucceeded() ? "SUCCEEDED" : "FAILED"));
+        status.put("message", saga.getMessage());
+        status.put("orderId", saga.getOrderId());
+        status.put("paymentId", saga.getPaymentId());
+        status.put("transactionId", saga.getTransactionId());
+        status.put("paymentStatus", saga.getPaymentStatus());
+        status.put("totalAmount", saga.getTotalPrice());
+        return status;
+    }
+
+    private CheckoutEventV2 buildCheckoutEvent(CheckoutSaga saga) {
+        CheckoutEventV2 event = new CheckoutEventV2();
+        event.setOrderId(saga.getOrderId());
+        event.setUserId(saga.getUserId());
+        event.setPaymentMethod(saga.getPaymentMethod());
+        event.setTotalPrice(saga.getTotalPrice());
+
+        // One entry per cart line with its price and display details
+        for (Map<String, Object> line : readLines(saga)) {
+            int quantity = ((Number) line.get("quantity")).intValue();
+            Double unitPrice = line.get("unitPrice") == null ? null : ((Number) line.get("unitPrice")).doubleValue();
+
+            CheckoutEventV2.Line eventLine = new CheckoutEventV2.Line();
+            eventLine.setItemId(((Number) line.get("itemId")).longValue());
+            eventLine.setName((String) line.get("name"));
+            eventLine.setImageUrl((String) line.get("imageUrl"));
+            eventLine.setUnitPrice(unitPrice);
+            eventLine.setQuantity(quantity);
+            eventLine.setSubtotal((unitPrice == null ? 0.0 : unitPrice) * quantity);
+            event.getLines().add(eventLine);
+        }
+        return event;
+    }
+
+    private String writeLines(List<Map<String, Object>> lines) {
+        try {
+            return objectMapper.writeValueAsString(lines);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to snapshot cart", e);
+        }
+    }
+
+    private List<Map<String, Object>> readLines(CheckoutSaga saga) {
+        try {
+            return objectMapper.readValue(saga.getCartSnapshot(), LINES);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt cart snapshot in checkout saga " + saga.getId(), e);
+        }
+    }
+
+    private PaymentRequestDto buildPaymentRequest(Long userId, Long orderId, Double amount, CheckoutRequestDto request) {
+        PaymentRequestDto paymentRequest = new PaymentRequestDto();
+        paymentRequest.setUserId(userId);
+        paymentRequest.setOrderId(orderId);
+        paymentRequest.setAmount(amount);
+        paymentRequest.setPaymentMethod(request.getPaymentMethod());
+
+        // Set payment method specific details
+        switch (request.getPaymentMethod()) {
+            case CREDIT_CARD:
+                paymentRequest.setCreditCardPayment(request.getCreditCardPayment());
+                break;
+            case DEBIT_CARD:
+                paymentRequest.setDebitCardPayment(request.getDebitCardPayment());
+                break;
+            case MOBILE_PAYMENT:
+                paymentRequest.setMobilePayment(request.getMobilePayment());
+                break;
+            case BANK_TRANSFER:
+                paymentRequest.setBankTransfer(request.getBankTransfer());
+                break;
+            case CASH:
+                paymentRequest.setCashPayment(request.getCashPayment());
+                break;
+        }
+
+        return paymentRequest;
+    }
+
+    private void validatePaymentMethodData(CheckoutRequestDto request) {
+        switch (request.getPaymentMethod()) {
+            case CREDIT_CARD:
+                if (request.getCreditCardPayment() == null) {
+                    throw new IllegalArgumentException("Credit card payment details are required");
+                }
+                break;
+            case DEBIT_CARD:
+                if (request.getDebitCardPayment() == null) {
+                    throw new IllegalArgumentException("Debit card payment details are required");
+                }
+                break;
+            case MOBILE_PAYMENT:
+                if (request.getMobilePayment() == null) {
+                    throw new IllegalArgumentException("Mobile payment details are required");
+                }
+                break;
+            case BANK_TRANSFER:
+                if (request.getBankTransfer() == null) {
+                    throw new IllegalArgumentException("Bank transfer details are required");
+                }
+                break;
+            case CASH:
+                // Auto-create and confirm cash payment if missing
+                if (request.getCashPayment() == null) {
+                    request.setCashPayment(new CashPaymentDto());
+                }
+                if (request.getCashPayment().getConfirmed() == null || !request.getCashPayment().getConfirmed()) {
+                    request.getCashPayment().setConfirmed(true);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid payment method");
+        }
+    }
+
+    private void validateExpiryDate(CheckoutRequestDto request) {
+        String expiryDate = null;
+
+        if (request.getPaymentMethod() == PaymentMethod.CREDIT_CARD) {
+            expiryDate = request.getCreditCardPayment().getExpiryDate();
+        } else if (request.getPaymentMethod() == PaymentMethod.DEBIT_CARD) {
+            expiryDate = request.getDebitCardPayment().getExpiryDate();
+        }
+
+        if (expiryDate == null) {
+            throw new IllegalArgumentException("Expiry date is required");
+        }
+
+        try {
+            // Parse MM/YY format
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/yy");
+            YearMonth cardExpiry = YearMonth.parse(expiryDate, formatter);
+            YearMonth currentMonth = YearMonth.now();
+
+            if (cardExpiry.isBefore(currentMonth)) {
+                throw new IllegalArgumentException("Card has expired");
+            }
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid expiry date format or expired card");
+        }
+    }
+}
\ No newline at end of file
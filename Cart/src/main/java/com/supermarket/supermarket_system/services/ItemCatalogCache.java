@@ -0,0 +1,139 @@
+package com.supermarket.supermarket_system.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// ========================
+// COMPONENT: ItemCatalogCache
+// ========================
+// Bounded read-through cache of item snapshots (price, name, imageUrl, availability)
+// returned by the Items availability RPC, keyed by itemId.
+//
+// - Entries live for a short TTL; items that do not exist are cached for a shorter one.
+// - Least recently used entries are evicted once max-entries is reached (O(1) per insert).
+// - Items publishes change events that invalidate entries as soon as an item changes.
+// - A lookup that started before an invalidation never writes its (possibly stale) result.
+// - Hit / miss / eviction counters are kept for monitoring.
+@Component
+public class ItemCatalogCache {
+
+    @Value("${app.items.cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${app.items.cache.ttl-ms:30000}")
+    private long ttlMillis;
+
+    @Value("${app.items.cache.negative-ttl-ms:5000}")
+    private long negativeTtlMillis;
+
+    // Access-ordered for LRU eviction; guarded by "this". Loads from Items run outside the lock.
+    private final LinkedHashMap<Long, CachedItem> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CachedItem> eldest) {
+            if (size() > maxEntries) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    // Bumped on every invalidation, so lookups racing with one are not cached
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Returns the cached snapshot of an item, or loads it and caches the result.
+     *
+     * @param itemId The item to look up
+     * @param loader Fetches the snapshot from Items; a snapshot without "unitPrice" means the item does not exist
+     * @return An unmodifiable snapshot
+     */
+    public Map<String, Object> get(Long itemId, Function<Long, Map<String, Object>> loader) {
+        long now = System.currentTimeMillis();
+
+        synchronized (this) {
+            CachedItem cached = entries.get(itemId);
+            if (cached != null) {
+                if (cached.expiresAt > now) {
+                    hits.increment();
+                    return cached.snapshot;
+                }
+                entries.remove(itemId);
+                evictions.increment();
+            }
+        }
+
+        misses.increment();
+        return load(itemId, loader);
+    }
+
+    // Always goes to Items, replacing whatever is cached
+    public Map<String, Object> refresh(Long itemId, Function<Long, Map<String, Object>> loader) {
+        misses.increment();
+        return load(itemId, loader);
+    }
+
+    public synchronized void invalidate(Long itemId) {
+        invalidations.incrementAndGet();
+        if (entries.remove(itemId) != null) {
+            evictions.increment();
+        }
+    }
+
+    private Map<String, Object> load(Long itemId, Function<Long, Map<String, Object>> loader) {
+        long seenInvalidations = invalidations.get();
+        Map<String, Object> snapshot = Collections.unmodifiableMap(new HashMap<>(loader.apply(itemId)));
+
+        long now = System.currentTimeMillis();
+        long ttl = snapshot.get("unitPrice") == null ? negativeTtlMillis : ttlMillis;
+        synchronized (this) {
+            // An invalidation arrived while loading: the snapshot may predate the change
+            if (invalidations.get() == seenInvalidations) {
+                entries.put(itemId, new CachedItem(snapshot, now + ttl));
+            }
+        }
+        return snapshot;
+    }
+
+    // ----------------------
+    // METRICS
+    // ----------------------
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static final class CachedItem {
+        private final Map<String, Object> snapshot;
+        private final long expiresAt;
+
+        private CachedItem(Map<String, Object> snapshot, long expiresAt) {
+            this.snapshot = snapshot;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
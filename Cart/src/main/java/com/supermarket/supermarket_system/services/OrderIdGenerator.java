@@ -0,0 +1,181 @@
+package com.supermarket.supermarket_system.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Snowflake-style order ids, assigned by Cart before anything is published, so
+ * Cart, Payment and Orders all use the same id and Orders can make it its
+ * primary key.
+ *
+ *   | 41 bits: ms since 2024-01-01 | 5 bits: node | 7 bits: sequence |
+ *
+ * Ids are time ordered (index friendly) and stay below 2^53, so the frontend
+ * reads them as exact JavaScript numbers. That gives 32 nodes and 128 ids per
+ * millisecond per node.
+ *
+ * Two instances must never share a node id (Orders would drop the second order
+ * as a duplicate), so node ids are leased from the order_id_node_leases table:
+ * one row per node, claimed only if free or expired, renewed on a heartbeat and
+ * compared against the database clock. The search starts at a hash of the
+ * instance id; app.order-id.node-id pins one node and fails the startup if it
+ * is leased. No ids are issued once the lease has run out without renewal, and
+ * a new owner of a node continues after the last timestamp the previous one
+ * reported.
+ */
+@Component
+@DependsOn("entityManagerFactory") // order_id_node_leases is created by Hibernate (ddl-auto)
+@Slf4j
+public class OrderIdGenerator {
+
+    static final long EPOCH = 1704067200000L; // 2024-01-01T00:00:00Z
+    static final int NODE_BITS = 5;
+    static final int SEQUENCE_BITS = 7;
+    static final int MAX_NODE = (1 << NODE_BITS) - 1;
+    static final int MAX_SEQUENCE = (1 << SEQUENCE_BITS) - 1;
+
+    private static final String CLAIM_EXPIRED =
+            "UPDATE order_id_node_leases SET owner = ?, expires_at = TIMESTAMPADD(MICROSECOND, ?, UTC_TIMESTAMP(6)) " +
+            "WHERE node_id = ? AND expires_at < UTC_TIMESTAMP(6)";
+
+    private static final String INSERT_LEASE =
+            "INSERT INTO order_id_node_leases (node_id, owner, expires_at, last_timestamp) " +
+            "VALUES (?, ?, TIMESTAMPADD(MICROSECOND, ?, UTC_TIMESTAMP(6)), 0)";
+
+    private static final String RENEW =
+            "UPDATE order_id_node_leases SET expires_at = TIMESTAMPADD(MICROSECOND, ?, UTC_TIMESTAMP(6)), " +
+            "last_timestamp = GREATEST(last_timestamp, ?) WHERE node_id = ? AND owner = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Registration registration;
+
+    @Value("${app.order-id.node-id:-1}")
+    private int configuredNodeId;
+
+    @Value("${app.order-id.lease-ttl-ms:30000}")
+    private long leaseTtlMillis;
+
+    // Unique per process, so a restarted instance never mistakes an old lease for its own
+    private final String owner = UUID.randomUUID().toString();
+
+    private int nodeId;
+    private long lastTimestamp = -1;
+    private int sequence;
+
+    // Local clock time until which the lease is known to be held
+    private volatile long leaseValidUntil;
+
+    @PostConstruct
+    void assignNodeId() {
+        if (configuredNodeId > MAX_NODE) {
+            throw new IllegalStateException("app.order-id.node-id must be between 0 and " + MAX_NODE);
+        }
+        if (configuredNodeId >= 0) {
+            if (!claim(configuredNodeId)) {
+                throw new IllegalStateException("Order id node " + configuredNodeId
+                        + " (app.order-id.node-id) is leased by another Cart instance");
+            }
+        } else {
+            int candidate = Math.floorMod(registration.getInstanceId().hashCode(), MAX_NODE + 1);
+            int tried = 0;
+            while (!claim(candidate)) {
+                if (++tried > MAX_NODE) {
+                    throw new IllegalStateException("Every order id node is leased by another Cart instance");
+                }
+                candidate = (candidate + 1) & MAX_NODE;
+            }
+        }
+        log.info("Order id generator using node id {}", nodeId);
+    }
+
+    // Takes the node if its lease is free or expired
+    private boolean claim(int node) {
+        long validUntil = System.currentTimeMillis() + leaseTtlMillis;
+        if (jdbcTemplate.update(CLAIM_EXPIRED, owner, leaseTtlMillis * 1000, node) == 0) {
+            try {
+                jdbcTemplate.update(INSERT_LEASE, node, owner, leaseTtlMillis * 1000);
+            } catch (DuplicateKeyException e) {
+                return false; // held by a live instance
+            }
+        }
+
+        List<Long> last = jdbcTemplate.queryForList(
+                "SELECT last_timestamp FROM order_id_node_leases WHERE node_id = ?", Long.class, node);
+        synchronized (this) {
+            nodeId = node;
+            lastTimestamp = Math.max(lastTimestamp, last.isEmpty() ? -1 : last.get(0));
+        }
+        leaseValidUntil = validUntil;
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${app.order-id.lease-renew-ms:10000}")
+    public void renewLease() {
+        long validUntil = System.currentTimeMillis() + leaseTtlMillis;
+        try {
+            if (jdbcTemplate.update(RENEW, leaseTtlMillis * 1000, currentTimestamp(), nodeId, owner) == 1) {
+                leaseValidUntil = validUntil;
+            } else if (!claim(nodeId)) {
+                leaseValidUntil = 0;
+                log.error("Lost the lease on order id node {} to another Cart instance, no more order ids", nodeId);
+            }
+        } catch (DataAccessException e) {
+            // Ids are still issued until the current lease runs out
+            log.warn("Could not renew the lease on order id node {}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void releaseLease() {
+        try {
+            jdbcTemplate.update("UPDATE order_id_node_leases SET expires_at = UTC_TIMESTAMP(6), " +
+                    "last_timestamp = GREATEST(last_timestamp, ?) WHERE node_id = ? AND owner = ?",
+                    currentTimestamp(), nodeId, owner);
+        } catch (DataAccessException e) {
+            log.warn("Could not release order id node {}, it frees up when the lease expires: {}", nodeId, e.getMessage());
+        }
+    }
+
+    private synchronized long currentTimestamp() {
+        return lastTimestamp;
+    }
+
+    public synchronized long nextId() {
+        if (System.currentTimeMillis() >= leaseValidUntil) {
+            throw new IllegalStateException("The lease on order id node " + nodeId + " has run out");
+        }
+        long now = System.currentTimeMillis() - EPOCH;
+
+        // A clock that goes backwards keeps using the last timestamp, so ids never repeat
+        if (now > lastTimestamp) {
+            lastTimestamp = now;
+            sequence = 0;
+        } else if (sequence < MAX_SEQUENCE) {
+            sequence++;
+        } else {
+            // Sequence exhausted for this millisecond: borrow the next one
+            lastTimestamp++;
+            sequence = 0;
+        }
+
+        return (lastTimestamp << (NODE_BITS + SEQUENCE_BITS))
+                | ((long) nodeId << SEQUENCE_BITS)
+                | sequence;
+    }
+}
@@ -0,0 +1,61 @@
+package com.supermarket.supermarket_system.services;
+
+import com.supermarket.supermarket_system.dto.payment.PaymentRequestDto;
+import org.springframework.amqp.core.Queue;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Payment details of running checkouts, kept in this node's memory only.
+ *
+ * Card numbers and CVVs must never reach the database, the broker or the logs, so the
+ * saga only records which node holds them ({@link #getNodeQueue()}) and sends its
+ * PAYING step to that node's own queue. If the node goes away the details go with it,
+ * and the saga recovery finds out whether the payment happened.
+ */
+@Component
+public class PaymentDetailsVault {
+
+    @Autowired
+    @Qualifier("checkoutSagaNodeQueue")
+    private Queue nodeQueue;
+
+    @Value("${app.checkout.payment-details-ttl-ms:300000}")
+    private long ttlMillis;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public void put(String sagaId, PaymentRequestDto payment) {
+        entries.put(sagaId, new Entry(payment, System.currentTimeMillis() + ttlMillis));
+    }
+
+    // null if this node does not hold the saga's details (other node, restart, expired)
+    public PaymentRequestDto get(String sagaId) {
+        Entry entry = entries.get(sagaId);
+        return entry == null || entry.expiresAt < System.currentTimeMillis() ? null : entry.payment;
+    }
+
+    public void remove(String sagaId) {
+        entries.remove(sagaId);
+    }
+
+    // Name of this node's saga step queue, reachable through the default exchange
+    public String getNodeQueue() {
+        return nodeQueue.getName();
+    }
+
+    @Scheduled(fixedDelayString = "${app.checkout.payment-details-sweep-ms:60000}")
+    public void removeExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAt < now);
+    }
+
+    private record Entry(PaymentRequestDto payment, long expiresAt) {
+    }
+}
@@ -0,0 +1,67 @@
+package com.supermarket.supermarket_system.services;
+
+import com.supermarket.common.messaging.JacksonCborMessageConverter;
+import com.supermarket.supermarket_system.dto.payment.CheckoutEventV2;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Checkout event wire formats: legacy JSON (v1), JSON v2 and CBOR v2
+class CheckoutEventCodecTest {
+
+    static final int LINES = 20;
+
+    private final MessageConverter json = new Jackson2JsonMessageConverter();
+    private final MessageConverter cbor = new JacksonCborMessageConverter();
+
+    @Test
+    void cborV2IsSmallerThanJsonV1() {
+        CheckoutEventV2 event = sampleEvent();
+
+        int jsonV1 = json.toMessage(CartPublisher.toLegacyEvent(event), new MessageProperties()).getBody().length;
+        int jsonV2 = json.toMessage(event, new MessageProperties()).getBody().length;
+        int cborV2 = cbor.toMessage(event, new MessageProperties()).getBody().length;
+
+        assertTrue(jsonV2 < jsonV1, "v2 must not repeat the lines");
+        assertTrue(cborV2 < jsonV2, "CBOR must be smaller than JSON");
+    }
+
+    @Test
+    void cborV2RoundTrips() {
+        CheckoutEventV2 event = sampleEvent();
+        Message message = cbor.toMessage(event, new MessageProperties());
+
+        CheckoutEventV2 read = (CheckoutEventV2) cbor.fromMessage(message);
+        assertEquals(event.getOrderId(), read.getOrderId());
+        assertEquals(LINES, read.getLines().size());
+        assertEquals(event.getLines().get(3).getName(), read.getLines().get(3).getName());
+    }
+
+    // Also the payload of CheckoutEventCodecBenchmark
+    static CheckoutEventV2 sampleEvent() {
+        CheckoutEventV2 event = new CheckoutEventV2();
+        event.setOrderId(123456789012345L);
+        event.setUserId(42L);
+        event.setPaymentMethod("CREDIT_CARD");
+
+        double total = 0;
+        for (int i = 1; i <= LINES; i++) {
+            CheckoutEventV2.Line line = new CheckoutEventV2.Line();
+            line.setItemId((long) i);
+            line.setName("Item number " + i);
+            line.setImageUrl("https://cdn.example.com/items/" + i + ".jpg");
+            line.setUnitPrice(1.25 * i);
+            line.setQuantity(i % 4 + 1);
+            line.setSubtotal(line.getUnitPrice() * line.getQuantity());
+            event.getLines().add(line);
+            total += line.getSubtotal();
+        }
+        event.setTotalPrice(total);
+        return event;
+    }
+}
@@ -0,0 +1,274 @@
+package com.supermarket.common.loadbalancer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.http.HttpStatusCode;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load balancer for one service (lb://Items, http://Items/... through a @LoadBalanced RestTemplate)
+ * that avoids slow and failing instances.
+ *
+ * Picks two random instances and sends the request to the cheaper one, cost being the
+ * instance's latency average times (requests in flight + 1). The average is a peak EWMA:
+ * a slower response raises it at once, faster ones bring it down over decay-ms, so an
+ * instance stuck in a GC pause stops getting traffic after its first slow answers.
+ * An instance that fails error-threshold times in a row (connection error or 5xx) is
+ * left out for ejection-ms; a single further failure after that ejects it again.
+ *
+ * Latency and in-flight counts come from the load balancer lifecycle callbacks, which
+ * both the Gateway's lb:// filter and the blocking RestTemplate client invoke.
+ * Shared by the Gateway, Cart and Orders through LatencyAwareLoadBalancerConfig.
+ */
+public class LatencyAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer,
+        LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    private static final Logger log = LoggerFactory.getLogger(LatencyAwareLoadBalancer.class);
+
+    private final ObjectProvider<ServiceInstanceListSupplier> supplierProvider;
+    private final String serviceId;
+    private final double decayNanos;
+    private final int errorThreshold;
+    private final long ejectionNanos;
+
+    private final Map<String, InstanceStats> stats = new ConcurrentHashMap<>();
+
+    public LatencyAwareLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> supplierProvider,
+                                    String serviceId,
+                                    long decayMillis,
+                                    int errorThreshold,
+                                    long ejectionMillis) {
+        this.supplierProvider = supplierProvider;
+        this.serviceId = serviceId;
+        this.decayNanos = TimeUnit.MILLISECONDS.toNanos(decayMillis);
+        this.errorThreshold = errorThreshold;
+        this.ejectionNanos = TimeUnit.MILLISECONDS.toNanos(ejectionMillis);
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = supplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(instances -> {
+            Response<ServiceInstance> response = choose(instances);
+            if (supplier instanceof SelectedInstanceCallback callback && response.hasServer()) {
+                callback.selectedServiceInstance(response.getServer());
+            }
+            return response;
+        });
+    }
+
+    Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            log.warn("No servers available for service: {}", serviceId);
+            return new EmptyResponse();
+        }
+        forgetRemoved(instances);
+        if (instances.size() == 1) {
+            return new DefaultResponse(instances.get(0));
+        }
+
+        long now = System.nanoTime();
+        List<ServiceInstance> candidates = instances;
+        if (stats.values().stream().anyMatch(s -> s.isEjected(now))) {
+            candidates = new ArrayList<>(instances.size());
+            for (ServiceInstance instance : instances) {
+                if (!statsFor(instance).isEjected(now)) {
+                    candidates.add(instance);
+                }
+            }
+            // Every instance ejected: better to try them than to fail outright
+            if (candidates.isEmpty()) {
+                candidates = instances;
+            }
+        }
+        if (candidates.size() == 1) {
+            return new DefaultResponse(candidates.get(0));
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = candidates.get(first);
+        ServiceInstance b = candidates.get(second);
+        double prior = averageLatency(now);
+        return new DefaultResponse(statsFor(a).cost(now, prior) <= statsFor(b).cost(now, prior) ? a : b);
+    }
+
+    // ----------------------
+    // LIFECYCLE
+    // ----------------------
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (request.getContext() instanceof TimedRequestContext context) {
+            context.setRequestStartTime(System.nanoTime());
+        }
+        if (lbResponse != null && lbResponse.hasServer()) {
+            statsFor(lbResponse.getServer()).inFlight.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+        InstanceStats instance = stats.get(key(lbResponse.getServer()));
+        if (instance == null) {
+            return;
+        }
+        // Cancelled (e.g. the losing half of a hedged request): frees the slot, says nothing about the instance
+        if (completionContext.status() == CompletionContext.Status.DISCARD) {
+            instance.inFlight.decrementAndGet();
+            return;
+        }
+
+        long now = System.nanoTime();
+        long rtt = -1;
+        Request<Object> request = completionContext.getLoadBalancerRequest();
+        if (request != null && request.getContext() instanceof TimedRequestContext context
+                && context.getRequestStartTime() > 0) {
+            rtt = now - context.getRequestStartTime();
+        }
+
+        boolean failed = completionContext.status() == CompletionContext.Status.FAILED;
+        if (completionContext.getClientResponse() instanceof ResponseData response) {
+            HttpStatusCode status = response.getHttpStatus();
+            failed |= status != null && status.is5xxServerError();
+        }
+
+        if (instance.complete(now, rtt, failed)) {
+            log.warn("Ejecting {} instance {} for {} ms after {} consecutive errors", serviceId,
+                    key(lbResponse.getServer()), TimeUnit.NANOSECONDS.toMillis(ejectionNanos), errorThreshold);
+        }
+    }
+
+    // ----------------------
+    // STATS
+    // ----------------------
+
+    private InstanceStats statsFor(ServiceInstance instance) {
+        return stats.computeIfAbsent(key(instance), k -> new InstanceStats());
+    }
+
+    private String key(ServiceInstance instance) {
+        return instance.getInstanceId() != null
+                ? instance.getInstanceId()
+                : instance.getHost() + ":" + instance.getPort();
+    }
+
+    // Assumed latency of instances that have not answered yet: the average of the others
+    private double averageLatency(long now) {
+        double sum = 0;
+        int known = 0;
+        for (InstanceStats s : stats.values()) {
+            double latency = s.latency(now);
+            if (latency > 0) {
+                sum += latency;
+                known++;
+            }
+        }
+        return known == 0 ? 1 : sum / known;
+    }
+
+    // Drops the stats of instances that left the registry
+    private void forgetRemoved(List<ServiceInstance> instances) {
+        if (stats.size() <= instances.size()) {
+            return;
+        }
+        Set<String> current = new HashSet<>();
+        for (ServiceInstance instance : instances) {
+            current.add(key(instance));
+        }
+        stats.keySet().retainAll(current);
+    }
+
+    private final class InstanceStats {
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        // Guarded by "this"
+        private double latencyNanos;
+        private long updatedAt;
+        private int consecutiveErrors;
+        private volatile long ejectedUntil;
+
+        boolean isEjected(long now) {
+            return ejectedUntil - now > 0;
+        }
+
+        double cost(long now, double prior) {
+            double latency = latency(now);
+            return (latency > 0 ? latency : prior) * (inFlight.get() + 1);
+        }
+
+        synchronized double latency(long now) {
+            if (latencyNanos == 0) {
+                return 0;
+            }
+            // Without new samples the average keeps decaying, so a recovered instance is retried
+            return latencyNanos * Math.exp(-(now - updatedAt) / decayNanos);
+        }
+
+        // Returns true if this completion ejected the instance
+        synchronized boolean complete(long now, long rttNanos, boolean failed) {
+            inFlight.decrementAndGet();
+            if (rttNanos > 0) {
+                if (rttNanos > latencyNanos) {
+                    latencyNanos = rttNanos;
+                } else {
+                    double weight = Math.exp(-(now - updatedAt) / decayNanos);
+                    latencyNanos = latencyNanos * weight + rttNanos * (1 - weight);
+                }
+                updatedAt = now;
+            }
+
+            if (!failed) {
+                consecutiveErrors = 0;
+                return false;
+            }
+            consecutiveErrors++;
+            if (consecutiveErrors >= errorThreshold && !isEjected(now)) {
+                ejectedUntil = now + ejectionNanos;
+                return true;
+            }
+            return false;
+        }
+    }
+}
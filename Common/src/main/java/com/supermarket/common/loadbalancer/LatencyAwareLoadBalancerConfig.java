@@ -0,0 +1,29 @@
+package com.supermarket.common.loadbalancer;
+
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Replaces the default round robin with LatencyAwareLoadBalancer for every service.
+ *
+ * Referenced from @LoadBalancerClients(defaultConfiguration = ...) and instantiated in each
+ * service's own load balancer context, so it must not be a component-scanned @Configuration.
+ * Settings (app.loadbalancer.*) apply to all services.
+ */
+public class LatencyAwareLoadBalancerConfig {
+
+    @Bean
+    public LatencyAwareLoadBalancer latencyAwareLoadBalancer(Environment environment,
+                                                             LoadBalancerClientFactory loadBalancerClientFactory) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new LatencyAwareLoadBalancer(
+                loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+                serviceId,
+                environment.getProperty("app.loadbalancer.decay-ms", Long.class, 10000L),
+                environment.getProperty("app.loadbalancer.error-threshold", Integer.class, 5),
+                environment.getProperty("app.loadbalancer.ejection-ms", Long.class, 30000L)
+        );
+    }
+}
@@ -0,0 +1,20 @@
+package com.supermarket.common.outbox;
+
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Transactional outbox for the services that publish from a database transaction
+ * (Cart, Items): the outbox_events table, OutboxService and OutboxRelay.
+ *
+ * Imported by the service's RabbitConfig. @AutoConfigurationPackage adds this package
+ * to the ones Spring Boot scans for entities and JPA repositories. The service provides
+ * the MessageConverter, publisher confirms (spring.rabbitmq.publisher-confirm-type)
+ * and @EnableScheduling for the relay.
+ */
+@Configuration
+@AutoConfigurationPackage
+@Import({OutboxService.class, OutboxRelay.class})
+public class OutboxConfiguration {
+}
@@ -0,0 +1,100 @@
+package com.supermarket.common.outbox;
+
+import jakarta.persistence.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+// A message written in the same transaction as the change it announces, and
+// published to RabbitMQ later by the OutboxRelay. The row is deleted once the
+// broker has confirmed it.
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String exchange;
+
+    @Column(nullable = false)
+    private String routingKey;
+
+    // Message body and AMQP headers (JSON), exactly as the message converter produced them.
+    // Text bodies are stored as they are, binary ones (e.g. CBOR) Base64-encoded.
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    private String contentType;
+
+    @Column(columnDefinition = "TEXT")
+    private String headers;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    private int attempts;
+
+    @Column(length = 500)
+    private String lastError;
+
+    public OutboxEvent() {}
+
+    public OutboxEvent(String exchange, String routingKey, String payload, String contentType, String headers) {
+        this.exchange = exchange;
+        this.routingKey = routingKey;
+        this.payload = payload;
+        this.contentType = contentType;
+        this.headers = headers;
+        this.createdAt = Instant.now();
+    }
+
+    public Long getId() { return id; }
+
+    public String getExchange() { return exchange; }
+
+    public String getRoutingKey() { return routingKey; }
+
+    public String getPayload() { return payload; }
+
+    public String getContentType() { return contentType; }
+
+    public String getHeaders() { return headers; }
+
+    public Instant getCreatedAt() { return createdAt; }
+
+    public int getAttempts() { return attempts; }
+
+    public String getLastError() { return lastError; }
+
+    public boolean hasTextBody() {
+        return isText(contentType);
+    }
+
+    // The body bytes to publish, decoded the same way encodeBody stored them
+    public byte[] getBody() {
+        return isText(contentType)
+                ? payload.getBytes(StandardCharsets.UTF_8)
+                : Base64.getDecoder().decode(payload);
+    }
+
+    public static String encodeBody(byte[] body, String contentType) {
+        return isText(contentType)
+                ? new String(body, StandardCharsets.UTF_8)
+                : Base64.getEncoder().encodeToString(body);
+    }
+
+    private static boolean isText(String contentType) {
+        return contentType == null
+                || contentType.startsWith("text/")
+                || contentType.contains("json");
+    }
+
+    public void recordFailure(String error) {
+        this.attempts++;
+        this.lastError = error != null && error.length() > 500 ? error.substring(0, 500) : error;
+    }
+}
@@ -0,0 +1,16 @@
+package com.supermarket.common.outbox;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Oldest pending messages, locked for the caller's transaction. NOWAIT fails right
+    // away when another node's relay holds them, so only one relay drains at a time
+    // and messages leave in insertion order.
+    @Query(value = "SELECT * FROM outbox_events ORDER BY id LIMIT :limit FOR UPDATE NOWAIT", nativeQuery = true)
+    List<OutboxEvent> lockOldest(@Param("limit") int limit);
+}
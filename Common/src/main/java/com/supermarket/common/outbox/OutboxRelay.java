@@ -0,0 +1,153 @@
+package com.supermarket.common.outbox;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drains the outbox_events table to RabbitMQ.
+ *
+ * Each round locks the oldest rows, publishes them on one channel, waits for the
+ * broker's publisher confirms and deletes them in the same transaction. If the
+ * broker does not confirm the whole batch, nothing is deleted: the batch is sent
+ * again, in the same order, after an exponential backoff. Delivery is therefore
+ * at-least-once; every message carries a stable messageId ("{prefix}{id}", e.g.
+ * "cart-outbox-42", see app.outbox.message-id-prefix) so consumers can drop duplicates.
+ */
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final TypeReference<Map<String, Object>> HEADERS = new TypeReference<>() {};
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate relayTransaction;
+
+    @Value("${app.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.outbox.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMillis;
+
+    @Value("${app.outbox.backoff-initial-ms:500}")
+    private long backoffInitialMillis;
+
+    @Value("${app.outbox.backoff-max-ms:30000}")
+    private long backoffMaxMillis;
+
+    @Value("${app.outbox.message-id-prefix:outbox-}")
+    private String messageIdPrefix;
+
+    // Only touched by the scheduler thread
+    private long pausedUntil;
+
+    @Autowired
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       RabbitTemplate rabbitTemplate,
+                       ObjectMapper objectMapper,
+                       PlatformTransactionManager transactionManager) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.rabbitTemplate = rabbitTemplate;
+        this.objectMapper = objectMapper;
+        // READ COMMITTED: no gap locks, so the services can keep inserting while a batch is in flight
+        this.relayTransaction = new TransactionTemplate(transactionManager);
+        this.relayTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.relay-interval-ms:100}")
+    public void relay() {
+        if (System.currentTimeMillis() < pausedUntil) {
+            return;
+        }
+        // Keep going while batches come back full
+        while (relayBatch() == batchSize) {
+            // next batch
+        }
+    }
+
+    // Returns the number of messages published, 0 if there was nothing to do, -1 on failure
+    private int relayBatch() {
+        try {
+            Integer published = relayTransaction.execute(status -> {
+                List<OutboxEvent> batch = outboxEventRepository.lockOldest(batchSize);
+                if (batch.isEmpty()) {
+                    return 0;
+                }
+
+                try {
+                    publishConfirmed(batch);
+                } catch (RuntimeException e) {
+                    // Record the failure on the oldest message; the whole batch is retried in order
+                    OutboxEvent oldest = batch.get(0);
+                    oldest.recordFailure(e.getMessage());
+                    outboxEventRepository.save(oldest);
+                    pausedUntil = System.currentTimeMillis() + backoff(oldest.getAttempts());
+                    log.warn("Outbox batch of {} not confirmed (attempt {}), retrying later: {}",
+                            batch.size(), oldest.getAttempts(), e.getMessage());
+                    return -1;
+                }
+
+                outboxEventRepository.deleteAllInBatch(batch);
+                return batch.size();
+            });
+            return published == null ? 0 : published;
+        } catch (DataAccessException e) {
+            // Rows locked by another node's relay (NOWAIT), or the database is unavailable
+            log.debug("Outbox relay skipped this round: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    // Sends every message on one channel and waits until the broker has confirmed all of them
+    private void publishConfirmed(List<OutboxEvent> batch) {
+        Boolean confirmed = rabbitTemplate.invoke(operations -> {
+            for (OutboxEvent event : batch) {
+                operations.send(event.getExchange(), event.getRoutingKey(), toMessage(event));
+            }
+            return operations.waitForConfirms(confirmTimeoutMillis);
+        });
+        if (!Boolean.TRUE.equals(confirmed)) {
+            throw new AmqpException("Broker did not confirm the batch within " + confirmTimeoutMillis + " ms");
+        }
+    }
+
+    private Message toMessage(OutboxEvent event) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(event.getContentType());
+        if (event.hasTextBody()) {
+            properties.setContentEncoding(StandardCharsets.UTF_8.name());
+        }
+        properties.setMessageId(messageIdPrefix + event.getId());
+        if (event.getHeaders() != null) {
+            try {
+                objectMapper.readValue(event.getHeaders(), HEADERS).forEach(properties::setHeader);
+            } catch (Exception e) {
+                throw new AmqpException("Corrupt headers in outbox message " + event.getId(), e);
+            }
+        }
+        return new Message(event.getBody(), properties);
+    }
+
+    private long backoff(int attempts) {
+        long delay = backoffInitialMillis << Math.min(attempts - 1, 16);
+        return Math.min(delay, backoffMaxMillis);
+    }
+}
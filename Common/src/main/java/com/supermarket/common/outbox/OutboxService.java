@@ -0,0 +1,53 @@
+package com.supermarket.common.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// Transactional outbox: messages are stored with the change they describe and
+// published by OutboxRelay after the commit, never from the request thread.
+public class OutboxService {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private MessageConverter messageConverter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Must join the caller's transaction: the message exists only if the change commits
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String exchange, String routingKey, Object payload) {
+        enqueue(exchange, routingKey, payload, new MessageProperties());
+    }
+
+    // The content type set on the given properties selects the converter (JSON if unset)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String exchange, String routingKey, Object payload, MessageProperties messageProperties) {
+        // Converted now, so the relay sends the same body and type headers as a direct send would
+        Message message = messageConverter.toMessage(payload, messageProperties);
+        MessageProperties properties = message.getMessageProperties();
+
+        String headers;
+        try {
+            headers = objectMapper.writeValueAsString(properties.getHeaders());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize message headers", e);
+        }
+
+        outboxEventRepository.save(new OutboxEvent(
+                exchange,
+                routingKey,
+                OutboxEvent.encodeBody(message.getBody(), properties.getContentType()),
+                properties.getContentType(),
+                headers
+        ));
+    }
+}
@@ -0,0 +1,94 @@
+package com.supermarket.common.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultRequestContext;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Drives the balancer's lifecycle callbacks with simulated round-trip times
+class LatencyAwareLoadBalancerTest {
+
+    private static final List<ServiceInstance> INSTANCES = List.of(
+            new DefaultServiceInstance("items-1", "Items", "10.0.0.1", 8081, false),
+            new DefaultServiceInstance("items-2", "Items", "10.0.0.2", 8081, false),
+            new DefaultServiceInstance("items-3", "Items", "10.0.0.3", 8081, false)
+    );
+
+    @Test
+    void avoidsASlowInstance() {
+        LatencyAwareLoadBalancer balancer = new LatencyAwareLoadBalancer(null, "Items", 10000, 5, 30000);
+        Map<String, Integer> picks = new HashMap<>();
+
+        for (int i = 0; i < 3000; i++) {
+            ServiceInstance instance = balancer.choose(INSTANCES).getServer();
+            picks.merge(instance.getInstanceId(), 1, Integer::sum);
+            // items-3 is stuck in GC pauses: 500 ms instead of 5 ms
+            long rttMillis = "items-3".equals(instance.getInstanceId()) ? 500 : 5;
+            complete(balancer, instance, rttMillis, CompletionContext.Status.SUCCESS);
+        }
+
+        // Round robin would send it a third of the requests
+        assertTrue(picks.getOrDefault("items-3", 0) < 300, "slow instance got " + picks);
+    }
+
+    @Test
+    void ejectsAnInstanceAfterConsecutiveErrors() {
+        LatencyAwareLoadBalancer balancer = new LatencyAwareLoadBalancer(null, "Items", 10000, 5, 30000);
+        ServiceInstance failing = INSTANCES.get(0);
+        for (int i = 0; i < 5; i++) {
+            complete(balancer, failing, 5, CompletionContext.Status.FAILED);
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            assertFalse("items-1".equals(balancer.choose(INSTANCES).getServer().getInstanceId()));
+        }
+    }
+
+    @Test
+    void discardedRequestsNoLongerCountAsInFlight() {
+        LatencyAwareLoadBalancer balancer = new LatencyAwareLoadBalancer(null, "Items", 10000, 5, 30000);
+        for (ServiceInstance instance : INSTANCES) {
+            complete(balancer, instance, 5, CompletionContext.Status.SUCCESS);
+        }
+        // Cancelled requests (e.g. the client went away) are reported as DISCARD
+        ServiceInstance cancelled = INSTANCES.get(0);
+        for (int i = 0; i < 100; i++) {
+            complete(balancer, cancelled, 5, CompletionContext.Status.DISCARD);
+        }
+
+        Map<String, Integer> picks = new HashMap<>();
+        for (int i = 0; i < 3000; i++) {
+            picks.merge(balancer.choose(INSTANCES).getServer().getInstanceId(), 1, Integer::sum);
+        }
+        // 100 requests still counted in flight would leave it almost no traffic
+        assertTrue(picks.getOrDefault("items-1", 0) > 600, "instance with cancelled requests got " + picks);
+    }
+
+    // Runs one request through the lifecycle as if it had taken rttMillis
+    private void complete(LatencyAwareLoadBalancer balancer, ServiceInstance instance, long rttMillis,
+                          CompletionContext.Status status) {
+        Request<Object> request = request();
+        Response<ServiceInstance> response = new DefaultResponse(instance);
+        balancer.onStartRequest(request, response);
+        ((DefaultRequestContext) request.getContext())
+                .setRequestStartTime(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(rttMillis));
+        balancer.onComplete(new CompletionContext<>(status, request, response));
+    }
+
+    private Request<Object> request() {
+        return new DefaultRequest<>(new DefaultRequestContext());
+    }
+}
@@ -0,0 +1,75 @@
+package com.supermarket.supermarket_system.utils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Access decisions per second: the bundled access-rules.json trie against the checks
+// AuthenticationFilter ran before, over every method / path pair of AccessRuleTrieTest.
+//
+//   mvn -P benchmarks test-compile exec:exec -Djmh.args=AccessRuleTrieBenchmark
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AccessRuleTrieBenchmark {
+
+    private static final int REQUESTS = AccessRuleTrieTest.METHODS.length * AccessRuleTrieTest.PATHS.length;
+
+    private final String[] methods = new String[REQUESTS];
+    private final String[] paths = new String[REQUESTS];
+    private AccessRuleTrie trie;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/access-rules.json")) {
+            trie = new AccessRuleTrie(new ObjectMapper().readValue(in, new TypeReference<List<AccessRuleTrie.Rule>>() {}));
+        }
+        int i = 0;
+        for (String path : AccessRuleTrieTest.PATHS) {
+            for (String method : AccessRuleTrieTest.METHODS) {
+                methods[i] = method;
+                paths[i] = path;
+                i++;
+            }
+        }
+    }
+
+    @Benchmark
+    public AccessRuleTrie.Decision trie() {
+        int i = nextRequest();
+        return trie.decide(methods[i], paths[i]);
+    }
+
+    // Same work as the former filter: the admin check only runs for non-public paths
+    @Benchmark
+    public boolean legacy() {
+        int i = nextRequest();
+        return LegacyAccessRules.isPublic(methods[i], paths[i])
+                || LegacyAccessRules.requiresAdminRole(paths[i], methods[i]);
+    }
+
+    // Cycles through the request mix, the same way for both benchmarks
+    private int nextRequest() {
+        int i = next;
+        next = i + 1 == REQUESTS ? 0 : i + 1;
+        return i;
+    }
+}
@@ -1,28 +1,64 @@
 package com.supermarket.supermarket_system.config;
 
+import com.supermarket.common.loadbalancer.LatencyAwareLoadBalancerConfig;
+import com.supermarket.supermarket_system.filter.HedgingFilter;
 import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpMethod;
 
+import java.util.HashMap;
+import java.util.Map;
 
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.CONNECT_TIMEOUT_ATTR;
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR;
+
+// lb:// routes pick instances by latency, see LatencyAwareLoadBalancer
 @Configuration
+@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerConfig.class)
 public class GatewayConfig {
 
     @Bean
-    public RouteLocator customRouteLocator(RouteLocatorBuilder builder) {
+    public RouteLocator customRouteLocator(RouteLocatorBuilder builder, HedgingFilter hedgingFilter, Environment environment) {
         return builder.routes()
                 .route("users_route", r -> r.path("/users/**")
+                        .metadata(timeouts(environment, "users_route"))
                         .uri("lb://Users"))
+                // Catalog reads are hedged (HedgingFilter only hedges GET without a body)
                 .route("items_route", r -> r.path("/items/**")
+                        .filters(f -> f.filter(hedgingFilter))
+                        .metadata(timeouts(environment, "items_route"))
                         .uri("lb://Items"))
                 .route("cart_route", r -> r.path("/cart/**")
+                        .metadata(timeouts(environment, "cart_route"))
                         .uri("lb://Cart"))
+                // Declared before orders_route so it takes precedence
+                .route("orders_history_route", r -> r.path("/orders/history").and().method(HttpMethod.GET)
+                        .filters(f -> f.filter(hedgingFilter))
+                        .metadata(timeouts(environment, "orders_history_route"))
+                        .uri("lb://Orders"))
                 .route("orders_route", r -> r.path("/orders/**")
+                        .metadata(timeouts(environment, "orders_route"))
                         .uri("lb://Orders"))
                 .route("payment_route", r -> r.path("/payment/**")
+                        .metadata(timeouts(environment, "payment_route"))
                         .uri("lb://Payment"))
                 .build();
     }
-}
 
+    // app.routes.<route id>.connect-timeout-ms / response-timeout-ms, falling back to app.routes.default.*
+    private Map<String, Object> timeouts(Environment environment, String routeId) {
+        Integer defaultConnect = environment.getProperty("app.routes.default.connect-timeout-ms", Integer.class, 2000);
+        Long defaultResponse = environment.getProperty("app.routes.default.response-timeout-ms", Long.class, 10000L);
+
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put(CONNECT_TIMEOUT_ATTR,
+                environment.getProperty("app.routes." + routeId + ".connect-timeout-ms", Integer.class, defaultConnect));
+        metadata.put(RESPONSE_TIMEOUT_ATTR,
+                environment.getProperty("app.routes." + routeId + ".response-timeout-ms", Long.class, defaultResponse));
+        return metadata;
+    }
+}
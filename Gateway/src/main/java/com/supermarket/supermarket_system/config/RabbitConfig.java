@@ -0,0 +1,50 @@
+package com.supermarket.supermarket_system.config;
+
+import com.supermarket.common.messaging.JacksonCborMessageConverter;
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.FanoutExchange;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.annotation.EnableRabbit;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableRabbit
+public class RabbitConfig {
+
+    @Value("${app.rabbitmq.item-events-exchange:items.events}")
+    private String itemEventsExchange;
+
+    // Item change events, one private queue per Gateway instance
+    @Bean
+    public FanoutExchange itemEventsExchange() {
+        return new FanoutExchange(itemEventsExchange, true, false);
+    }
+
+    @Bean
+    public Queue itemEventsQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding itemEventsBinding() {
+        return BindingBuilder.bind(itemEventsQueue()).to(itemEventsExchange());
+    }
+
+    // Item events are read with the converter matching their content type (JSON or CBOR)
+    @Bean
+    public MessageConverter jacksonMessageConverter() {
+        Jackson2JsonMessageConverter json = new Jackson2JsonMessageConverter();
+        ContentTypeDelegatingMessageConverter converter = new ContentTypeDelegatingMessageConverter(json);
+        converter.addDelegate(MessageProperties.CONTENT_TYPE_JSON, json);
+        converter.addDelegate(JacksonCborMessageConverter.CONTENT_TYPE, new JacksonCborMessageConverter());
+        return converter;
+    }
+}
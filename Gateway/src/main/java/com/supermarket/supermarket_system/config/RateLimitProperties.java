@@ -0,0 +1,103 @@
+package com.supermarket.supermarket_system.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Per-route token-bucket limits (app.rate-limit.*), see RateLimiter
+@Component
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Idle buckets are dropped after this long (they would be full again anyway)
+    private long idleBucketTtlMs = 600000;
+
+    private List<Limit> limits = new ArrayList<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getIdleBucketTtlMs() {
+        return idleBucketTtlMs;
+    }
+
+    public void setIdleBucketTtlMs(long idleBucketTtlMs) {
+        this.idleBucketTtlMs = idleBucketTtlMs;
+    }
+
+    public List<Limit> getLimits() {
+        return limits;
+    }
+
+    public void setLimits(List<Limit> limits) {
+        this.limits = limits;
+    }
+
+    public static class Limit {
+
+        // Name of the limit, part of the bucket key
+        private String name;
+
+        // Path prefix; the longest matching prefix applies
+        private String path;
+
+        // "user": one bucket per authenticated user (client IP for anonymous requests),
+        // "ip": one bucket per client IP
+        private String key = "user";
+
+        // Burst size
+        private int capacity;
+
+        // Sustained rate
+        private double refillPerSecond;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public void setKey(String key) {
+            this.key = key;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public double getRefillPerSecond() {
+            return refillPerSecond;
+        }
+
+        public void setRefillPerSecond(double refillPerSecond) {
+            this.refillPerSecond = refillPerSecond;
+        }
+    }
+}
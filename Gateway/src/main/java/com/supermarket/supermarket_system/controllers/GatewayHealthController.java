@@ -0,0 +1,53 @@
+package com.supermarket.supermarket_system.controllers;
+
+import com.supermarket.supermarket_system.filter.AdmissionControlFilter;
+import com.supermarket.supermarket_system.utils.ResponseCache;
+import com.supermarket.supermarket_system.utils.VerifiedClaimsCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Served by the Gateway itself (no route, so the global filters do not apply)
+@RestController
+public class GatewayHealthController {
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    @Autowired
+    private VerifiedClaimsCache verifiedClaimsCache;
+
+    @Autowired
+    private AdmissionControlFilter admissionControlFilter;
+
+    @GetMapping("/gateway/health/response-cache")
+    public Map<String, Object> responseCacheStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("size", responseCache.size());
+        stats.put("bytes", responseCache.getTotalBytes());
+        stats.put("hits", responseCache.getHits());
+        stats.put("misses", responseCache.getMisses());
+        stats.put("collapsed", responseCache.getCollapsed());
+        stats.put("evictions", responseCache.getEvictions());
+        return stats;
+    }
+
+    @GetMapping("/gateway/health/claims-cache")
+    public Map<String, Object> claimsCacheStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("size", verifiedClaimsCache.size());
+        stats.put("hits", verifiedClaimsCache.getHits());
+        stats.put("misses", verifiedClaimsCache.getMisses());
+        stats.put("evictions", verifiedClaimsCache.getEvictions());
+        return stats;
+    }
+
+    // "route|reason" -> number of rejected requests
+    @GetMapping("/gateway/health/admission")
+    public Map<String, Long> admissionRejections() {
+        return admissionControlFilter.getRejections();
+    }
+}
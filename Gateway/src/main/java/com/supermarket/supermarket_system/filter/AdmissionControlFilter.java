@@ -0,0 +1,157 @@
+package com.supermarket.supermarket_system.filter;
+
+import com.supermarket.supermarket_system.utils.AdaptiveConcurrencyLimiter;
+import com.supermarket.supermarket_system.utils.RateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+// ========================
+// FILTER: AdmissionControlFilter
+// ========================
+// Keeps bursts (flash sales, login storms) from reaching the backends.
+//
+// - Runs right after AuthenticationFilter, so per-user limits use the verified userId
+//   and never a client-supplied X-User-Id header.
+// - Rate limit (token bucket per route and user / client IP, see RateLimiter):
+//   429 Too Many Requests with Retry-After.
+// - Concurrency limit (adaptive, per backend route, see AdaptiveConcurrencyLimiter):
+//   503 Service Unavailable with Retry-After, before the request reaches the upstream.
+// - Concurrency limits and rejection counters are keyed by the matched route id (GatewayConfig),
+//   so arbitrary request paths cannot create new entries.
+// - Every rejection is counted per route and reason; non-zero counters are logged periodically
+//   and served at /gateway/health/admission.
+@Component
+public class AdmissionControlFilter implements GlobalFilter, Ordered {
+
+    private static final Logger log = LoggerFactory.getLogger(AdmissionControlFilter.class);
+
+    public static final String RATE_LIMITED = "rate_limited";
+    public static final String SHED = "shed";
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    private final Map<String, LongAdder> rejections = new ConcurrentHashMap<>();
+    private final Map<String, Long> loggedRejections = new ConcurrentHashMap<>();
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getPath().value();
+        String route = route(exchange);
+
+        Long userId = exchange.getAttribute(AuthenticationFilter.USER_ID_ATTRIBUTE);
+        RateLimiter.Result rate = rateLimiter.tryAcquire(path, userId, clientIp(request));
+        if (rate != null && !rate.admitted()) {
+            count(route, RATE_LIMITED);
+            long retryAfter = Math.max(1, (long) Math.ceil(rate.retryAfterNanos() / 1e9));
+            return reject(exchange, "Too many requests, please retry later", HttpStatus.TOO_MANY_REQUESTS, retryAfter);
+        }
+
+        AdaptiveConcurrencyLimiter.Route slot = concurrencyLimiter.tryAcquire(route);
+        if (slot == null) {
+            count(route, SHED);
+            return reject(exchange, "Service is busy, please retry later", HttpStatus.SERVICE_UNAVAILABLE, 1);
+        }
+
+        long start = System.nanoTime();
+        AtomicBoolean errored = new AtomicBoolean();
+        return chain.filter(exchange)
+                .doOnError(e -> errored.set(true))
+                .doFinally(signal -> {
+                    ServerHttpResponse response = exchange.getResponse();
+                    HttpStatusCode status = response.getStatusCode();
+                    boolean failed = errored.get() || (status != null && status.is5xxServerError());
+                    // Cancelled requests and cache hits say nothing about the upstream's latency
+                    boolean sample = signal != SignalType.CANCEL && !"HIT".equals(response.getHeaders().getFirst("X-Cache"));
+                    concurrencyLimiter.release(slot, sample ? System.nanoTime() - start : -1, failed);
+                });
+    }
+
+    // ----------------------
+    // METRICS
+    // ----------------------
+
+    // "route|reason" -> number of rejected requests
+    public Map<String, Long> getRejections() {
+        Map<String, Long> counts = new TreeMap<>();
+        rejections.forEach((key, count) -> counts.put(key, count.sum()));
+        return counts;
+    }
+
+    @Scheduled(fixedDelayString = "${app.admission.log-interval-ms:60000}")
+    public void logRejections() {
+        getRejections().forEach((key, count) -> {
+            Long previous = loggedRejections.put(key, count);
+            if (previous == null || previous < count) {
+                AdaptiveConcurrencyLimiter.Route state = concurrencyLimiter.getRoutes().get(key.substring(0, key.indexOf('|')));
+                log.info("Admission control rejected {} requests ({} since last report) for {}, concurrency limit {}",
+                        count, count - (previous == null ? 0 : previous), key,
+                        state == null ? "-" : String.valueOf(state.getLimit()));
+            }
+        });
+    }
+
+    private void count(String route, String reason) {
+        rejections.computeIfAbsent(route + '|' + reason, k -> new LongAdder()).increment();
+    }
+
+    // "/cart/checkout" -> "cart_route"; global filters only run for matched routes
+    private String route(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "unmatched";
+    }
+
+    private String clientIp(ServerHttpRequest request) {
+        InetSocketAddress address = request.getRemoteAddress();
+        if (address == null) {
+            return "unknown";
+        }
+        return address.getAddress() != null ? address.getAddress().getHostAddress() : address.getHostString();
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, String message, HttpStatus status, long retryAfterSeconds) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(status);
+        response.getHeaders().add("Content-Type", "application/json");
+        response.getHeaders().set("Retry-After", String.valueOf(retryAfterSeconds));
+
+        String errorResponse = String.format("{\"error\": \"%s\", \"status\": %d}",
+                message, status.value());
+
+        return response.writeWith(
+                Mono.just(response.bufferFactory().wrap(errorResponse.getBytes()))
+        );
+    }
+
+    @Override
+    public int getOrder() {
+        return -90; // After AuthenticationFilter, before routing
+    }
+}
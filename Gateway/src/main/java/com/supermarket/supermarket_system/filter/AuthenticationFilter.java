@@ -1,11 +1,14 @@
 package com.supermarket.supermarket_system.filter;
 
+import com.supermarket.supermarket_system.services.AccessRuleService;
+import com.supermarket.supermarket_system.utils.AccessRuleTrie;
 import com.supermarket.supermarket_system.utils.JwtUtils;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
-import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
@@ -13,35 +16,27 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.util.Arrays;
-import java.util.List;
-
 @Component
 public class AuthenticationFilter implements GlobalFilter, Ordered {
 
+    // Exchange attribute holding the verified user id (absent on public endpoints)
+    public static final String USER_ID_ATTRIBUTE = AuthenticationFilter.class.getName() + ".userId";
+
     @Autowired
     private JwtUtils jwtUtils;
 
-    // Endpoints that are completely public (no auth needed)
-    private static final List<String> PUBLIC_ENDPOINTS = Arrays.asList(
-            "/users/register",
-            "/users/login",
-            "/users/health"
-    );
+    // Public endpoints and required roles, see access-rules.json
+    @Autowired
+    private AccessRuleService accessRuleService;
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         ServerHttpRequest request = exchange.getRequest();
         String path = request.getPath().toString();
-        HttpMethod method = request.getMethod();
+        AccessRuleTrie.Decision access = accessRuleService.decide(request.getMethod().name(), path);
 
-        // Allow fully public endpoints
-        if (isPublicEndpoint(path)) {
-            return chain.filter(exchange);
-        }
-
-        // Allow GET requests to /items and /items/** without authentication
-        if (HttpMethod.GET.equals(method) && path.startsWith("/items")) {
+        // Allow public endpoints (e.g. login, GET /items/**)
+        if (access.publicAccess()) {
             return chain.filter(exchange);
         }
 
@@ -54,19 +49,22 @@ public class AuthenticationFilter implements GlobalFilter, Ordered {
 
         String token = authHeader.substring(7);
 
-        // Validate JWT token
-        if (!jwtUtils.validateToken(token)) {
+        // Validate JWT token once and reuse its claims
+        Claims claims;
+        try {
+            claims = jwtUtils.getVerifiedClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
             return onError(exchange, "Invalid or expired JWT token", HttpStatus.UNAUTHORIZED);
         }
 
         // Extract user information from token
-        String email = jwtUtils.getEmail(token);
-        String role = jwtUtils.getRole(token);
-        Long userId = jwtUtils.getUserId(token);
+        String email = claims.getSubject();
+        String role = claims.get("role", String.class);
+        Long userId = claims.get("userId", Long.class);
 
         // Check role-based authorization
-        if (requiresAdminRole(path, method) && !"ADMIN".equals(role)) {
-            return onError(exchange, "Access denied. Admin role required.", HttpStatus.FORBIDDEN);
+        if (access.role() != null && !access.role().equals(role)) {
+            return onError(exchange, "Access denied. " + roleName(access.role()) + " role required.", HttpStatus.FORBIDDEN);
         }
 
         // Add user info to headers for downstream services
@@ -76,33 +74,13 @@ public class AuthenticationFilter implements GlobalFilter, Ordered {
                 .header("X-User-Id", String.valueOf(userId))
                 .build();
 
+        exchange.getAttributes().put(USER_ID_ATTRIBUTE, userId);
         return chain.filter(exchange.mutate().request(modifiedRequest).build());
     }
 
-    private boolean isPublicEndpoint(String path) {
-        return PUBLIC_ENDPOINTS.stream().anyMatch(path::startsWith);
-    }
-
-    private boolean requiresAdminRole(String path, HttpMethod method) {
-        // Items endpoints - POST, PUT, DELETE require ADMIN
-        if (path.startsWith("/items")) {
-            return HttpMethod.POST.equals(method) ||
-                    HttpMethod.PUT.equals(method) ||
-                    HttpMethod.DELETE.equals(method);
-        }
-
-        // Orders endpoints that require ADMIN
-        if (path.startsWith("/orders/all") ||
-                path.startsWith("/orders/status/")) {
-            return true;
-        }
-
-        // Update order status - ADMIN only
-        if (path.matches("/orders/[^/]+/status") && HttpMethod.PATCH.equals(method)) {
-            return true;
-        }
-
-        return false;
+    // "ADMIN" -> "Admin"
+    private String roleName(String role) {
+        return role.charAt(0) + role.substring(1).toLowerCase();
     }
 
     private Mono<Void> onError(ServerWebExchange exchange, String message, HttpStatus status) {
@@ -0,0 +1,395 @@
+package com.supermarket.supermarket_system.filter;
+
+import com.supermarket.supermarket_system.utils.LatencyWindow;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycleValidator;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.CONNECT_TIMEOUT_ATTR;
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.isAlreadyRouted;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.setAlreadyRouted;
+
+// ========================
+// FILTER: HedgingFilter
+// ========================
+// Hedged requests for idempotent reads (applied per route in GatewayConfig).
+//
+// - Runs after the load balancer picked an instance and sends the request there itself.
+// - If no answer has arrived after the route's recent latency percentile
+//   (app.hedging.percentile, at least min-delay-ms), the same request goes to another
+//   instance. Whichever complete response arrives first is returned; the other request
+//   is cancelled, which closes its connection.
+// - Hedges are capped at max-ratio of the requests, so a slow backend does not get
+//   twice the traffic exactly when it is struggling.
+// - Only GET requests without a body are hedged; responses are buffered (max-body-bytes).
+// - The route's connect-timeout / response-timeout metadata apply to every attempt,
+//   also after the routes are refreshed with new values.
+@Component
+public class HedgingFilter implements GatewayFilter, Ordered {
+
+    private static final Set<String> NOT_COPIED_RESPONSE_HEADERS = Set.of(
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase(), HttpHeaders.CONTENT_LENGTH.toLowerCase());
+
+    private static final long BUDGET_UNIT = 1000;
+    private static final long BUDGET_MAX = 10 * BUDGET_UNIT;
+
+    @Autowired
+    private HttpClient httpClient;
+
+    @Autowired
+    private LoadBalancerClientFactory loadBalancerClientFactory;
+
+    @Autowired
+    private ObjectProvider<List<HttpHeadersFilter>> headersFilters;
+
+    @Value("${app.hedging.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.hedging.percentile:95}")
+    private double percentile;
+
+    @Value("${app.hedging.window-size:1000}")
+    private int windowSize;
+
+    @Value("${app.hedging.min-samples:100}")
+    private int minSamples;
+
+    @Value("${app.hedging.min-delay-ms:20}")
+    private long minDelayMillis;
+
+    @Value("${app.hedging.default-delay-ms:200}")
+    private long defaultDelayMillis;
+
+    @Value("${app.hedging.max-ratio:0.1}")
+    private double maxRatio;
+
+    @Value("${app.hedging.max-body-bytes:4194304}")
+    private int maxBodyBytes;
+
+    // Per route id
+    private final Map<String, RouteClient> clients = new ConcurrentHashMap<>();
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+    // Hedge budget in thousandths of a request: each request adds max-ratio, each hedge takes one
+    private final AtomicLong budget = new AtomicLong(BUDGET_MAX);
+
+    private final LongAdder hedgesSent = new LongAdder();
+    private final LongAdder hedgesWon = new LongAdder();
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        URI url = exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR);
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (!enabled || isAlreadyRouted(exchange) || route == null || url == null || !isHedgeable(request, url)) {
+            return chain.filter(exchange);
+        }
+        setAlreadyRouted(exchange);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(HttpHeadersFilter.filterRequest(headersFilters.getIfAvailable(), exchange));
+        headers.remove(HttpHeaders.HOST);
+        WebClient client = clientFor(route);
+        LatencyWindow window = latencies.computeIfAbsent(route.getId(), id -> new LatencyWindow(windowSize, percentile));
+        addBudget();
+
+        Mono<Attempt> primary = send(client, url, headers, window)
+                .map(response -> new Attempt(response, false));
+        Mono<Attempt> hedge = Mono.delay(Duration.ofNanos(hedgeDelayNanos(window)))
+                .filter(tick -> takeBudget())
+                .flatMap(tick -> hedge(exchange, route, url, client, headers, window))
+                .map(response -> new Attempt(response, true));
+
+        return Mono.firstWithValue(primary, hedge)
+                .onErrorMap(this::toGatewayError)
+                .flatMap(attempt -> {
+                    if (attempt.hedge()) {
+                        hedgesWon.increment();
+                    }
+                    return write(exchange, attempt.response());
+                })
+                .then(chain.filter(exchange));
+    }
+
+    // ----------------------
+    // ATTEMPTS
+    // ----------------------
+
+    private Mono<ResponseEntity<byte[]>> send(WebClient client, URI url, HttpHeaders headers, LatencyWindow window) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return client.get()
+                    .uri(url)
+                    .headers(h -> h.addAll(headers))
+                    .exchangeToMono(response -> response.toEntity(byte[].class))
+                    .doOnNext(response -> window.record(System.nanoTime() - start));
+        });
+    }
+
+    // The same request to another instance of the route's service, reported to its load balancer
+    private Mono<ResponseEntity<byte[]>> hedge(ServerWebExchange exchange, Route route, URI primaryUrl,
+                                                WebClient client, HttpHeaders headers, LatencyWindow window) {
+        String serviceId = route.getUri().getHost();
+        if (!"lb".equals(route.getUri().getScheme())) {
+            return Mono.empty();
+        }
+        ReactorServiceInstanceLoadBalancer loadBalancer =
+                loadBalancerClientFactory.getInstance(serviceId, ReactorServiceInstanceLoadBalancer.class);
+        if (loadBalancer == null) {
+            return Mono.empty();
+        }
+
+        Set<LoadBalancerLifecycle> lifecycles = LoadBalancerLifecycleValidator.getSupportedLifecycleProcessors(
+                loadBalancerClientFactory.getInstances(serviceId, LoadBalancerLifecycle.class),
+                RequestDataContext.class, ResponseData.class, ServiceInstance.class);
+        RequestData requestData = new RequestData(exchange.getRequest());
+        Request<RequestDataContext> lbRequest = new DefaultRequest<>(new RequestDataContext(requestData));
+
+        // Two tries at finding an instance other than the primary's; none means no hedge
+        return loadBalancer.choose(lbRequest)
+                .filter(response -> isOtherInstance(response, primaryUrl))
+                .switchIfEmpty(Mono.defer(() -> loadBalancer.choose(lbRequest)
+                        .filter(response -> isOtherInstance(response, primaryUrl))))
+                .flatMap(lbResponse -> {
+                    ServiceInstance instance = lbResponse.getServer();
+                    URI hedgeUrl = UriComponentsBuilder.fromUri(primaryUrl)
+                            .scheme(instance.isSecure() ? "https" : "http")
+                            .host(instance.getHost())
+                            .port(instance.getPort())
+                            .build(true)
+                            .toUri();
+
+                    // Completed, failed or cancelled as the loser: reported exactly once
+                    AtomicBoolean reported = new AtomicBoolean();
+                    Consumer<CompletionContext<Object, ServiceInstance, RequestDataContext>> report = context -> {
+                        if (reported.compareAndSet(false, true)) {
+                            lifecycles.forEach(lifecycle -> lifecycle.onComplete(context));
+                        }
+                    };
+
+                    lifecycles.forEach(lifecycle -> lifecycle.onStartRequest(lbRequest, lbResponse));
+                    hedgesSent.increment();
+                    return send(client, hedgeUrl, headers, window)
+                            .doOnNext(response -> report.accept(new CompletionContext<>(
+                                    CompletionContext.Status.SUCCESS, lbRequest, lbResponse,
+                                    new ResponseData(response.getStatusCode(), response.getHeaders(), null, requestData))))
+                            .doOnError(e -> report.accept(new CompletionContext<>(
+                                    CompletionContext.Status.FAILED, e, lbRequest, lbResponse)))
+                            .doOnCancel(() -> report.accept(new CompletionContext<>(
+                                    CompletionContext.Status.DISCARD, lbRequest, lbResponse)));
+                });
+    }
+
+    private boolean isOtherInstance(Response<ServiceInstance> response, URI primaryUrl) {
+        if (!response.hasServer()) {
+            return false;
+        }
+        ServiceInstance instance = response.getServer();
+        return !(instance.getHost().equals(primaryUrl.getHost()) && instance.getPort() == primaryUrl.getPort());
+    }
+
+    private long hedgeDelayNanos(LatencyWindow window) {
+        if (window.size() < minSamples) {
+            return TimeUnit.MILLISECONDS.toNanos(defaultDelayMillis);
+        }
+        return Math.max(TimeUnit.MILLISECONDS.toNanos(minDelayMillis), window.percentileNanos());
+    }
+
+    private void addBudget() {
+        long credit = (long) (maxRatio * BUDGET_UNIT);
+        budget.updateAndGet(current -> Math.min(BUDGET_MAX, current + credit));
+    }
+
+    private boolean takeBudget() {
+        long current;
+        do {
+            current = budget.get();
+            if (current < BUDGET_UNIT) {
+                return false;
+            }
+        } while (!budget.compareAndSet(current, current - BUDGET_UNIT));
+        return true;
+    }
+
+    // ----------------------
+    // RESPONSE
+    // ----------------------
+
+    private Mono<Void> write(ServerWebExchange exchange, ResponseEntity<byte[]> upstream) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(upstream.getStatusCode());
+
+        HttpHeaders filtered = HttpHeadersFilter.filter(headersFilters.getIfAvailable(), upstream.getHeaders(),
+                exchange, HttpHeadersFilter.Type.RESPONSE);
+        filtered.forEach((name, values) -> {
+            if (!NOT_COPIED_RESPONSE_HEADERS.contains(name.toLowerCase())) {
+                response.getHeaders().put(name, values);
+            }
+        });
+
+        byte[] body = upstream.getBody();
+        if (body == null) {
+            response.getHeaders().setContentLength(0);
+            return response.setComplete();
+        }
+        response.getHeaders().setContentLength(body.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    // Both attempts failed: a timeout becomes 504, anything else is reported as it was
+    private Throwable toGatewayError(Throwable error) {
+        // Mono.firstWithValue wraps the attempts' errors in a NoSuchElementException
+        List<Throwable> causes = new ArrayList<>(Exceptions.unwrapMultiple(error));
+        if (error.getCause() != null) {
+            causes.addAll(Exceptions.unwrapMultiple(error.getCause()));
+        }
+        causes.addAll(Arrays.asList(error.getSuppressed()));
+
+        for (Throwable e : causes) {
+            if (isTimeout(e)) {
+                return new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "Response took longer than timeout", e);
+            }
+        }
+        return causes.stream()
+                .filter(e -> !(e instanceof NoSuchElementException))
+                .findFirst()
+                .orElse(error);
+    }
+
+    // The route's response timeout surfaces as a ReadTimeoutException wrapped by WebClient
+    private boolean isTimeout(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof TimeoutException || e instanceof ReadTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ----------------------
+    // SETUP
+    // ----------------------
+
+    private boolean isHedgeable(ServerHttpRequest request, URI url) {
+        HttpHeaders headers = request.getHeaders();
+        return HttpMethod.GET.equals(request.getMethod())
+                && headers.getContentLength() <= 0
+                && !headers.containsKey(HttpHeaders.TRANSFER_ENCODING)
+                && ("http".equals(url.getScheme()) || "https".equals(url.getScheme()));
+    }
+
+    // One client per route, with the route's connect and response timeouts; rebuilt when
+    // a refreshed route comes with other timeouts
+    private WebClient clientFor(Route route) {
+        Object connectTimeout = route.getMetadata().get(CONNECT_TIMEOUT_ATTR);
+        Object responseTimeout = route.getMetadata().get(RESPONSE_TIMEOUT_ATTR);
+        RouteClient current = clients.get(route.getId());
+        if (current != null && current.hasTimeouts(connectTimeout, responseTimeout)) {
+            return current.client();
+        }
+        return clients.compute(route.getId(), (id, existing) ->
+                existing != null && existing.hasTimeouts(connectTimeout, responseTimeout)
+                        ? existing
+                        : new RouteClient(connectTimeout, responseTimeout, buildClient(connectTimeout, responseTimeout)))
+                .client();
+    }
+
+    private WebClient buildClient(Object connectTimeout, Object responseTimeout) {
+        HttpClient client = httpClient;
+        if (connectTimeout instanceof Number millis) {
+            client = client.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, millis.intValue());
+        }
+        if (responseTimeout instanceof Number millis && millis.longValue() >= 0) {
+            client = client.responseTimeout(Duration.ofMillis(millis.longValue()));
+        }
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(client))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(maxBodyBytes))
+                .build();
+    }
+
+    // ----------------------
+    // METRICS
+    // ----------------------
+
+    public long getHedgesSent() {
+        return hedgesSent.sum();
+    }
+
+    public long getHedgesWon() {
+        return hedgesWon.sum();
+    }
+
+    @Override
+    public int getOrder() {
+        // Right after the load balancer has resolved lb:// to an instance
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+    }
+
+    private record Attempt(ResponseEntity<byte[]> response, boolean hedge) {
+    }
+
+    // A route's client and the timeout metadata it was built with
+    private record RouteClient(Object connectTimeout, Object responseTimeout, WebClient client) {
+
+        boolean hasTimeouts(Object connectTimeout, Object responseTimeout) {
+            return Objects.equals(this.connectTimeout, connectTimeout)
+                    && Objects.equals(this.responseTimeout, responseTimeout);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.supermarket.supermarket_system.filter;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycleValidator;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.Set;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+// ========================
+// FILTER: LoadBalancerDiscardFilter
+// ========================
+// Reports lb:// requests that were cancelled (client went away, connection closed) to the
+// load balancer as DISCARD.
+//
+// - ReactiveLoadBalancerClientFilter only reports success and errors, so without this a
+//   cancelled request would stay counted as in flight on its instance for good, and
+//   LatencyAwareLoadBalancer would steer traffic away from it.
+// - Wraps the load balancer filter: the instance it picked is in the exchange by then.
+@Component
+public class LoadBalancerDiscardFilter implements GlobalFilter, Ordered {
+
+    @Autowired
+    private LoadBalancerClientFactory loadBalancerClientFactory;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        return chain.filter(exchange).doFinally(signal -> {
+            if (signal == SignalType.CANCEL) {
+                reportDiscarded(exchange);
+            }
+        });
+    }
+
+    private void reportDiscarded(ServerWebExchange exchange) {
+        Response<ServiceInstance> lbResponse = exchange.getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        // Not load balanced, or cancelled before an instance was picked: nothing was started
+        if (lbResponse == null || !lbResponse.hasServer() || route == null || !"lb".equals(route.getUri().getScheme())) {
+            return;
+        }
+
+        // Same service id and lifecycle processors as the load balancer filter itself
+        String serviceId = route.getUri().getHost();
+        Set<LoadBalancerLifecycle> lifecycles = LoadBalancerLifecycleValidator.getSupportedLifecycleProcessors(
+                loadBalancerClientFactory.getInstances(serviceId, LoadBalancerLifecycle.class),
+                RequestDataContext.class, ResponseData.class, ServiceInstance.class);
+        Request<RequestDataContext> lbRequest =
+                new DefaultRequest<>(new RequestDataContext(new RequestData(exchange.getRequest())));
+        lifecycles.forEach(lifecycle -> lifecycle.onComplete(
+                new CompletionContext<>(CompletionContext.Status.DISCARD, lbRequest, lbResponse)));
+    }
+
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER - 1;
+    }
+}
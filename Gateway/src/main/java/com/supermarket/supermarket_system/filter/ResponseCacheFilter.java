@@ -0,0 +1,282 @@
+package com.supermarket.supermarket_system.filter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.supermarket.supermarket_system.utils.ResponseCache;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+// ========================
+// FILTER: ResponseCacheFilter
+// ========================
+// Response cache for public GET endpoints that answer with a strong ETag (the item catalog).
+//
+// - Responses are keyed by path, query and the configured request headers (Accept).
+// - A fresh entry is served without contacting the upstream at all. Entries stay fresh
+//   for app.response-cache.ttl-ms, or less if the upstream sends a shorter max-age;
+//   "no-store" and "private" responses are never kept. Item change events drop the
+//   entries listing the changed item early (see ItemEventListener), which is why the
+//   upstream's "no-cache" is not treated as "revalidate every time" here; stock
+//   quantities in a cached listing may be up to the TTL old.
+// - An expired entry is revalidated with If-None-Match; on 304 the cached body is
+//   replayed and the entry is fresh again.
+// - Concurrent misses for the same key wait for one upstream request.
+// - Clients that already hold the current ETag get a 304.
+@Component
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+
+    @Autowired
+    private ResponseCache cache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.response-cache.paths:/items}")
+    private List<String> cachedPaths;
+
+    @Value("${app.response-cache.key-headers:Accept}")
+    private List<String> keyHeaders;
+
+    @Value("${app.response-cache.ttl-ms:30000}")
+    private long ttlMillis;
+
+    @Value("${app.response-cache.collapse-timeout-ms:5000}")
+    private long collapseTimeoutMillis;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!isCacheable(request)) {
+            return chain.filter(exchange);
+        }
+
+        String key = key(request);
+        String clientEtag = request.getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH);
+        ResponseCache.Entry cached = cache.get(key);
+
+        if (cached != null && cached.isFresh(System.currentTimeMillis()) && !clientRequiresRevalidation(request)) {
+            cache.recordHit();
+            return serve(exchange.getResponse(), cached, clientEtag);
+        }
+
+        Sinks.One<ResponseCache.Entry> sink = Sinks.one();
+        Mono<ResponseCache.Entry> leader = cache.joinFetch(key, sink);
+        if (leader != null) {
+            // Another request is already fetching this key: reuse its response,
+            // or go upstream ourselves if it produced nothing cacheable
+            return leader
+                    .timeout(Duration.ofMillis(collapseTimeoutMillis), Mono.empty())
+                    .flatMap(entry -> serve(exchange.getResponse(), entry, clientEtag).thenReturn(true))
+                    .switchIfEmpty(Mono.defer(() -> chain.filter(exchange).thenReturn(true)))
+                    .then();
+        }
+
+        AtomicReference<ResponseCache.Entry> result = new AtomicReference<>();
+        return fetch(exchange, chain, key, cached, clientEtag, result)
+                .doFinally(signal -> cache.completeFetch(key, sink, result.get()));
+    }
+
+    // Sends the request upstream (revalidating the cached entry if there is one) and caches the answer
+    private Mono<Void> fetch(ServerWebExchange exchange, GatewayFilterChain chain, String key,
+                             ResponseCache.Entry cached, String clientEtag,
+                             AtomicReference<ResponseCache.Entry> result) {
+        long generation = cache.generation();
+        String path = exchange.getRequest().getPath().value();
+
+        ServerWebExchange revalidating = exchange;
+        if (cached != null) {
+            revalidating = exchange.mutate()
+                    .request(r -> r.headers(h -> h.set(HttpHeaders.IF_NONE_MATCH, cached.getEtag())))
+                    .build();
+        }
+
+        ServerHttpResponse response = exchange.getResponse();
+        ServerHttpResponseDecorator decorated = new ServerHttpResponseDecorator(response) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                HttpStatus status = HttpStatus.resolve(getStatusCode() == null ? 0 : getStatusCode().value());
+                long ttl = ttlFor(getHeaders());
+
+                // Still current: refresh the entry and replay it unless the client already has it
+                if (status == HttpStatus.NOT_MODIFIED && cached != null) {
+                    ResponseCache.Entry refreshed = cached.refreshed(System.currentTimeMillis() + Math.max(ttl, 0));
+                    if (ttl > 0) {
+                        cache.put(key, refreshed, generation);
+                        result.set(refreshed);
+                    }
+                    if (cached.getEtag().equals(clientEtag)) {
+                        return super.writeWith(body);
+                    }
+                    return Flux.from(body).doOnNext(DataBufferUtils::release).then(replay(this, cached));
+                }
+
+                String etag = getHeaders().getETag();
+                if (status == HttpStatus.OK && etag != null && !etag.startsWith("W/") && ttl > 0) {
+                    return DataBufferUtils.join(body).flatMap(joined -> {
+                        byte[] bytes = new byte[joined.readableByteCount()];
+                        joined.read(bytes);
+                        DataBufferUtils.release(joined);
+                        if (cache.fits(bytes.length)) {
+                            MediaType contentType = getHeaders().getContentType();
+                            ResponseCache.Entry entry = new ResponseCache.Entry(path, etag, contentType, bytes,
+                                    System.currentTimeMillis() + ttl, itemIds(bytes, contentType));
+                            cache.put(key, entry, generation);
+                            result.set(entry);
+                        }
+                        return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                    });
+                }
+
+                return super.writeWith(body);
+            }
+        };
+
+        return chain.filter(revalidating.mutate().response(decorated).build());
+    }
+
+    // A fresh entry: 304 if the client holds this version, else the cached body
+    private Mono<Void> serve(ServerHttpResponse response, ResponseCache.Entry entry, String clientEtag) {
+        response.getHeaders().set("X-Cache", "HIT");
+        if (entry.getEtag().equals(clientEtag)) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            response.getHeaders().setETag(entry.getEtag());
+            return response.setComplete();
+        }
+        return replay(response, entry);
+    }
+
+    private Mono<Void> replay(ServerHttpResponse response, ResponseCache.Entry cached) {
+        response.setStatusCode(HttpStatus.OK);
+        HttpHeaders headers = response.getHeaders();
+        headers.setETag(cached.getEtag());
+        if (cached.getContentType() != null) {
+            headers.setContentType(cached.getContentType());
+        }
+        headers.setContentLength(cached.getBody().length);
+        headers.set(HttpHeaders.CACHE_CONTROL, "no-cache");
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.getBody())));
+    }
+
+    // How long the gateway may serve this response without asking the upstream; 0 = do not cache
+    private long ttlFor(HttpHeaders headers) {
+        String cacheControl = headers.getCacheControl();
+        if (cacheControl == null) {
+            return ttlMillis;
+        }
+        long ttl = ttlMillis;
+        for (String directive : cacheControl.toLowerCase().split(",")) {
+            directive = directive.trim();
+            if (directive.equals("no-store") || directive.equals("private")) {
+                return 0;
+            }
+            if (directive.startsWith("max-age=") || directive.startsWith("s-maxage=")) {
+                try {
+                    long seconds = Long.parseLong(directive.substring(directive.indexOf('=') + 1));
+                    ttl = Math.min(ttl, seconds * 1000);
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return ttl;
+    }
+
+    // "Cache-Control: no-cache" or "max-age=0" from the client skips the fresh copy
+    private boolean clientRequiresRevalidation(ServerHttpRequest request) {
+        String cacheControl = request.getHeaders().getCacheControl();
+        return cacheControl != null
+                && (cacheControl.contains("no-cache") || cacheControl.replace(" ", "").contains("max-age=0"));
+    }
+
+    private String key(ServerHttpRequest request) {
+        StringBuilder key = new StringBuilder(request.getURI().getRawPath())
+                .append('?').append(request.getURI().getRawQuery());
+        for (String header : keyHeaders) {
+            key.append('|').append(request.getHeaders().getFirst(header));
+        }
+        return key.toString();
+    }
+
+    // Ids of the items a catalog response lists: the "id" of every object in a JSON array.
+    // null if unknown (not JSON, or listed without their id), so that any item change drops it.
+    private Set<Long> itemIds(byte[] body, MediaType contentType) {
+        if (contentType == null || !MediaType.APPLICATION_JSON.isCompatibleWith(contentType)) {
+            return null;
+        }
+        try {
+            Set<Long> ids = new HashSet<>();
+            return collectItemIds(objectMapper.readTree(body), ids) ? ids : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private boolean collectItemIds(JsonNode node, Set<Long> ids) {
+        if (node.isArray()) {
+            for (JsonNode element : node) {
+                if (element.isObject()) {
+                    JsonNode id = element.get("id");
+                    if (id == null || !id.canConvertToLong()) {
+                        return false;
+                    }
+                    ids.add(id.asLong());
+                }
+                if (!collectItemIds(element, ids)) {
+                    return false;
+                }
+            }
+        } else if (node.isObject()) {
+            for (JsonNode child : node) {
+                if (!collectItemIds(child, ids)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // GET without a body (neither Content-Length nor chunked) on a configured path prefix
+    // (/items/details carries its id in the body)
+    private boolean isCacheable(ServerHttpRequest request) {
+        HttpHeaders headers = request.getHeaders();
+        if (!HttpMethod.GET.equals(request.getMethod())
+                || headers.getContentLength() > 0
+                || headers.containsKey(HttpHeaders.TRANSFER_ENCODING)) {
+            return false;
+        }
+        String path = request.getPath().value();
+        return cachedPaths.stream().anyMatch(path::startsWith);
+    }
+
+    @Override
+    public int getOrder() {
+        // Must decorate the response before NettyWriteResponseFilter writes it
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    }
+}
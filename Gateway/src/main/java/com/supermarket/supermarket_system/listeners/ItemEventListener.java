@@ -0,0 +1,39 @@
+package com.supermarket.supermarket_system.listeners;
+
+import com.supermarket.supermarket_system.utils.ResponseCache;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// Drops the cached catalog responses an item change makes stale (JSON or CBOR events,
+// see ItemEventPublisher in Items):
+// - CREATED: the new item may belong in any listing, so every /items entry goes.
+// - UPDATED: every listing page, since a new category, name or price can move the item
+//   into any of them; /items/details entries only for the updated item.
+// - DELETED: only the entries listing the item.
+// - STOCK_CHANGED: nothing. Stock changes come with every checkout, and cached
+//   quantities may be up to app.response-cache.ttl-ms old.
+@Component
+public class ItemEventListener {
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    @RabbitListener(queues = "#{itemEventsQueue.name}")
+    public void handleItemEvent(Map<String, Object> event) {
+        Object type = event.get("type");
+        if ("STOCK_CHANGED".equals(type)) {
+            return;
+        }
+        if (("UPDATED".equals(type) || "DELETED".equals(type)) && event.get("itemId") instanceof Number itemId) {
+            responseCache.invalidateItem(itemId.longValue());
+            if ("UPDATED".equals(type)) {
+                responseCache.invalidate("/items", "/items/details");
+            }
+            return;
+        }
+        responseCache.invalidate("/items");
+    }
+}
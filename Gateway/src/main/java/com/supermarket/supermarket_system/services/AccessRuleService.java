@@ -0,0 +1,95 @@
+package com.supermarket.supermarket_system.services;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.supermarket.supermarket_system.utils.AccessRuleTrie;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+// ========================
+// SERVICE: AccessRuleService
+// ========================
+// Holds the compiled access rules used by AuthenticationFilter.
+//
+// - Rules are read from app.access.rules-location (a JSON list of
+//   {"path", "methods", "public", "role"}), by default the bundled access-rules.json.
+// - When the location is a file, it is checked every app.access.reload-interval-ms and
+//   recompiled when it changes; a file that does not compile is logged and the previous
+//   rules stay in force. A broken file at startup stops the Gateway instead.
+@Service
+public class AccessRuleService {
+
+    private static final Logger log = LoggerFactory.getLogger(AccessRuleService.class);
+
+    private static final TypeReference<List<AccessRuleTrie.Rule>> RULES = new TypeReference<>() {};
+
+    @Value("${app.access.rules-location:classpath:access-rules.json}")
+    private Resource rulesLocation;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private volatile AccessRuleTrie rules;
+    private long loadedModified;
+
+    @PostConstruct
+    void load() {
+        loadedModified = lastModified();
+        rules = compile();
+        log.info("Access rules loaded from {}", rulesLocation.getDescription());
+    }
+
+    /**
+     * @param method The HTTP method name, e.g. "GET"
+     * @param path   The request path, without query string
+     */
+    public AccessRuleTrie.Decision decide(String method, String path) {
+        return rules.decide(method, path);
+    }
+
+    @Scheduled(fixedDelayString = "${app.access.reload-interval-ms:5000}")
+    public void reloadIfChanged() {
+        if (!rulesLocation.isFile()) {
+            return;
+        }
+        long modified = lastModified();
+        if (modified == loadedModified) {
+            return;
+        }
+        loadedModified = modified;
+        try {
+            rules = compile();
+            log.info("Access rules reloaded from {}", rulesLocation.getDescription());
+        } catch (RuntimeException e) {
+            log.error("Invalid access rules in {}, keeping the previous rules: {}",
+                    rulesLocation.getDescription(), e.getMessage());
+        }
+    }
+
+    private AccessRuleTrie compile() {
+        try (InputStream in = rulesLocation.getInputStream()) {
+            return new AccessRuleTrie(objectMapper.readValue(in, RULES));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read access rules from " + rulesLocation.getDescription(), e);
+        }
+    }
+
+    private long lastModified() {
+        try {
+            return rulesLocation.isFile() ? rulesLocation.lastModified() : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.supermarket.supermarket_system.utils;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// ========================
+// UTIL: AccessRuleTrie
+// ========================
+// Access rules compiled into a trie of path segments.
+//
+// - Patterns are made of literal segments, "*" (exactly one segment) and a trailing
+//   "**" (any number of segments, including none): "/items/**", "/orders/*/status".
+// - Lookup walks the request path once, segment by segment (one hash lookup each,
+//   no regex). The most specific rule wins: literal over "*" over "**",
+//   then a rule for the request's method over a rule for every method.
+// - A trailing slash starts an (empty) segment: "/orders/status/" is matched by
+//   "/orders/status/**" but not by "/orders/status", like the prefix checks the
+//   rules replaced.
+// - Paths that match no rule get the default decision (authentication required).
+// - Immutable once built, so it can be swapped on reload while requests read it.
+public final class AccessRuleTrie {
+
+    public static final Decision AUTHENTICATED = new Decision(false, null);
+
+    private final Node root = new Node();
+    private final Decision defaultDecision;
+
+    public AccessRuleTrie(List<Rule> rules) {
+        this(rules, AUTHENTICATED);
+    }
+
+    public AccessRuleTrie(List<Rule> rules, Decision defaultDecision) {
+        this.defaultDecision = defaultDecision;
+        for (Rule rule : rules) {
+            add(rule);
+        }
+    }
+
+    /**
+     * Returns the access decision for a request.
+     *
+     * @param method The HTTP method name, e.g. "GET"
+     * @param path   The request path, without query string
+     */
+    public Decision decide(String method, String path) {
+        Decision decision = match(root, path, skipSlashes(path, 0), method);
+        return decision != null ? decision : defaultDecision;
+    }
+
+    // ----------------------
+    // MATCHING
+    // ----------------------
+
+    private Decision match(Node node, String path, int start, String method) {
+        if (start >= path.length()) {
+            // Path consumed: rules ending here (unless the path ends with a slash),
+            // or a "**" below that also matches nothing
+            if (node == root || path.charAt(path.length() - 1) != '/') {
+                Decision here = node.terminal.decide(method);
+                if (here != null) {
+                    return here;
+                }
+            }
+            return node.rest != null ? node.rest.decide(method) : null;
+        }
+
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = path.length();
+        }
+        int next = skipSlashes(path, end);
+
+        if (!node.children.isEmpty()) {
+            Node child = node.children.get(path.substring(start, end));
+            if (child != null) {
+                Decision decision = match(child, path, next, method);
+                if (decision != null) {
+                    return decision;
+                }
+            }
+        }
+        if (node.anySegment != null) {
+            Decision decision = match(node.anySegment, path, next, method);
+            if (decision != null) {
+                return decision;
+            }
+        }
+        return node.rest != null ? node.rest.decide(method) : null;
+    }
+
+    private static int skipSlashes(String path, int index) {
+        while (index < path.length() && path.charAt(index) == '/') {
+            index++;
+        }
+        return index;
+    }
+
+    // ----------------------
+    // BUILDING
+    // ----------------------
+
+    private void add(Rule rule) {
+        if (rule.path() == null || !rule.path().startsWith("/")) {
+            throw new IllegalArgumentException("Access rule path must start with '/': " + rule.path());
+        }
+
+        String[] segments = rule.path().substring(1).split("/");
+        Node node = root;
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if ("**".equals(segment)) {
+                if (i != segments.length - 1) {
+                    throw new IllegalArgumentException("'**' is only allowed at the end of a pattern: " + rule.path());
+                }
+                if (node.rest == null) {
+                    node.rest = new Targets();
+                }
+                node.rest.add(rule);
+                return;
+            }
+            node = "*".equals(segment)
+                    ? (node.anySegment != null ? node.anySegment : (node.anySegment = new Node()))
+                    : node.children.computeIfAbsent(segment, s -> new Node());
+        }
+        node.terminal.add(rule);
+    }
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private Node anySegment;          // "*"
+        private Targets rest;             // "**"
+        private final Targets terminal = new Targets();
+    }
+
+    // The decisions of the rules that end at one place in the trie, by method
+    private static final class Targets {
+        private final Map<String, Decision> byMethod = new HashMap<>();
+        private Decision anyMethod;
+
+        private void add(Rule rule) {
+            Decision decision = new Decision(rule.publicAccess(), rule.role());
+            if (rule.methods() == null || rule.methods().isEmpty()) {
+                if (anyMethod != null) {
+                    throw new IllegalArgumentException("Duplicate access rule for " + rule.path());
+                }
+                anyMethod = decision;
+                return;
+            }
+            for (String method : rule.methods()) {
+                if (byMethod.put(method.toUpperCase(Locale.ROOT), decision) != null) {
+                    throw new IllegalArgumentException("Duplicate access rule for " + method + " " + rule.path());
+                }
+            }
+        }
+
+        private Decision decide(String method) {
+            Decision decision = byMethod.isEmpty() ? null : byMethod.get(method);
+            return decision != null ? decision : anyMethod;
+        }
+    }
+
+    /**
+     * One configured access rule.
+     *
+     * @param path         Path pattern, e.g. "/items/**"
+     * @param methods      HTTP methods the rule applies to, every method if empty
+     * @param publicAccess No authentication needed ("public" in the rules file)
+     * @param role         Role required in the JWT, or null if any authenticated user may pass
+     */
+    public record Rule(String path,
+                       List<String> methods,
+                       @JsonProperty("public") boolean publicAccess,
+                       String role) {
+    }
+
+    /**
+     * @param publicAccess The request may pass without a token
+     * @param role         Role the token must carry, or null
+     */
+    public record Decision(boolean publicAccess, String role) {
+    }
+}
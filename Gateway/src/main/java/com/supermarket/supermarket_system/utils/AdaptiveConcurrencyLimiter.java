@@ -0,0 +1,146 @@
+package com.supermarket.supermarket_system.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// ========================
+// COMPONENT: AdaptiveConcurrencyLimiter
+// ========================
+// Caps the requests in flight to each route (first path segment, i.e. one backend service)
+// and adapts the cap to the upstream's latency (AIMD).
+//
+// - Every completed request feeds its round-trip time into a moving average, which is
+//   compared with a baseline that follows the average slowly (and drops immediately).
+// - When the average exceeds baseline * tolerance, or the upstream fails (5xx / error),
+//   the limit is multiplied by backoff-ratio, at most once per decrease-interval-ms.
+// - Otherwise, while at least half the limit is in use, it grows by about one per
+//   "limit" requests, up to max-limit.
+// - Requests over the limit are refused at once (AdmissionControlFilter answers 503).
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    @Value("${app.concurrency-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.concurrency-limit.initial-limit:50}")
+    private int initialLimit;
+
+    @Value("${app.concurrency-limit.min-limit:5}")
+    private int minLimit;
+
+    @Value("${app.concurrency-limit.max-limit:500}")
+    private int maxLimit;
+
+    @Value("${app.concurrency-limit.tolerance:2.0}")
+    private double tolerance;
+
+    @Value("${app.concurrency-limit.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    @Value("${app.concurrency-limit.smoothing:0.2}")
+    private double smoothing;
+
+    @Value("${app.concurrency-limit.baseline-smoothing:0.01}")
+    private double baselineSmoothing;
+
+    @Value("${app.concurrency-limit.decrease-interval-ms:500}")
+    private long decreaseIntervalMillis;
+
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+
+    /**
+     * Takes a slot for a request to the route.
+     *
+     * @return The route's state, to be passed to release(), or null if the route is at its limit
+     */
+    public Route tryAcquire(String route) {
+        Route state = routes.computeIfAbsent(route, r -> new Route(initialLimit));
+        if (!enabled) {
+            state.inFlight.incrementAndGet();
+            return state;
+        }
+        while (true) {
+            int current = state.inFlight.get();
+            if (current >= (int) state.limit) {
+                return null;
+            }
+            if (state.inFlight.compareAndSet(current, current + 1)) {
+                return state;
+            }
+        }
+    }
+
+    /**
+     * Frees the slot and adjusts the limit.
+     *
+     * @param rttNanos The request's round-trip time, or a negative value to free the
+     *                 slot without a sample (cancelled request, answer served locally)
+     * @param failed   The upstream answered 5xx or could not be reached
+     */
+    public void release(Route route, long rttNanos, boolean failed) {
+        int inFlight = route.inFlight.getAndDecrement();
+        if (!enabled || (rttNanos < 0 && !failed)) {
+            return;
+        }
+        route.onSample(Math.max(rttNanos, 0), failed, inFlight, System.nanoTime());
+    }
+
+    public Map<String, Route> getRoutes() {
+        return routes;
+    }
+
+    public final class Route {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile double limit;
+
+        // Guarded by "this"
+        private double averageNanos;
+        private double baselineNanos;
+        private long lastDecreaseAt;
+
+        private Route(int initialLimit) {
+            this.limit = initialLimit;
+            this.lastDecreaseAt = System.nanoTime();
+        }
+
+        private synchronized void onSample(long rttNanos, boolean failed, int inFlightAtSample, long now) {
+            if (rttNanos > 0) {
+                averageNanos = averageNanos == 0 ? rttNanos : averageNanos + smoothing * (rttNanos - averageNanos);
+                baselineNanos = baselineNanos == 0 || averageNanos < baselineNanos
+                        ? averageNanos
+                        : baselineNanos + baselineSmoothing * (averageNanos - baselineNanos);
+            }
+
+            boolean congested = failed || averageNanos > baselineNanos * tolerance;
+            if (congested) {
+                if (now - lastDecreaseAt >= TimeUnit.MILLISECONDS.toNanos(decreaseIntervalMillis)) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastDecreaseAt = now;
+                }
+            } else if (inFlightAtSample * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        }
+
+        public int getLimit() {
+            return (int) limit;
+        }
+
+        public int getInFlight() {
+            return inFlight.get();
+        }
+
+        public synchronized long getAverageMillis() {
+            return TimeUnit.NANOSECONDS.toMillis((long) averageNanos);
+        }
+
+        public synchronized long getBaselineMillis() {
+            return TimeUnit.NANOSECONDS.toMillis((long) baselineNanos);
+        }
+    }
+}
@@ -12,6 +12,7 @@ package com.supermarket.supermarket_system.utils;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.nio.charset.StandardCharsets;
@@ -49,8 +50,20 @@ public class JwtUtils {
 
     // Converts the secret string into a cryptographic signing key.
     // This ensures JJWT can safely sign and verify tokens.
+    // Built once: the key and the parser are immutable and thread-safe,
+    // so there is no reason to rebuild them for every request.
+    private final Key signingKey = Keys.hmacShaKeyFor(SECRET_KEY.getBytes(StandardCharsets.UTF_8));
+
+    private final JwtParser jwtParser = Jwts.parserBuilder()
+            .setSigningKey(signingKey) // Must match key used in signing
+            .build();
+
+    // Verified claims keyed by token digest, valid until the token's "exp"
+    @Autowired
+    private VerifiedClaimsCache claimsCache;
+
     private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(SECRET_KEY.getBytes(StandardCharsets.UTF_8));
+        return signingKey;
     }
 
     // ----------------------
@@ -87,10 +100,20 @@ public class JwtUtils {
      * @return The parsed token as a Jws<Claims> object
      */
     private Jws<Claims> parseToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey()) // Must match key used in signing
-                .build()
-                .parseClaimsJws(token); // Throws exception if invalid or expired
+        return jwtParser.parseClaimsJws(token); // Throws exception if invalid or expired
+    }
+
+    /**
+     * Returns the verified claims of a token, checking the signature only the
+     * first time the token is seen. Later calls are served from the claims cache
+     * until the token's "exp" is reached.
+     *
+     * @param token The JWT token string to verify
+     * @return The verified {@link Claims}
+     * @throws JwtException if the token is invalid or expired
+     */
+    public Claims getVerifiedClaims(String token) {
+        return claimsCache.get(token, t -> parseToken(t).getBody());
     }
 
     // ----------------------
@@ -98,7 +121,7 @@ public class JwtUtils {
     // ----------------------
 
     public Long getUserId(String token) {
-        return parseToken(token).getBody().get("userId", Long.class);
+        return getVerifiedClaims(token).get("userId", Long.class);
     }
 
     /**
@@ -109,7 +132,7 @@ public class JwtUtils {
      * @return The username stored in the token's "sub" (subject) claim.
      */
     public String getEmail(String token) {
-        return parseToken(token).getBody().getSubject(); // "sub" → standard JWT subject
+        return getVerifiedClaims(token).getSubject(); // "sub" → standard JWT subject
     }
 
     /**
@@ -120,7 +143,7 @@ public class JwtUtils {
      * @return The user's role (e.g., "USER", "ADMIN") stored in the "role" claim.
      */
     public String getRole(String token) {
-        return parseToken(token).getBody().get("role", String.class);
+        return getVerifiedClaims(token).get("role", String.class);
     }
 
     /**
@@ -132,7 +155,7 @@ public class JwtUtils {
      * @return A {@link Claims} object containing all token data.
      */
     public Claims getAllClaims(String token) {
-        return parseToken(token).getBody();
+        return getVerifiedClaims(token);
     }
 
     // ----------------------
@@ -145,7 +168,7 @@ public class JwtUtils {
      */
     public boolean validateToken(String token) {
         try {
-            parseToken(token); // If this doesn’t throw, the token is valid
+            getVerifiedClaims(token); // If this doesn’t throw, the token is valid
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             // JwtException covers: expired, malformed, signature issues, etc.
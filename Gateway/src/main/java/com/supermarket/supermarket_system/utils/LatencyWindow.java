@@ -0,0 +1,60 @@
+package com.supermarket.supermarket_system.utils;
+
+import java.util.Arrays;
+
+// ========================
+// UTIL: LatencyWindow
+// ========================
+// The most recent response times of one route, and a percentile over them.
+//
+// - Keeps the last "capacity" samples in a ring buffer.
+// - The percentile is recomputed (one sort of the window) only after a tenth of the
+//   window has been replaced, so reading it on every request stays cheap.
+public final class LatencyWindow {
+
+    private final long[] samples;
+    private final double percentile;
+
+    // Guarded by "this"
+    private int next;
+    private int size;
+    private int sinceComputed;
+    private long cachedNanos = -1;
+
+    /**
+     * @param capacity   Number of recent samples kept
+     * @param percentile The percentile reported by percentileNanos(), e.g. 95
+     */
+    public LatencyWindow(int capacity, double percentile) {
+        this.samples = new long[capacity];
+        this.percentile = percentile;
+    }
+
+    public synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        if (size < samples.length) {
+            size++;
+        }
+        sinceComputed++;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // The configured percentile of the window, or -1 while it is empty
+    public synchronized long percentileNanos() {
+        if (size == 0) {
+            return -1;
+        }
+        if (cachedNanos < 0 || sinceComputed * 10 >= samples.length) {
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100 * size) - 1;
+            cachedNanos = sorted[Math.min(Math.max(index, 0), size - 1)];
+            sinceComputed = 0;
+        }
+        return cachedNanos;
+    }
+}
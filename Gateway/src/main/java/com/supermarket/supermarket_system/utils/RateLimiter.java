@@ -0,0 +1,115 @@
+package com.supermarket.supermarket_system.utils;
+
+import com.supermarket.supermarket_system.config.RateLimitProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// ========================
+// COMPONENT: RateLimiter
+// ========================
+// In-memory token buckets for AdmissionControlFilter.
+//
+// - The limit for a request is the configured one with the longest matching path prefix.
+// - Each limit keeps one bucket per caller: the verified userId, or the client IP for
+//   "ip" limits and anonymous requests.
+// - Buckets refill continuously from the time of their last use, so nothing runs per
+//   bucket in the background and a check never blocks beyond the bucket's own lock.
+// - Buckets left idle long enough to be full again are dropped periodically.
+@Component
+public class RateLimiter {
+
+    @Autowired
+    private RateLimitProperties properties;
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Takes one token for the request.
+     *
+     * @param path   The request path
+     * @param userId The verified user id, or null for anonymous requests
+     * @param ip     The client address
+     * @return The configured limit and how long to wait before retrying (0 if admitted),
+     *         or null if no limit applies
+     */
+    public Result tryAcquire(String path, Long userId, String ip) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        RateLimitProperties.Limit limit = limitFor(path);
+        if (limit == null) {
+            return null;
+        }
+
+        String caller = "ip".equals(limit.getKey()) || userId == null ? "ip:" + ip : "user:" + userId;
+        Bucket bucket = buckets.computeIfAbsent(limit.getName() + '|' + caller,
+                k -> new Bucket(limit.getCapacity(), limit.getRefillPerSecond()));
+        return new Result(limit.getName(), bucket.tryAcquire(System.nanoTime()));
+    }
+
+    public int getBucketCount() {
+        return buckets.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.cleanup-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long idleBefore = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(properties.getIdleBucketTtlMs());
+        buckets.values().removeIf(bucket -> bucket.lastUsed() - idleBefore < 0);
+    }
+
+    private RateLimitProperties.Limit limitFor(String path) {
+        List<RateLimitProperties.Limit> limits = properties.getLimits();
+        return limits.stream()
+                .filter(limit -> path.startsWith(limit.getPath()))
+                .max(Comparator.comparingInt(limit -> limit.getPath().length()))
+                .orElse(null);
+    }
+
+    /**
+     * @param limit           Name of the limit that applied
+     * @param retryAfterNanos 0 if the request was admitted, otherwise the time until a token is available
+     */
+    public record Result(String limit, long retryAfterNanos) {
+        public boolean admitted() {
+            return retryAfterNanos == 0;
+        }
+    }
+
+    static final class Bucket {
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long refilledAt;
+
+        Bucket(int capacity, double refillPerSecond) {
+            this.capacity = capacity;
+            this.tokensPerNano = refillPerSecond / 1e9;
+            this.tokens = capacity;
+            this.refilledAt = System.nanoTime();
+        }
+
+        synchronized long tryAcquire(long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            if (tokensPerNano <= 0) {
+                return Long.MAX_VALUE;
+            }
+            return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerNano));
+        }
+
+        synchronized long lastUsed() {
+            return refilledAt;
+        }
+    }
+}
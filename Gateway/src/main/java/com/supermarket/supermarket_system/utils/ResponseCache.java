@@ -0,0 +1,226 @@
+package com.supermarket.supermarket_system.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// ========================
+// COMPONENT: ResponseCache
+// ========================
+// In-memory store behind ResponseCacheFilter.
+//
+// - Least recently used entries are evicted once the cached bodies exceed max-bytes.
+// - Entries are fresh until their expiry, then kept for revalidation with their ETag.
+// - invalidate() drops every entry under a path, invalidateItem() the entries listing
+//   one item. Both bump a generation counter, so a response fetched before the
+//   invalidation is not stored after it.
+// - Tracks the upstream fetch in flight per key, so concurrent misses can wait for it.
+@Component
+public class ResponseCache {
+
+    // Rough per-entry overhead (key, headers, map node) added to the body size
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    @Value("${app.response-cache.max-bytes:33554432}")
+    private long maxBytes;
+
+    @Value("${app.response-cache.max-body-bytes:1048576}")
+    private int maxBodyBytes;
+
+    // Access-ordered for LRU eviction; guarded by "this"
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<String, Sinks.One<Entry>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public synchronized Entry get(String key) {
+        return entries.get(key);
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    public boolean fits(int bodyBytes) {
+        return bodyBytes <= maxBodyBytes;
+    }
+
+    /**
+     * Stores a response unless the cache was invalidated since it was requested.
+     *
+     * @param generationAtRequest The value of generation() when the upstream request started
+     */
+    public synchronized void put(String key, Entry entry, long generationAtRequest) {
+        if (generation.get() != generationAtRequest || !fits(entry.body.length)) {
+            return;
+        }
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            totalBytes -= previous.size(key);
+        }
+        totalBytes += entry.size(key);
+
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Entry> e = eldest.next();
+            totalBytes -= e.getValue().size(e.getKey());
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    // Drops every entry whose path starts with the given prefix
+    public void invalidate(String pathPrefix) {
+        invalidate(pathPrefix, null);
+    }
+
+    // Same, keeping the entries under excludedPrefix (null keeps none)
+    public synchronized void invalidate(String pathPrefix, String excludedPrefix) {
+        generation.incrementAndGet();
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Entry> e = it.next();
+            String path = e.getValue().path;
+            if (path.startsWith(pathPrefix) && (excludedPrefix == null || !path.startsWith(excludedPrefix))) {
+                totalBytes -= e.getValue().size(e.getKey());
+                it.remove();
+            }
+        }
+    }
+
+    // Drops the entries that list the given item, and those whose items are not known
+    public synchronized void invalidateItem(long itemId) {
+        generation.incrementAndGet();
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Entry> e = it.next();
+            Set<Long> itemIds = e.getValue().itemIds;
+            if (itemIds == null || itemIds.contains(itemId)) {
+                totalBytes -= e.getValue().size(e.getKey());
+                it.remove();
+            }
+        }
+    }
+
+    // ----------------------
+    // COLLAPSED MISSES
+    // ----------------------
+
+    /**
+     * Registers the caller as the one fetching this key upstream.
+     *
+     * @return null if the caller now leads (it must call completeFetch), otherwise
+     *         the leader's result: the entry, or empty if it produced nothing cacheable
+     */
+    public Mono<Entry> joinFetch(String key, Sinks.One<Entry> candidate) {
+        Sinks.One<Entry> leader = inFlight.putIfAbsent(key, candidate);
+        if (leader == null) {
+            misses.increment();
+            return null;
+        }
+        collapsed.increment();
+        return leader.asMono();
+    }
+
+    public void completeFetch(String key, Sinks.One<Entry> sink, Entry result) {
+        inFlight.remove(key, sink);
+        if (result != null) {
+            sink.tryEmitValue(result);
+        } else {
+            sink.tryEmitEmpty();
+        }
+    }
+
+    public void recordHit() {
+        hits.increment();
+    }
+
+    // ----------------------
+    // METRICS
+    // ----------------------
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getCollapsed() {
+        return collapsed.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public static final class Entry {
+        private final String path;
+        private final String etag;
+        private final MediaType contentType;
+        private final byte[] body;
+        private final long expiresAt;
+        // Items listed in the body; null if not known
+        private final Set<Long> itemIds;
+
+        public Entry(String path, String etag, MediaType contentType, byte[] body, long expiresAt, Set<Long> itemIds) {
+            this.path = path;
+            this.etag = etag;
+            this.contentType = contentType;
+            this.body = body;
+            this.expiresAt = expiresAt;
+            this.itemIds = itemIds;
+        }
+
+        // Same response, confirmed current by the upstream (304)
+        public Entry refreshed(long newExpiresAt) {
+            return new Entry(path, etag, contentType, body, newExpiresAt, itemIds);
+        }
+
+        public boolean isFresh(long now) {
+            return expiresAt > now;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public MediaType getContentType() {
+            return contentType;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        private long size(String key) {
+            return body.length + 2L * key.length() + ENTRY_OVERHEAD_BYTES
+                    + (itemIds == null ? 0 : 32L * itemIds.size());
+        }
+    }
+}
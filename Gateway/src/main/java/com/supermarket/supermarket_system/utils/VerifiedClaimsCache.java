@@ -0,0 +1,131 @@
+package com.supermarket.supermarket_system.utils;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// ========================
+// COMPONENT: VerifiedClaimsCache
+// ========================
+// Bounded cache of already-verified JWT claims.
+//
+// - Keyed by the SHA-256 digest of the token, so raw tokens are never kept in memory.
+// - Each entry lives until the token's own "exp" claim; tokens without "exp" are not cached.
+// - Least recently used entries are evicted once max-entries is reached (O(1) per insert).
+// - Only successfully verified tokens are stored, an invalid token always reaches the verifier.
+// - Hit / miss / eviction counters are kept for monitoring.
+@Component
+public class VerifiedClaimsCache {
+
+    @Value("${app.jwt.claims-cache.max-entries:10000}")
+    private int maxEntries;
+
+    // Access-ordered for LRU eviction; guarded by "this". Verification runs outside the lock.
+    private final LinkedHashMap<String, CachedClaims> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedClaims> eldest) {
+            if (size() > maxEntries) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // MessageDigest is not thread-safe, keep one per event-loop thread
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    /**
+     * Returns the cached claims for a token, or verifies it with the given
+     * function and caches the result until the token expires.
+     *
+     * @param token    The raw JWT string
+     * @param verifier Verifies the token and returns its claims, throwing if invalid
+     * @return The verified claims
+     */
+    public Claims get(String token, Function<String, Claims> verifier) {
+        String key = digest(token);
+        long now = System.currentTimeMillis();
+
+        synchronized (this) {
+            CachedClaims cached = entries.get(key);
+            if (cached != null) {
+                if (cached.expiresAt > now) {
+                    hits.increment();
+                    return cached.claims;
+                }
+                // Token expired since it was cached
+                entries.remove(key);
+                evictions.increment();
+            }
+        }
+
+        misses.increment();
+        Claims claims = verifier.apply(token); // Throws if invalid or expired
+
+        Date expiration = claims.getExpiration();
+        if (expiration != null && expiration.getTime() > now) {
+            synchronized (this) {
+                entries.put(key, new CachedClaims(claims, expiration.getTime()));
+            }
+        }
+        return claims;
+    }
+
+    private String digest(String token) {
+        MessageDigest md = SHA_256.get();
+        md.reset();
+        byte[] hash = md.digest(token.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(hash);
+    }
+
+    // ----------------------
+    // METRICS
+    // ----------------------
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static final class CachedClaims {
+        private final Claims claims;
+        private final long expiresAt;
+
+        private CachedClaims(Claims claims, long expiresAt) {
+            this.claims = claims;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
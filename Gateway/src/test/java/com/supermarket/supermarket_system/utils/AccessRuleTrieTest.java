@@ -0,0 +1,63 @@
+package com.supermarket.supermarket_system.utils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// Checks the bundled access-rules.json against the hard-coded checks AuthenticationFilter
+// used before
+class AccessRuleTrieTest {
+
+    static final String[] METHODS = {"GET", "POST", "PUT", "PATCH", "DELETE"};
+
+    static final String[] PATHS = {
+            "/users/login", "/users/login/", "/users/register", "/users/health", "/users/profile", "/users/all",
+            "/items", "/items/", "/items/search", "/items/details", "/items/update", "/items/deduct/batch",
+            "/cart", "/cart/add", "/cart/checkout", "/cart/checkout/42",
+            "/orders/history", "/orders/all", "/orders/all/", "/orders/details", "/orders/status",
+            "/orders/status/", "/orders/status/update", "/orders/cancel", "/orders/admin/dead-letters",
+            "/orders/123/status", "/orders/123/status/", "/orders/stats", "/payment/process", "/unknown"
+    };
+
+    @Test
+    void matchesTheFormerFilter() throws IOException {
+        AccessRuleTrie trie = bundledRules();
+        for (String path : PATHS) {
+            for (String method : METHODS) {
+                AccessRuleTrie.Decision decision = trie.decide(method, path);
+                assertEquals(LegacyAccessRules.isPublic(method, path), decision.publicAccess(), method + " " + path);
+                if (!decision.publicAccess()) {
+                    assertEquals(LegacyAccessRules.requiresAdminRole(path, method), "ADMIN".equals(decision.role()),
+                            method + " " + path);
+                }
+            }
+        }
+    }
+
+    @Test
+    void trailingSlashIsOnlyMatchedByWildcardRules() throws IOException {
+        AccessRuleTrie trie = bundledRules();
+
+        AccessRuleTrie.Decision status = trie.decide("GET", "/orders/status");
+        assertFalse(status.publicAccess());
+        assertNull(status.role());
+
+        // Admin-only, as under the former startsWith("/orders/status/") check
+        assertEquals("ADMIN", trie.decide("GET", "/orders/status/").role());
+        assertEquals("ADMIN", trie.decide("GET", "/orders/status/update").role());
+    }
+
+    private AccessRuleTrie bundledRules() throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/access-rules.json")) {
+            return new AccessRuleTrie(new ObjectMapper().readValue(in, new TypeReference<List<AccessRuleTrie.Rule>>() {}));
+        }
+    }
+}
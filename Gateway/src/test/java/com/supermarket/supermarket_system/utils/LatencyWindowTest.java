@@ -0,0 +1,25 @@
+package com.supermarket.supermarket_system.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LatencyWindowTest {
+
+    @Test
+    void reportsThePercentileOfTheRecentSamples() {
+        LatencyWindow window = new LatencyWindow(100, 95);
+        assertEquals(-1, window.percentileNanos());
+
+        for (int i = 1; i <= 100; i++) {
+            window.record(i);
+        }
+        assertEquals(95, window.percentileNanos());
+
+        // A full window of slower samples replaces the old ones
+        for (int i = 1; i <= 100; i++) {
+            window.record(1000 + i);
+        }
+        assertEquals(1095, window.percentileNanos());
+    }
+}
@@ -0,0 +1,34 @@
+package com.supermarket.supermarket_system.utils;
+
+import java.util.Arrays;
+import java.util.List;
+
+// The checks AuthenticationFilter ran before the rules were made configurable
+// (kept as the reference for AccessRuleTrieTest and AccessRuleTrieBenchmark)
+final class LegacyAccessRules {
+
+    private static final List<String> PUBLIC_ENDPOINTS = Arrays.asList(
+            "/users/register",
+            "/users/login",
+            "/users/health"
+    );
+
+    private LegacyAccessRules() {}
+
+    static boolean isPublic(String method, String path) {
+        return PUBLIC_ENDPOINTS.stream().anyMatch(path::startsWith)
+                || ("GET".equals(method) && path.startsWith("/items"));
+    }
+
+    static boolean requiresAdminRole(String path, String method) {
+        if (path.startsWith("/items")) {
+            return "POST".equals(method) || "PUT".equals(method) || "DELETE".equals(method);
+        }
+        if (path.startsWith("/orders/all") ||
+                path.startsWith("/orders/status/") ||
+                path.startsWith("/orders/admin")) {
+            return true;
+        }
+        return path.matches("/orders/[^/]+/status") && "PATCH".equals(method);
+    }
+}
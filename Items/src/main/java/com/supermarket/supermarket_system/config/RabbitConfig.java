@@ -1,15 +1,21 @@
 package com.supermarket.supermarket_system.config;
 
+import com.supermarket.common.messaging.JacksonCborMessageConverter;
+import com.supermarket.common.outbox.OutboxConfiguration;
 import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 
+// Item events are published through the shared transactional outbox
 @Configuration
+@Import(OutboxConfiguration.class)
 public class RabbitConfig {
 
     @Value("${app.rabbitmq.item-exchange:items.exchange}")
@@ -27,9 +33,24 @@ public class RabbitConfig {
     @Value("${app.rabbitmq.item-deduct-routing-key:items.deduct.routingkey}")
     private String itemDeductRoutingKey;
 
+    @Value("${app.rabbitmq.item-deduct-batch-queue:items.deduct.batch.queue}")
+    private String itemDeductBatchQueue;
+
+    @Value("${app.rabbitmq.item-deduct-batch-routing-key:items.deduct.batch.routingkey}")
+    private String itemDeductBatchRoutingKey;
+
+    @Value("${app.rabbitmq.item-events-exchange:items.events}")
+    private String itemEventsExchange;
+
+    // JSON by default; messages are read with the converter matching their content type,
+    // so publishers can switch a message to CBOR without breaking consumers
     @Bean
     public MessageConverter jacksonMessageConverter() {
-        return new Jackson2JsonMessageConverter();
+        Jackson2JsonMessageConverter json = new Jackson2JsonMessageConverter();
+        ContentTypeDelegatingMessageConverter converter = new ContentTypeDelegatingMessageConverter(json);
+        converter.addDelegate(MessageProperties.CONTENT_TYPE_JSON, json);
+        converter.addDelegate(JacksonCborMessageConverter.CONTENT_TYPE, new JacksonCborMessageConverter());
+        return converter;
     }
 
     @Bean
@@ -59,6 +80,12 @@ public class RabbitConfig {
         return new Queue(itemDeductQueue, true);
     }
 
+    // Queue for batch deduction requests
+    @Bean
+    public Queue itemsDeductBatchQueue() {
+        return new Queue(itemDeductBatchQueue, true);
+    }
+
     // Binding for availability checks
     @Bean
     public Binding itemsBinding(Queue itemsQueue, DirectExchange itemsExchange) {
@@ -74,4 +101,29 @@ public class RabbitConfig {
                 .to(itemsExchange)
                 .with(itemDeductRoutingKey);
     }
-}
\ No newline at end of file
+
+    // Binding for batch deduction requests
+    @Bean
+    public Binding itemsDeductBatchBinding(Queue itemsDeductBatchQueue, DirectExchange itemsExchange) {
+        return BindingBuilder.bind(itemsDeductBatchQueue)
+                .to(itemsExchange)
+                .with(itemDeductBatchRoutingKey);
+    }
+
+    // Fanout exchange for item change events; every subscriber binds its own queue
+    @Bean
+    public FanoutExchange itemEventsExchange() {
+        return new FanoutExchange(itemEventsExchange, true, false);
+    }
+
+    // Per-node queue on the item events exchange, feeding this node's search index
+    @Bean
+    public Queue itemSearchEventsQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding itemSearchEventsBinding(Queue itemSearchEventsQueue, FanoutExchange itemEventsExchange) {
+        return BindingBuilder.bind(itemSearchEventsQueue).to(itemEventsExchange);
+    }
+}
@@ -10,15 +10,21 @@ import com.supermarket.supermarket_system.models.Item;
 // IMPORTS
 // ========================
 import com.supermarket.supermarket_system.repositories.ItemRepository;
+import com.supermarket.supermarket_system.services.CatalogVersionService;
+import com.supermarket.supermarket_system.services.ItemQueryService;
+import com.supermarket.supermarket_system.services.ItemSearchIndex;
+import com.supermarket.supermarket_system.services.ItemService;
+import com.supermarket.supermarket_system.services.StockService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
-import java.util.Map;
 import java.util.List;
+import java.util.Map;
 
 // ========================
 // CONTROLLER CLASS
@@ -32,6 +38,21 @@ public class ItemController {
     @Autowired
     private ItemRepository itemRepository;
 
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemQueryService itemQueryService;
+
+    @Autowired
+    private ItemSearchIndex itemSearchIndex;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
     // Create a new item (ADMIN ONLY)
     @PostMapping
     public ResponseEntity<?> createItem(
@@ -44,7 +65,10 @@ public class ItemController {
                     .body(Map.of("error", "Access denied: Admins only"));
         }
 
-        Item savedItem = itemRepository.save(item);
+        // Item and change event are committed together
+        Item savedItem = itemService.create(item);
+        stockService.onItemSaved(savedItem);
+        itemSearchIndex.index(savedItem);
         return ResponseEntity.ok(savedItem);
     }
 
@@ -68,7 +92,9 @@ public class ItemController {
         }
 
         try {
-            itemRepository.deleteById(id);
+            itemService.delete(id);
+            stockService.onItemDeleted(id);
+            itemSearchIndex.remove(id);
             return ResponseEntity.ok(Map.of("message", "Item deleted successfully"));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -76,28 +102,90 @@ public class ItemController {
         }
     }
 
-    // Get all items (PUBLIC)
+    // List items (PUBLIC), one keyset page at a time
+    // e.g. GET /items?category=dairy&minPrice=1&maxPrice=5&sort=-price&fields=id,name,price,imageUrl&limit=50
+    // Pass the returned nextCursor as ?cursor= to get the following page.
     @GetMapping
-    public List<Item> getAllItems() {
-        return itemRepository.findAll();
+    public ResponseEntity<?> getAllItems(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            WebRequest webRequest) {
+        // Read the version before the data: a concurrent change can only make the ETag older, never newer
+        String etag = catalogVersionService.catalogEtag();
+        if (webRequest.checkNotModified(etag)) {
+            return null; // 304, no query and no serialization
+        }
+
+        try {
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .body(itemQueryService.findPage(category, minPrice, maxPrice, sort, fields, limit, cursor));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Search items by name, category and description (PUBLIC)
+    // The last word is matched as a prefix, for search-as-you-type: GET /items/search?q=choc%20mil
+    @GetMapping("/search")
+    public ResponseEntity<?> searchItems(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "10") int limit,
+            WebRequest webRequest) {
+        String etag = catalogVersionService.catalogEtag();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        List<Map<String, Object>> results = itemSearchIndex.search(query, limit);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("query", query);
+        response.put("results", results);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(response);
     }
 
     // Get a single item by ID (PUBLIC)
     @GetMapping("/details")
-    public ResponseEntity<?> getItemsById(@RequestBody Map<String, Long> body) {
+    public ResponseEntity<?> getItemsById(@RequestBody Map<String, Long> body, WebRequest webRequest) {
         Long id = body.get("id");
         if (id == null) {
             return ResponseEntity.badRequest()
                     .body(Map.of("error", "id is required"));
         }
 
+        // Per-item ETag from the version column alone, before loading the entity
+        Long version = itemRepository.findVersionById(id).orElse(null);
+        if (version == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "Item not found"));
+        }
+        String etag = CatalogVersionService.itemEtag(id, version);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
         Item item = itemRepository.findById(id).orElse(null);
         if (item == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(Map.of("error", "Item not found"));
         }
 
-        return ResponseEntity.ok(item);
+        stockService.refreshQuantity(item);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(item);
     }
 
     // Modify existing item (ADMIN ONLY)
@@ -128,37 +216,19 @@ public class ItemController {
                     .body(Map.of("error", "id must be a valid number"));
         }
 
-        Item updatedItem = itemRepository.findById(id).map(item -> {
-            if (body.containsKey("name") && body.get("name") != null) {
-                item.setName((String) body.get("name"));
-            }
-            if (body.containsKey("price") && body.get("price") != null) {
-                Number priceNum = (Number) body.get("price");
-                item.setPrice(priceNum.doubleValue());
-            }
-            if (body.containsKey("quantity") && body.get("quantity") != null) {
-                Number quantityNum = (Number) body.get("quantity");
-                item.setQuantity(quantityNum.intValue());
-            }
-            if (body.containsKey("category") && body.get("category") != null) {
-                item.setCategory((String) body.get("category"));
-            }
-            if (body.containsKey("description") && body.get("description") != null) {
-                item.setDescription((String) body.get("description"));
-            }
-            return itemRepository.save(item);
-        }).orElse(null);
+        // Item and change event are committed together
+        Item updatedItem = itemService.update(id, body);
 
         if (updatedItem == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(Map.of("error", "Item not found"));
         }
 
+        itemSearchIndex.index(updatedItem);
         return ResponseEntity.ok(updatedItem);
     }
 
     @PostMapping("/deduct")
-    @Transactional
     public ResponseEntity<Map<String, Object>> deductItemQuantity(@RequestBody Map<String, Object> request) {
         System.out.println("=== HTTP DEDUCTION REQUEST RECEIVED ===");
         System.out.println("Request: " + request);
@@ -190,36 +260,14 @@ public class ItemController {
             return ResponseEntity.badRequest().body(response);
         }
 
-        // Find item
-        Item item = itemRepository.findById(itemId).orElse(null);
-        System.out.println("Item found: " + (item != null ? item.getName() : "NULL"));
+        // Deduct quantity with a single conditional update (no read-modify-write)
+        response = stockService.deduct(itemId, quantity);
 
-        if (item == null) {
-            System.out.println("ERROR: Item not found with ID: " + itemId);
-            response.put("success", false);
-            response.put("message", "Item not found");
+        if (!Boolean.TRUE.equals(response.get("success"))) {
+            System.out.println("ERROR: " + response.get("message"));
             return ResponseEntity.badRequest().body(response);
         }
-
-        // Check if enough quantity available
-        System.out.println("Item current quantity: " + item.getQuantity());
-        if (item.getQuantity() < quantity) {
-            System.out.println("ERROR: Not enough quantity. Requested: " + quantity + ", Available: " + item.getQuantity());
-            response.put("success", false);
-            response.put("message", "Not enough quantity available. Available: " + item.getQuantity());
-            return ResponseEntity.badRequest().body(response);
-        }
-
-        // Deduct quantity
-        int newQuantity = item.getQuantity() - quantity;
-        item.setQuantity(newQuantity);
-        itemRepository.save(item);
-        System.out.println("SUCCESS: Quantity deducted. New quantity: " + newQuantity);
-
-        // Return success response
-        response.put("success", true);
-        response.put("message", "Quantity deducted successfully");
-        response.put("remainingQuantity", newQuantity);
+        System.out.println("SUCCESS: Quantity deducted. New quantity: " + response.get("remainingQuantity"));
 
         System.out.println("Response: " + response);
         System.out.println("=== END HTTP DEDUCTION REQUEST ===");
@@ -227,8 +275,17 @@ public class ItemController {
         return ResponseEntity.ok(response);
     }
 
+    // Deduct several items at once: every line is applied or none is
+    @PostMapping("/deduct/batch")
+    public ResponseEntity<Map<String, Object>> deductItemQuantitiesBatch(@RequestBody Map<String, Object> request) {
+        Map<String, Object> response = stockService.deductBatch(request);
+        if (!Boolean.TRUE.equals(response.get("success"))) {
+            return ResponseEntity.badRequest().body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping("/restore")
-    @Transactional
     public ResponseEntity<Map<String, Object>> restoreItemQuantity(@RequestBody Map<String, Object> request) {
         System.out.println("=== HTTP RESTORE REQUEST RECEIVED ===");
         System.out.println("Request: " + request);
@@ -260,27 +317,14 @@ public class ItemController {
             return ResponseEntity.badRequest().body(response);
         }
 
-        // Find item
-        Item item = itemRepository.findById(itemId).orElse(null);
-        System.out.println("Item found: " + (item != null ? item.getName() : "NULL"));
+        // Restore quantity (add it back) with a single update
+        response = stockService.restore(itemId, quantity);
 
-        if (item == null) {
+        if (!Boolean.TRUE.equals(response.get("success"))) {
             System.out.println("ERROR: Item not found with ID: " + itemId);
-            response.put("success", false);
-            response.put("message", "Item not found");
             return ResponseEntity.badRequest().body(response);
         }
-
-        // Restore quantity (add it back)
-        int newQuantity = item.getQuantity() + quantity;
-        item.setQuantity(newQuantity);
-        itemRepository.save(item);
-        System.out.println("SUCCESS: Quantity restored. New quantity: " + newQuantity);
-
-        // Return success response
-        response.put("success", true);
-        response.put("message", "Quantity restored successfully");
-        response.put("newQuantity", newQuantity);
+        System.out.println("SUCCESS: Quantity restored. New quantity: " + response.get("newQuantity"));
 
         System.out.println("Response: " + response);
         System.out.println("=== END HTTP RESTORE REQUEST ===");
@@ -288,4 +332,15 @@ public class ItemController {
         return ResponseEntity.ok(response);
     }
 
-}
\ No newline at end of file
+    // Restore several items at once, at most once per restoreId (safe to retry)
+    @PostMapping("/restore/batch")
+    public ResponseEntity<Map<String, Object>> restoreItemQuantitiesBatch(@RequestBody Map<String, Object> request) {
+        Map<String, Object> response = stockService.restoreBatch(request);
+
+        if (!Boolean.TRUE.equals(response.get("success"))) {
+            return ResponseEntity.badRequest().body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.supermarket.supermarket_system.controllers;
+
+import com.supermarket.supermarket_system.services.ReservationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+// ========================
+// CONTROLLER: stock reservations used by checkout
+// ========================
+// reserve → (payment) → commit, or release on failure.
+// Reservations that are not committed in time expire and give their stock back.
+@RestController
+@RequestMapping("/items/reservations")
+public class ReservationController {
+
+    @Autowired
+    private ReservationService reservationService;
+
+    // Hold stock for every line, all or nothing
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> reserve(@RequestBody Map<String, Object> request) {
+        return toResponse(reservationService.reserve(request));
+    }
+
+    @PostMapping("/{reservationId}/commit")
+    public ResponseEntity<Map<String, Object>> commit(@PathVariable String reservationId) {
+        return toResponse(reservationService.commit(reservationId));
+    }
+
+    @PostMapping("/{reservationId}/release")
+    public ResponseEntity<Map<String, Object>> release(@PathVariable String reservationId) {
+        return toResponse(reservationService.release(reservationId));
+    }
+
+    private ResponseEntity<Map<String, Object>> toResponse(Map<String, Object> response) {
+        if (Boolean.TRUE.equals(response.get("notFound"))) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        if (!Boolean.TRUE.equals(response.get("success"))) {
+            return ResponseEntity.badRequest().body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
+}
@@ -2,6 +2,7 @@ package com.supermarket.supermarket_system.listeners;
 
 import com.supermarket.supermarket_system.models.Item;
 import com.supermarket.supermarket_system.repositories.ItemRepository;
+import com.supermarket.supermarket_system.services.StockService;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Component;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,6 +16,9 @@ public class ItemAvailabilityListener {
     @Autowired
     private ItemRepository itemRepository;
 
+    @Autowired
+    private StockService stockService;
+
     @RabbitListener(queues = "${app.rabbitmq.item-queue:items.queue}")
     public Map<String, Object> handleAvailabilityRequest(Map<String, Object> req) {
         Map<String, Object> resp = new HashMap<>();
@@ -39,6 +43,7 @@ public class ItemAvailabilityListener {
             return resp;
         }
 
+        stockService.refreshQuantity(item);
         resp.put("available", item.getQuantity() > 0);
         resp.put("availableQuantity", item.getQuantity());
         resp.put("unitPrice", item.getPrice());
@@ -1,11 +1,9 @@
 package com.supermarket.supermarket_system.listeners;
 
-import com.supermarket.supermarket_system.models.Item;
-import com.supermarket.supermarket_system.repositories.ItemRepository;
+import com.supermarket.supermarket_system.services.StockService;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Component;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -14,15 +12,10 @@ import java.util.Map;
 public class ItemDeductionListener {
 
     @Autowired
-    private ItemRepository itemRepository;
+    private StockService stockService;
 
     @RabbitListener(queues = "${app.rabbitmq.item-deduct-queue}")
-    @Transactional
     public Map<String, Object> handleDeductRequest(Map<String, Object> req) {
-        itemRepository.findAll().forEach(i ->
-                System.out.println("DB ITEM: id=" + i.getId() + ", name=" + i.getName())
-        );
-
         System.out.println("=== DEDUCTION REQUEST RECEIVED ===");
         System.out.println("Request: " + req);
 
@@ -53,39 +46,27 @@ public class ItemDeductionListener {
             return resp;
         }
 
-        // Find item
-        Item item = itemRepository.findById(itemId).orElse(null);
-        System.out.println("Item found: " + (item != null ? item.getName() : "NULL"));
-
-        if (item == null) {
-            System.out.println("ERROR: Item not found with ID: " + itemId);
-            resp.put("success", false);
-            resp.put("message", "Item not found");
-            return resp;
-        }
+        // Deduct quantity with a single conditional update (no read-modify-write)
+        resp = stockService.deduct(itemId, quantity);
 
-        // Check if enough quantity available
-        System.out.println("Item current quantity: " + item.getQuantity());
-        if (item.getQuantity() < quantity) {
-            System.out.println("ERROR: Not enough quantity. Requested: " + quantity + ", Available: " + item.getQuantity());
-            resp.put("success", false);
-            resp.put("message", "Not enough quantity available. Available: " + item.getQuantity());
+        if (!Boolean.TRUE.equals(resp.get("success"))) {
+            System.out.println("ERROR: " + resp.get("message"));
             return resp;
         }
-
-        // Deduct quantity
-        int newQuantity = item.getQuantity() - quantity;
-        item.setQuantity(newQuantity);
-        itemRepository.save(item);
-        System.out.println("SUCCESS: Quantity deducted. New quantity: " + newQuantity);
-
-        // Return success response
-        resp.put("success", true);
-        resp.put("message", "Quantity deducted successfully");
-        resp.put("remainingQuantity", newQuantity);
+        System.out.println("SUCCESS: Quantity deducted. New quantity: " + resp.get("remainingQuantity"));
 
         System.out.println("Response: " + resp);
         System.out.println("=== END DEDUCTION REQUEST ===");
         return resp;
     }
+
+    // Batch deduction: {"items": [{"itemId": 1, "quantity": 2}, ...]}
+    @RabbitListener(queues = "${app.rabbitmq.item-deduct-batch-queue:items.deduct.batch.queue}")
+    public Map<String, Object> handleBatchDeductRequest(Map<String, Object> req) {
+        System.out.println("=== BATCH DEDUCTION REQUEST RECEIVED ===");
+        Map<String, Object> resp = stockService.deductBatch(req);
+        System.out.println("Batch success: " + resp.get("success"));
+        System.out.println("=== END BATCH DEDUCTION REQUEST ===");
+        return resp;
+    }
 }
\ No newline at end of file
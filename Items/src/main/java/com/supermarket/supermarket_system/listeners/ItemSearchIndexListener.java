@@ -0,0 +1,40 @@
+package com.supermarket.supermarket_system.listeners;
+
+import com.supermarket.supermarket_system.repositories.ItemRepository;
+import com.supermarket.supermarket_system.services.ItemEventPublisher;
+import com.supermarket.supermarket_system.services.ItemSearchIndex;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// Keeps this node's search index in step with item changes made through any Items node
+@Component
+public class ItemSearchIndexListener {
+
+    @Autowired
+    private ItemSearchIndex itemSearchIndex;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @RabbitListener(queues = "#{itemSearchEventsQueue.name}")
+    public void handleItemEvent(Map<String, Object> event) {
+        if (event == null || !(event.get("itemId") instanceof Number itemIdNum)) {
+            return;
+        }
+        Long itemId = itemIdNum.longValue();
+
+        String type = (String) event.get("type");
+        if (ItemEventPublisher.DELETED.equals(type)) {
+            itemSearchIndex.remove(itemId);
+        } else if (ItemEventPublisher.CREATED.equals(type) || ItemEventPublisher.UPDATED.equals(type)) {
+            // The event has no description, reindex from the current row
+            itemRepository.findById(itemId).ifPresentOrElse(
+                    itemSearchIndex::index,
+                    () -> itemSearchIndex.remove(itemId));
+        }
+        // STOCK_CHANGED does not touch indexed fields
+    }
+}
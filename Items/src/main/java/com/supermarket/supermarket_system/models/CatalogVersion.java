@@ -0,0 +1,28 @@
+package com.supermarket.supermarket_system.models;
+
+import jakarta.persistence.*;
+
+// Single-row counter bumped on every catalog change; used as the ETag of item listings
+@Entity
+@Table(name = "catalog_version")
+public class CatalogVersion {
+
+    public static final Long ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private long version;
+
+    public CatalogVersion() {}
+
+    public CatalogVersion(Long id, long version) {
+        this.id = id;
+        this.version = version;
+    }
+
+    public Long getId() { return id; }
+
+    public long getVersion() { return version; }
+}
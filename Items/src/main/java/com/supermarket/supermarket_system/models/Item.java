@@ -3,7 +3,12 @@ package com.supermarket.supermarket_system.models;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "items")
+@Table(name = "items", indexes = {
+        // Keyset listing: every index implicitly ends with the primary key
+        @Index(name = "idx_items_category_price", columnList = "category, price"),
+        @Index(name = "idx_items_price", columnList = "price"),
+        @Index(name = "idx_items_name", columnList = "name")
+})
 public class Item {
 
     @Id
@@ -14,6 +19,10 @@ public class Item {
     private String name;
 
     private Double price;
+
+    // Changed only by SQL (StockService, StockLedger flush): saving an edited entity must
+    // not write back a quantity read before concurrent deductions
+    @Column(updatable = false)
     private int quantity;
     private String category;
     private String description;
@@ -21,6 +30,10 @@ public class Item {
     @Column(length = 500)
     private String imageUrl;
 
+    // Change version, bumped by SQL each time a change event is published for the item
+    @Column(nullable = false, insertable = false, updatable = false, columnDefinition = "bigint default 0")
+    private long version;
+
     public Item() {}
 
     public Item(String name, Double price, int quantity, String category, String description, String imageUrl) {
@@ -58,4 +71,7 @@ public class Item {
     // Image URL
     public String getImageUrl() { return imageUrl; }
     public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
+
+    // Change version (read-only, see ItemEventPublisher)
+    public long getVersion() { return version; }
 }
\ No newline at end of file
@@ -0,0 +1,8 @@
+package com.supermarket.supermarket_system.models;
+
+public enum ReservationStatus {
+    RESERVED,   // stock held, waiting for commit or release
+    COMMITTED,  // checkout completed, stock stays deducted
+    RELEASED,   // cancelled by the caller, stock given back
+    EXPIRED     // TTL elapsed before commit, stock given back
+}
@@ -0,0 +1,32 @@
+package com.supermarket.supermarket_system.models;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Single-row lease naming the Items instance whose stock ledger may write quantities (see StockLedger).
+// Written with plain SQL against the database clock; the entity only defines the table.
+@Entity
+@Table(name = "stock_ledger_owner")
+public class StockLedgerOwner {
+
+    public static final Long ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String owner;
+
+    // UTC, database clock
+    @Column(nullable = false, columnDefinition = "DATETIME(6)")
+    private LocalDateTime expiresAt;
+
+    public StockLedgerOwner() {}
+
+    public Long getId() { return id; }
+
+    public String getOwner() { return owner; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+}
@@ -0,0 +1,61 @@
+package com.supermarket.supermarket_system.models;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+// One line of a stock reservation: the quantity of one item held for a checkout.
+// All lines of a reservation share the same reservationId, status and expiry.
+@Entity
+@Table(name = "stock_reservations",
+        uniqueConstraints = @UniqueConstraint(name = "uk_reservation_item", columnNames = {"reservationId", "itemId"}),
+        indexes = @Index(name = "idx_reservation_status_expiry", columnList = "status, expiresAt"))
+public class StockReservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String reservationId;
+
+    @Column(nullable = false)
+    private Long itemId;
+
+    private int quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ReservationStatus status;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    public StockReservation() {}
+
+    public StockReservation(String reservationId, Long itemId, int quantity, Instant expiresAt) {
+        this.reservationId = reservationId;
+        this.itemId = itemId;
+        this.quantity = quantity;
+        this.status = ReservationStatus.RESERVED;
+        this.expiresAt = expiresAt;
+        this.createdAt = Instant.now();
+    }
+
+    public Long getId() { return id; }
+
+    public String getReservationId() { return reservationId; }
+
+    public Long getItemId() { return itemId; }
+
+    public int getQuantity() { return quantity; }
+
+    public ReservationStatus getStatus() { return status; }
+
+    public Instant getExpiresAt() { return expiresAt; }
+
+    public Instant getCreatedAt() { return createdAt; }
+}
@@ -0,0 +1,25 @@
+package com.supermarket.supermarket_system.models;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+// Marks a batch restore as applied, so a retried request with the same restoreId
+// (e.g. a cancelled order's restore job) never adds the stock back twice
+@Entity
+@Table(name = "stock_restores")
+public class StockRestore {
+
+    @Id
+    @Column(length = 64)
+    private String restoreId;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    public StockRestore() {}
+
+    public String getRestoreId() { return restoreId; }
+
+    public Instant getCreatedAt() { return createdAt; }
+}
@@ -0,0 +1,20 @@
+package com.supermarket.supermarket_system.repositories;
+
+import com.supermarket.supermarket_system.models.CatalogVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CatalogVersionRepository extends JpaRepository<CatalogVersion, Long> {
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE CatalogVersion c SET c.version = c.version + 1 WHERE c.id = 1")
+    int bump();
+
+    @Query("SELECT c.version FROM CatalogVersion c WHERE c.id = 1")
+    Optional<Long> current();
+}
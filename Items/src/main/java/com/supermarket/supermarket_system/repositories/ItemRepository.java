@@ -2,10 +2,52 @@ package com.supermarket.supermarket_system.repositories;
 
 import com.supermarket.supermarket_system.models.Item; // The JPA entity we want to manage
 import org.springframework.data.jpa.repository.JpaRepository; // Spring Data interface for DB operations
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository; // Marks this as a Spring-managed bean
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Long> {
-}
\ No newline at end of file
+
+    // Atomic conditional decrement: returns 1 if the stock was deducted,
+    // 0 if the item does not exist or does not have enough quantity.
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Item i SET i.quantity = i.quantity - :quantity WHERE i.id = :id AND i.quantity >= :quantity")
+    int deductIfAvailable(@Param("id") Long id, @Param("quantity") int quantity);
+
+    // Atomic increment: returns 1 if the stock was restored, 0 if the item does not exist.
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Item i SET i.quantity = i.quantity + :quantity WHERE i.id = :id")
+    int restore(@Param("id") Long id, @Param("quantity") int quantity);
+
+    // Atomic change by a signed amount, never below zero (admin edits, see StockService.adjustQuantity).
+    // Flushes first, so a pending entity update of the same row is written before it.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Item i SET i.quantity = CASE WHEN i.quantity + :delta < 0 THEN 0 ELSE i.quantity + :delta END WHERE i.id = :id")
+    int adjustQuantity(@Param("id") Long id, @Param("delta") int delta);
+
+    // Reads only the current quantity, without loading the entity
+    @Query("SELECT i.quantity FROM Item i WHERE i.id = :id")
+    Optional<Integer> findQuantityById(@Param("id") Long id);
+
+    // (id, quantity) pairs of every item, used to load the in-memory stock ledger
+    @Query("SELECT i.id, i.quantity FROM Item i")
+    List<Object[]> findAllQuantities();
+
+    // Increments the change version of the given items (one step per published event)
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Item i SET i.version = i.version + 1 WHERE i.id IN :ids")
+    int bumpVersions(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT i.version FROM Item i WHERE i.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    // (id, version, quantity) triples, used for stock change events
+    @Query("SELECT i.id, i.version, i.quantity FROM Item i WHERE i.id IN :ids")
+    List<Object[]> findStockStates(@Param("ids") Collection<Long> ids);
+}
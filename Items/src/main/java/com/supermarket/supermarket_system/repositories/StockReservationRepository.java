@@ -0,0 +1,37 @@
+package com.supermarket.supermarket_system.repositories;
+
+import com.supermarket.supermarket_system.models.ReservationStatus;
+import com.supermarket.supermarket_system.models.StockReservation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    List<StockReservation> findByReservationId(String reservationId);
+
+    // Moves every line of a reservation from one status to another; returns 0 if
+    // the reservation was not in the expected status (already committed, released...)
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE StockReservation r SET r.status = :to WHERE r.reservationId = :reservationId AND r.status = :from")
+    int transition(@Param("reservationId") String reservationId,
+                   @Param("from") ReservationStatus from,
+                   @Param("to") ReservationStatus to);
+
+    // (reservationId, expiresAt) of every reservation in the given status, to rebuild the expiry index
+    @Query("SELECT r.reservationId, MIN(r.expiresAt) FROM StockReservation r WHERE r.status = :status GROUP BY r.reservationId")
+    List<Object[]> findDeadlinesByStatus(@Param("status") ReservationStatus status);
+
+    // Uses idx_reservation_status_expiry
+    @Query("SELECT DISTINCT r.reservationId FROM StockReservation r WHERE r.status = :status AND r.expiresAt <= :now")
+    List<String> findExpiredReservationIds(@Param("status") ReservationStatus status,
+                                           @Param("now") Instant now,
+                                           Pageable pageable);
+}
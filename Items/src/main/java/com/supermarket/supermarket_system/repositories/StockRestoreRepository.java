@@ -0,0 +1,19 @@
+package com.supermarket.supermarket_system.repositories;
+
+import com.supermarket.supermarket_system.models.StockRestore;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface StockRestoreRepository extends JpaRepository<StockRestore, String> {
+
+    // Returns 1 if the restore id is new, 0 if it was already applied
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO stock_restores (restore_id, created_at) VALUES (:restoreId, :now)", nativeQuery = true)
+    int claim(@Param("restoreId") String restoreId, @Param("now") Instant now);
+}
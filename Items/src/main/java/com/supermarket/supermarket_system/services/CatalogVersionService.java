@@ -0,0 +1,57 @@
+package com.supermarket.supermarket_system.services;
+
+import com.supermarket.supermarket_system.models.CatalogVersion;
+import com.supermarket.supermarket_system.repositories.CatalogVersionRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Catalog-wide version, bumped in the same transaction as every per-item version
+ * bump (see ItemEventPublisher and StockChangeCoalescer), and the ETags built on it.
+ * For admin changes that is the transaction writing the item (ItemService), so no
+ * reader can see the new item under the old catalog ETag.
+ */
+@Service
+public class CatalogVersionService {
+
+    @Autowired
+    private CatalogVersionRepository catalogVersionRepository;
+
+    @PostConstruct
+    void ensureRow() {
+        if (catalogVersionRepository.existsById(CatalogVersion.ID)) {
+            return;
+        }
+        try {
+            catalogVersionRepository.save(new CatalogVersion(CatalogVersion.ID, 0));
+        } catch (DataIntegrityViolationException e) {
+            // Another node created it first
+        }
+    }
+
+    // Must run inside the transaction that changes the catalog
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void bump() {
+        catalogVersionRepository.bump();
+    }
+
+    public long current() {
+        return catalogVersionRepository.current().orElse(0L);
+    }
+
+    // ----------------------
+    // STRONG ETAGS
+    // ----------------------
+
+    public String catalogEtag() {
+        return "\"catalog-" + current() + "\"";
+    }
+
+    public static String itemEtag(Long itemId, long version) {
+        return "\"item-" + itemId + "-" + version + "\"";
+    }
+}
@@ -0,0 +1,103 @@
+package com.supermarket.supermarket_system.services;
+
+import com.supermarket.common.outbox.OutboxService;
+import com.supermarket.common.messaging.JacksonCborMessageConverter;
+import com.supermarket.supermarket_system.models.Item;
+import com.supermarket.supermarket_system.repositories.ItemRepository;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes item change events to the items.events fanout exchange.
+ *
+ * Every event carries a per-item version taken from items.version, which is bumped
+ * in the database for each event, so consumers can drop events older than what they
+ * already have. Events go through the outbox in the same transaction as the
+ * version bump, so an event is published if and only if that transaction commits.
+ * itemSaved and itemDeleted only run inside the transaction that writes the item
+ * (see ItemService), so the item, its versions and the catalog version commit together.
+ *
+ * Event shape: {"type", "itemId", "version", "occurredAt", ...}
+ * - CREATED / UPDATED: name, price, quantity, category, imageUrl
+ * - STOCK_CHANGED: quantity (coalesced, see StockChangeCoalescer)
+ * - DELETED: no extra fields
+ */
+@Service
+public class ItemEventPublisher {
+
+    public static final String CREATED = "CREATED";
+    public static final String UPDATED = "UPDATED";
+    public static final String DELETED = "DELETED";
+    public static final String STOCK_CHANGED = "STOCK_CHANGED";
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Value("${app.rabbitmq.item-events-exchange:items.events}")
+    private String itemEventsExchange;
+
+    // "json" or "cbor"; switch to cbor only once every consumer reads both content types
+    @Value("${app.messaging.item-events-format:json}")
+    private String itemEventsFormat;
+
+    // CREATED or UPDATED, with the item's current fields
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void itemSaved(String type, Item item) {
+        itemRepository.bumpVersions(List.of(item.getId()));
+        catalogVersionService.bump();
+        long version = itemRepository.findVersionById(item.getId()).orElse(0L);
+
+        Map<String, Object> event = baseEvent(type, item.getId(), version);
+        event.put("name", item.getName());
+        event.put("price", item.getPrice());
+        event.put("quantity", item.getQuantity());
+        event.put("category", item.getCategory());
+        event.put("imageUrl", item.getImageUrl());
+        send(event);
+    }
+
+    // The row is gone, so the version is the last one seen before deleting it plus one
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void itemDeleted(Long itemId, long lastVersion) {
+        catalogVersionService.bump();
+        send(baseEvent(DELETED, itemId, lastVersion + 1));
+    }
+
+    // Must run inside the transaction that bumped the version (see StockChangeCoalescer)
+    public void stockChanged(Long itemId, long version, int quantity) {
+        Map<String, Object> event = baseEvent(STOCK_CHANGED, itemId, version);
+        event.put("quantity", quantity);
+        send(event);
+    }
+
+    private Map<String, Object> baseEvent(String type, Long itemId, long version) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("type", type);
+        event.put("itemId", itemId);
+        event.put("version", version);
+        event.put("occurredAt", System.currentTimeMillis());
+        return event;
+    }
+
+    private void send(Map<String, Object> event) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType("cbor".equals(itemEventsFormat)
+                ? JacksonCborMessageConverter.CONTENT_TYPE
+                : MessageProperties.CONTENT_TYPE_JSON);
+        outboxService.enqueue(itemEventsExchange, "", event, properties);
+    }
+}
@@ -0,0 +1,220 @@
+package com.supermarket.supermarket_system.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keyset-paginated item listing with filters and sparse field projection.
+ *
+ * Pages are ordered by (sort column, id), and the cursor holds the sort value and id
+ * of the last row returned, so every page is an index range scan whatever its depth.
+ * Only the requested columns are read from the database.
+ *
+ * Response shape: {"items": [{field: value, ...}], "nextCursor": str | null, "limit": int}
+ */
+@Service
+public class ItemQueryService {
+
+    // API field name → column, in output order
+    private static final Map<String, String> COLUMNS = new LinkedHashMap<>();
+    static {
+        COLUMNS.put("id", "id");
+        COLUMNS.put("name", "name");
+        COLUMNS.put("price", "price");
+        COLUMNS.put("quantity", "quantity");
+        COLUMNS.put("category", "category");
+        COLUMNS.put("description", "description");
+        COLUMNS.put("imageUrl", "image_url");
+        COLUMNS.put("version", "version");
+    }
+
+    // Sortable fields; each one is backed by an index ending in the primary key
+    private static final Set<String> SORTABLE = Set.of("id", "name", "price");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StockService stockService;
+
+    @Value("${app.items.page.default-limit:50}")
+    private int defaultLimit;
+
+    @Value("${app.items.page.max-limit:200}")
+    private int maxLimit;
+
+    /**
+     * @param sort   "id", "name" or "price", prefixed with "-" for descending order (default "id")
+     * @param fields Comma-separated field names to return (default: all)
+     * @throws IllegalArgumentException on an unknown field, sort key or a malformed cursor
+     */
+    public Map<String, Object> findPage(String category, Double minPrice, Double maxPrice,
+                                        String sort, String fields, Integer limit, String cursor) {
+        boolean descending = sort != null && sort.startsWith("-");
+        String sortField = sort == null || sort.isBlank() ? "id" : (descending ? sort.substring(1) : sort);
+        if (!SORTABLE.contains(sortField)) {
+            throw new IllegalArgumentException("sort must be one of id, name, price (prefix with - for descending)");
+        }
+        String sortColumn = COLUMNS.get(sortField);
+
+        Set<String> projection = parseFields(fields);
+        int pageSize = Math.min(Math.max(1, limit == null ? defaultLimit : limit), maxLimit);
+
+        // id and the sort column are always read, to build the cursor
+        Set<String> selected = new LinkedHashSet<>(projection);
+        selected.add("id");
+        selected.add(sortField);
+
+        StringBuilder sql = new StringBuilder("SELECT ");
+        sql.append(String.join(", ", selected.stream().map(COLUMNS::get).toList()));
+        sql.append(" FROM items WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+
+        if (category != null && !category.isBlank()) {
+            sql.append(" AND category = ?");
+            args.add(category);
+        }
+        if (minPrice != null) {
+            sql.append(" AND price >= ?");
+            args.add(minPrice);
+        }
+        if (maxPrice != null) {
+            sql.append(" AND price <= ?");
+            args.add(maxPrice);
+        }
+        if ("price".equals(sortField)) {
+            // Items without a price cannot be ordered by it (and cannot be sold)
+            sql.append(" AND price IS NOT NULL");
+        }
+
+        if (cursor != null && !cursor.isBlank()) {
+            Object[] position = decodeCursor(cursor, sortField, descending);
+            String op = descending ? "<" : ">";
+            if ("id".equals(sortField)) {
+                sql.append(" AND id ").append(op).append(" ?");
+                args.add(position[1]);
+            } else {
+                sql.append(" AND (").append(sortColumn).append(' ').append(op).append(" ? OR (")
+                        .append(sortColumn).append(" = ? AND id ").append(op).append(" ?))");
+                args.add(position[0]);
+                args.add(position[0]);
+                args.add(position[1]);
+            }
+        }
+
+        String direction = descending ? " DESC" : " ASC";
+        sql.append(" ORDER BY ");
+        if (!"id".equals(sortField)) {
+            sql.append(sortColumn).append(direction).append(", ");
+        }
+        sql.append("id").append(direction);
+        sql.append(" LIMIT ?");
+        args.add(pageSize + 1); // one extra row tells whether there is a next page
+
+        List<Map<String, Object>> rows = jdbcTemplate.query(sql.toString(),
+                (rs, rowNum) -> readRow(rs, selected), args.toArray());
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            Map<String, Object> last = rows.get(pageSize - 1);
+            nextCursor = encodeCursor(sortField, descending, last.get(sortField), (Long) last.get("id"));
+        }
+
+        List<Map<String, Object>> items = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            if (projection.contains("quantity") && stockService.isLedgerEnabled()) {
+                row.put("quantity", stockService.currentQuantity((Long) row.get("id")));
+            }
+            row.keySet().retainAll(projection);
+            items.add(row);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("items", items);
+        response.put("nextCursor", nextCursor);
+        response.put("limit", pageSize);
+        return response;
+    }
+
+    private Set<String> parseFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return COLUMNS.keySet();
+        }
+        Set<String> projection = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (!COLUMNS.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name);
+            }
+            projection.add(name);
+        }
+        return projection;
+    }
+
+    private Map<String, Object> readRow(ResultSet rs, Set<String> selected) throws SQLException {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (String field : selected) {
+            switch (field) {
+                case "id", "version" -> row.put(field, rs.getLong(COLUMNS.get(field)));
+                case "quantity" -> row.put(field, rs.getInt(COLUMNS.get(field)));
+                case "price" -> {
+                    double price = rs.getDouble("price");
+                    row.put(field, rs.wasNull() ? null : price);
+                }
+                default -> row.put(field, rs.getString(COLUMNS.get(field)));
+            }
+        }
+        return row;
+    }
+
+    // ----------------------
+    // CURSOR: base64url("sort|direction|id|value")
+    // ----------------------
+
+    private String encodeCursor(String sortField, boolean descending, Object sortValue, Long id) {
+        String raw = sortField + "|" + (descending ? "desc" : "asc") + "|" + id + "|" + sortValue;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Returns {sort value, id}
+    private Object[] decodeCursor(String cursor, String sortField, boolean descending) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 4);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        if (parts.length != 4
+                || !parts[0].equals(sortField)
+                || !parts[1].equals(descending ? "desc" : "asc")) {
+            throw new IllegalArgumentException("Cursor does not match the requested sort");
+        }
+
+        try {
+            Long id = Long.parseLong(parts[2]);
+            Object value = switch (sortField) {
+                case "price" -> Double.parseDouble(parts[3]);
+                case "id" -> id;
+                default -> parts[3];
+            };
+            return new Object[]{value, id};
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.supermarket.supermarket_system.services;
+
+import com.supermarket.supermarket_system.models.Item;
+import com.supermarket.supermarket_system.repositories.ItemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-process inverted index over item name, category and description.
+ *
+ * Terms are lower-cased, accent-free alphanumeric tokens kept in a sorted dictionary,
+ * so the last (still being typed) word of a query is matched as a prefix. Every query
+ * word must match. Hits are ranked by field weight (name > category > description)
+ * times inverse document frequency; prefix matches count for less than whole words.
+ *
+ * Built at startup from {@link ItemRepository} and updated on create, update and delete.
+ */
+@Component
+public class ItemSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemSearchIndex.class);
+
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{Alnum}]+");
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+
+    private static final float NAME_WEIGHT = 3f;
+    private static final float CATEGORY_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+    private static final float PREFIX_FACTOR = 0.5f;
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term → (item id → weight of the term in that item)
+    private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private final Map<Long, IndexedItem> items = new HashMap<>();
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    // Bounds the work done for one-letter prefixes
+    @Value("${app.items.search.max-prefix-terms:200}")
+    private int maxPrefixTerms;
+
+    @Value("${app.items.search.max-results:50}")
+    private int maxResults;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long start = System.currentTimeMillis();
+        int page = 0;
+        Page<Item> batch;
+        do {
+            batch = itemRepository.findAll(PageRequest.of(page++, LOAD_BATCH_SIZE, Sort.by("id")));
+            batch.forEach(this::index);
+        } while (batch.hasNext());
+        log.info("Item search index built with {} items and {} terms in {} ms",
+                size(), termCount(), System.currentTimeMillis() - start);
+    }
+
+    // Adds or replaces an item
+    public void index(Item item) {
+        Map<String, Float> weights = new HashMap<>();
+        addTerms(weights, item.getName(), NAME_WEIGHT);
+        addTerms(weights, item.getCategory(), CATEGORY_WEIGHT);
+        addTerms(weights, item.getDescription(), DESCRIPTION_WEIGHT);
+
+        IndexedItem indexed = new IndexedItem(item.getId(), item.getName(), item.getPrice(),
+                item.getCategory(), item.getImageUrl(), weights.keySet().toArray(new String[0]));
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(item.getId());
+            items.put(item.getId(), indexed);
+            weights.forEach((term, weight) ->
+                    postings.computeIfAbsent(term, t -> new HashMap<>()).put(item.getId(), weight));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long itemId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ranked search; the last query word is matched as a prefix.
+     *
+     * @return Up to {@code limit} hits, best first: {"id", "name", "price", "category", "imageUrl", "score"}
+     */
+    public List<Map<String, Object>> search(String query, int limit) {
+        List<String> words = tokenize(query);
+        int size = Math.min(Math.max(1, limit), maxResults);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int total = items.size();
+            Map<Long, Float> scores = null;
+
+            for (int i = 0; i < words.size(); i++) {
+                boolean prefix = i == words.size() - 1;
+                Map<Long, Float> wordScores = scoreWord(words.get(i), prefix, total);
+                // Every word must match: keep the intersection, summing scores
+                if (scores == null) {
+                    scores = wordScores;
+                } else {
+                    Map<Long, Float> merged = new HashMap<>();
+                    for (Map.Entry<Long, Float> e : scores.entrySet()) {
+                        Float other = wordScores.get(e.getKey());
+                        if (other != null) {
+                            merged.put(e.getKey(), e.getValue() + other);
+                        }
+                    }
+                    scores = merged;
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            // Top-k by score, ties broken by id for stable results
+            Comparator<Map.Entry<Long, Float>> worstFirst = Map.Entry.<Long, Float>comparingByValue()
+                    .thenComparing(Map.Entry.<Long, Float>comparingByKey().reversed());
+            PriorityQueue<Map.Entry<Long, Float>> top = new PriorityQueue<>(size + 1, worstFirst);
+            for (Map.Entry<Long, Float> e : scores.entrySet()) {
+                top.offer(e);
+                if (top.size() > size) {
+                    top.poll();
+                }
+            }
+
+            List<Map<String, Object>> results = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                Map.Entry<Long, Float> hit = top.poll();
+                results.add(0, items.get(hit.getKey()).toResult(hit.getValue()));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Best score of each item for one query word (exact term, or any term it prefixes)
+    private Map<Long, Float> scoreWord(String word, boolean prefix, int totalItems) {
+        Map<Long, Float> scores = new HashMap<>();
+        if (!prefix) {
+            addPostings(scores, word, 1f, totalItems);
+            return scores;
+        }
+
+        int expanded = 0;
+        for (String term : postings.subMap(word, true, word + Character.MAX_VALUE, false).keySet()) {
+            addPostings(scores, term, term.equals(word) ? 1f : PREFIX_FACTOR, totalItems);
+            if (++expanded == maxPrefixTerms) {
+                break;
+            }
+        }
+        return scores;
+    }
+
+    private void addPostings(Map<Long, Float> scores, String term, float factor, int totalItems) {
+        Map<Long, Float> posting = postings.get(term);
+        if (posting == null) {
+            return;
+        }
+        float idf = (float) Math.log(1.0 + (double) totalItems / posting.size());
+        for (Map.Entry<Long, Float> e : posting.entrySet()) {
+            scores.merge(e.getKey(), e.getValue() * factor * idf, Math::max);
+        }
+    }
+
+    private void removeLocked(Long itemId) {
+        IndexedItem previous = items.remove(itemId);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous.terms) {
+            Map<Long, Float> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(itemId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private static void addTerms(Map<String, Float> weights, String text, float weight) {
+        for (String term : tokenize(text)) {
+            weights.merge(term, weight, Float::sum);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+        String normalized = ACCENTS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        for (String token : NON_ALPHANUMERIC.split(normalized.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return items.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // What a search hit returns, kept so results never touch the database
+    private static final class IndexedItem {
+        private final Long id;
+        private final String name;
+        private final Double price;
+        private final String category;
+        private final String imageUrl;
+        private final String[] terms;
+
+        private IndexedItem(Long id, String name, Double price, String category, String imageUrl, String[] terms) {
+            this.id = id;
+            this.name = name;
+            this.price = price;
+            this.category = category;
+            this.imageUrl = imageUrl;
+            this.terms = terms;
+        }
+
+        private Map<String, Object> toResult(float score) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("id", id);
+            result.put("name", name);
+            result.put("price", price);
+            result.put("category", category);
+            result.put("imageUrl", imageUrl);
+            result.put("score", score);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.supermarket.supermarket_system.services;
+
+import com.supermarket.supermarket_system.models.Item;
+import com.supermarket.supermarket_system.repositories.ItemRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+/**
+ * Admin changes to the catalog (create, update, delete).
+ *
+ * The item row and its change event (an outbox row, see ItemEventPublisher) are
+ * written in one transaction, so the event is published if and only if the change
+ * commits. A quantity edit is applied as a change on top of the current stock (see
+ * StockService.adjustQuantity), never as an overwrite. The search index, and the
+ * stock ledger for new and deleted items, are updated by the caller after the commit.
+ */
+@Service
+public class ItemService {
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private ItemEventPublisher itemEventPublisher;
+
+    @Transactional
+    public Item create(Item item) {
+        Item saved = itemRepository.save(item);
+        itemEventPublisher.itemSaved(ItemEventPublisher.CREATED, saved);
+        return saved;
+    }
+
+    // Applies the non-null fields of the request; null if there is no such item
+    @Transactional
+    public Item update(Long id, Map<String, Object> body) {
+        Item item = itemRepository.findById(id).orElse(null);
+        if (item == null) {
+            return null;
+        }
+
+        // The stock ledger may hold a newer quantity than the loaded row
+        stockService.refreshQuantity(item);
+        if (body.get("name") != null) {
+            item.setName((String) body.get("name"));
+        }
+        if (body.get("price") != null) {
+            item.setPrice(((Number) body.get("price")).doubleValue());
+        }
+        if (body.get("category") != null) {
+            item.setCategory((String) body.get("category"));
+        }
+        if (body.get("description") != null) {
+            item.setDescription((String) body.get("description"));
+        }
+
+        Item saved = itemRepository.save(item);
+        if (body.get("quantity") != null) {
+            // Only what the admin changed relative to the quantity read above
+            int delta = ((Number) body.get("quantity")).intValue() - item.getQuantity();
+            saved.setQuantity(stockService.adjustQuantity(id, delta));
+        }
+        itemEventPublisher.itemSaved(ItemEventPublisher.UPDATED, saved);
+        return saved;
+    }
+
+    @Transactional
+    public void delete(Long id) {
+        Long lastVersion = itemRepository.findVersionById(id).orElse(null);
+        itemRepository.deleteById(id);
+        if (lastVersion != null) {
+            itemEventPublisher.itemDeleted(id, lastVersion);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.supermarket.supermarket_system.services;
+
+import com.supermarket.supermarket_system.models.ReservationStatus;
+import com.supermarket.supermarket_system.models.StockReservation;
+import com.supermarket.supermarket_system.repositories.StockReservationRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stock reservations for checkout: reserve, then commit or release.
+ *
+ * Reserving takes the stock out of the available quantity right away (so availability
+ * answers stay accurate) and records one row per item in stock_reservations.
+ * A reservation that is neither committed nor released before its TTL expires gives
+ * its stock back automatically. Expiry is driven by an in-memory timer wheel, rebuilt
+ * from the table at startup, with a slower table sweep as a backstop for reservations
+ * created on other nodes.
+ *
+ * Every operation is idempotent for a given reservationId.
+ */
+@Service
+public class ReservationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationService.class);
+
+    private final StockReservationRepository reservationRepository;
+    private final StockService stockService;
+    private final TransactionTemplate transactionTemplate;
+    private final ReservationTimerWheel timerWheel;
+
+    @Value("${app.stock.reservation.default-ttl-seconds:600}")
+    private long defaultTtlSeconds;
+
+    @Value("${app.stock.reservation.max-ttl-seconds:3600}")
+    private long maxTtlSeconds;
+
+    @Value("${app.stock.reservation.sweep-batch-size:500}")
+    private int sweepBatchSize;
+
+    @Autowired
+    public ReservationService(StockReservationRepository reservationRepository,
+                              StockService stockService,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${app.stock.reservation.tick-ms:1000}") long tickMillis,
+                              @Value("${app.stock.reservation.wheel-size:512}") int wheelSize) {
+        this.reservationRepository = reservationRepository;
+        this.stockService = stockService;
+        this.transactionTemplate = transactionTemplate;
+        this.timerWheel = new ReservationTimerWheel(tickMillis, wheelSize, System.currentTimeMillis());
+    }
+
+    // Rebuilds the expiry index from the open reservations left in the table
+    @PostConstruct
+    void loadOpenReservations() {
+        for (Object[] row : reservationRepository.findDeadlinesByStatus(ReservationStatus.RESERVED)) {
+            timerWheel.schedule((String) row[0], ((Instant) row[1]).toEpochMilli());
+        }
+        log.info("Loaded {} open stock reservations", timerWheel.size());
+    }
+
+    /**
+     * Holds stock for every line of the request until commit, release or expiry.
+     *
+     * Request shape: {"reservationId": str, "ttlSeconds": int (optional), "items": [{"itemId": 1, "quantity": 2}, ...]}
+     * Response shape: {"success": bool, "message": str, "reservationId": str, "status": str, "expiresAt": str, "results": [...]}
+     */
+    public Map<String, Object> reserve(Map<String, Object> request) {
+        Map<String, Object> response = new HashMap<>();
+
+        Object reservationIdObj = request == null ? null : request.get("reservationId");
+        if (!(reservationIdObj instanceof String reservationId) || reservationId.isBlank() || reservationId.length() > 64) {
+            response.put("success", false);
+            response.put("message", "Invalid request: reservationId must be a non-empty string of at most 64 characters");
+            return response;
+        }
+
+        long ttlSeconds = defaultTtlSeconds;
+        if (request.get("ttlSeconds") instanceof Number ttlNum) {
+            ttlSeconds = Math.min(Math.max(1, ttlNum.longValue()), maxTtlSeconds);
+        }
+        Instant expiresAt = Instant.now().plusSeconds(ttlSeconds);
+
+        // A retried reserve returns the outcome of the first one
+        List<StockReservation> existing = reservationRepository.findByReservationId(reservationId);
+        if (!existing.isEmpty()) {
+            return describe(reservationId, existing);
+        }
+
+        boolean[] deducted = {false};
+        Map<String, Object> result;
+        try {
+            result = transactionTemplate.execute(status -> {
+                Map<String, Object> deduction = stockService.deductBatch(request);
+                if (!Boolean.TRUE.equals(deduction.get("success"))) {
+                    status.setRollbackOnly();
+                    return deduction;
+                }
+                deducted[0] = true;
+
+                Map<Long, Integer> perItem = new HashMap<>();
+                for (Object line : (List<?>) deduction.get("results")) {
+                    Map<?, ?> lineResult = (Map<?, ?>) line;
+                    perItem.merge((Long) lineResult.get("itemId"), (Integer) lineResult.get("quantity"), Integer::sum);
+                }
+                List<StockReservation> rows = new ArrayList<>();
+                perItem.forEach((itemId, quantity) -> rows.add(new StockReservation(reservationId, itemId, quantity, expiresAt)));
+                reservationRepository.saveAllAndFlush(rows);
+                return deduction;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Lost a race with a concurrent reserve using the same reservationId
+            if (deducted[0]) {
+                compensateLedger(request);
+            }
+            return describe(reservationId, reservationRepository.findByReservationId(reservationId));
+        } catch (RuntimeException e) {
+            if (deducted[0]) {
+                compensateLedger(request);
+            }
+            throw e;
+        }
+
+        if (!Boolean.TRUE.equals(result.get("success"))) {
+            result.put("reservationId", reservationId);
+            return result;
+        }
+
+        timerWheel.schedule(reservationId, expiresAt.toEpochMilli());
+
+        result.put("message", "Stock reserved successfully");
+        result.put("reservationId", reservationId);
+        result.put("status", ReservationStatus.RESERVED.name());
+        result.put("expiresAt", expiresAt.toString());
+        return result;
+    }
+
+    // Makes the reservation final: the stock stays deducted
+    public Map<String, Object> commit(String reservationId) {
+        Integer updated = transactionTemplate.execute(status ->
+                reservationRepository.transition(reservationId, ReservationStatus.RESERVED, ReservationStatus.COMMITTED));
+        if (updated != null && updated > 0) {
+            timerWheel.cancel(reservationId);
+        }
+        return outcome(reservationId, ReservationStatus.COMMITTED);
+    }
+
+    // Cancels the reservation and gives its stock back
+    public Map<String, Object> release(String reservationId) {
+        giveBack(reservationId, ReservationStatus.RELEASED);
+        return outcome(reservationId, ReservationStatus.RELEASED);
+    }
+
+    // ----------------------
+    // EXPIRY
+    // ----------------------
+
+    @Scheduled(fixedDelayString = "${app.stock.reservation.tick-ms:1000}")
+    public void expireDue() {
+        for (String reservationId : timerWheel.advance(System.currentTimeMillis())) {
+            expire(reservationId);
+        }
+    }
+
+    // Catches reservations this node has no timer for (created on another node that went away)
+    @Scheduled(fixedDelayString = "${app.stock.reservation.backstop-sweep-ms:60000}")
+    public void sweepExpired() {
+        List<String> expired = reservationRepository.findExpiredReservationIds(
+                ReservationStatus.RESERVED, Instant.now(), PageRequest.of(0, sweepBatchSize));
+        expired.forEach(this::expire);
+    }
+
+    private void expire(String reservationId) {
+        try {
+            if (giveBack(reservationId, ReservationStatus.EXPIRED)) {
+                log.info("Stock reservation {} expired, stock restored", reservationId);
+            }
+        } catch (RuntimeException e) {
+            // The backstop sweep will retry it
+            log.error("Failed to expire stock reservation {}", reservationId, e);
+        }
+    }
+
+    // Moves an open reservation to RELEASED / EXPIRED and restores its stock, exactly once
+    private boolean giveBack(String reservationId, ReservationStatus to) {
+        Boolean restored = transactionTemplate.execute(status -> {
+            List<StockReservation> lines = reservationRepository.findByReservationId(reservationId);
+            if (reservationRepository.transition(reservationId, ReservationStatus.RESERVED, to) == 0) {
+                return false;
+            }
+            for (StockReservation line : lines) {
+                stockService.restore(line.getItemId(), line.getQuantity());
+            }
+            return true;
+        });
+        timerWheel.cancel(reservationId);
+        return Boolean.TRUE.equals(restored);
+    }
+
+    // With the in-memory ledger the deduction is not part of the DB transaction, undo it by hand
+    private void compensateLedger(Map<String, Object> request) {
+        if (!stockService.isLedgerEnabled()) {
+            return;
+        }
+        for (Object line : (List<?>) request.get("items")) {
+            Map<?, ?> item = (Map<?, ?>) line;
+            stockService.restore(((Number) item.get("itemId")).longValue(), ((Number) item.get("quantity")).intValue());
+        }
+    }
+
+    // ----------------------
+    // RESPONSES
+    // ----------------------
+
+    private Map<String, Object> outcome(String reservationId, ReservationStatus expected) {
+        List<StockReservation> lines = reservationRepository.findByReservationId(reservationId);
+        Map<String, Object> response = describe(reservationId, lines);
+        if (lines.isEmpty()) {
+            return response;
+        }
+        ReservationStatus actual = lines.get(0).getStatus();
+        boolean success = actual == expected;
+        response.put("success", success);
+        response.put("message", success
+                ? "Reservation " + expected.name().toLowerCase()
+                : "Reservation is already " + actual.name().toLowerCase());
+        return response;
+    }
+
+    private Map<String, Object> describe(String reservationId, List<StockReservation> lines) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("reservationId", reservationId);
+        if (lines.isEmpty()) {
+            response.put("success", false);
+            response.put("notFound", true);
+            response.put("message", "Reservation not found");
+            return response;
+        }
+
+        StockReservation first = lines.get(0);
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (StockReservation line : lines) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("itemId", line.getItemId());
+            result.put("quantity", line.getQuantity());
+            results.add(result);
+        }
+
+        response.put("success", first.getStatus() != ReservationStatus.RELEASED
+                && first.getStatus() != ReservationStatus.EXPIRED);
+        response.put("message", "Reservation is " + first.getStatus().name().toLowerCase());
+        response.put("status", first.getStatus().name());
+        response.put("expiresAt", first.getExpiresAt().toString());
+        response.put("results", results);
+        return response;
+    }
+}
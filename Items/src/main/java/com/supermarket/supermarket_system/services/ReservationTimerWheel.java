@@ -0,0 +1,82 @@
+package com.supermarket.supermarket_system.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed timer wheel holding the expiry deadline of every open reservation.
+ *
+ * A deadline falls into bucket (deadline / tick) mod size. Scheduling and cancelling
+ * are O(1); each {@link #advance(long)} only visits the buckets of the ticks that
+ * fully elapsed since the previous call. Deadlines more than one revolution away stay in their
+ * bucket until the wheel comes round to them again.
+ */
+class ReservationTimerWheel {
+
+    private final long tickMillis;
+    private final int mask;
+    private final List<Map<String, Long>> buckets;
+    private final Map<String, Integer> bucketOf = new HashMap<>();
+
+    private long currentTick; // last tick that has fully elapsed and been swept
+
+    ReservationTimerWheel(long tickMillis, int size, long nowMillis) {
+        int capacity = Integer.highestOneBit(Math.max(1, size - 1)) << 1; // next power of two
+        this.tickMillis = tickMillis;
+        this.mask = capacity - 1;
+        this.buckets = new ArrayList<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            buckets.add(new HashMap<>());
+        }
+        this.currentTick = nowMillis / tickMillis - 1;
+    }
+
+    synchronized void schedule(String reservationId, long deadlineMillis) {
+        cancel(reservationId);
+        // Overdue deadlines go into the next bucket to be visited
+        long tick = Math.max(deadlineMillis / tickMillis, currentTick + 1);
+        int bucket = (int) (tick & mask);
+        buckets.get(bucket).put(reservationId, deadlineMillis);
+        bucketOf.put(reservationId, bucket);
+    }
+
+    synchronized void cancel(String reservationId) {
+        Integer bucket = bucketOf.remove(reservationId);
+        if (bucket != null) {
+            buckets.get(bucket).remove(reservationId);
+        }
+    }
+
+    // Removes and returns every reservation whose deadline is at or before now
+    synchronized List<String> advance(long nowMillis) {
+        List<String> expired = new ArrayList<>();
+        long nowTick = nowMillis / tickMillis - 1;
+        if (nowTick <= currentTick) {
+            return expired;
+        }
+
+        // After a long pause a single pass over the whole wheel is enough
+        long ticks = Math.min(nowTick - currentTick, buckets.size());
+        for (long t = 1; t <= ticks; t++) {
+            int bucket = (int) ((currentTick + t) & mask);
+            Iterator<Map.Entry<String, Long>> it = buckets.get(bucket).entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Long> entry = it.next();
+                if (entry.getValue() <= nowMillis) {
+                    it.remove();
+                    bucketOf.remove(entry.getKey());
+                    expired.add(entry.getKey());
+                }
+            }
+        }
+        currentTick = nowTick;
+        return expired;
+    }
+
+    synchronized int size() {
+        return bucketOf.size();
+    }
+}
@@ -0,0 +1,103 @@
+package com.supermarket.supermarket_system.services;
+
+import com.supermarket.supermarket_system.repositories.ItemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Turns the stream of deductions and restores into at most one STOCK_CHANGED
+ * event per item per interval, carrying the item's latest quantity.
+ */
+@Component
+public class StockChangeCoalescer {
+
+    private static final Logger log = LoggerFactory.getLogger(StockChangeCoalescer.class);
+
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+
+    private final ItemRepository itemRepository;
+    private final ItemEventPublisher itemEventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final StockLedger ledger; // null unless the ledger mode is enabled
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Value("${app.stock.events.batch-size:500}")
+    private int batchSize;
+
+    @Autowired
+    public StockChangeCoalescer(ItemRepository itemRepository,
+                                ItemEventPublisher itemEventPublisher,
+                                TransactionTemplate transactionTemplate,
+                                ObjectProvider<StockLedger> ledger) {
+        this.itemRepository = itemRepository;
+        this.itemEventPublisher = itemEventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.ledger = ledger.getIfAvailable();
+    }
+
+    // Only committed changes are recorded; fallbackExecution covers the ledger mode (no transaction)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        changed.add(event.itemId());
+    }
+
+    @Scheduled(fixedDelayString = "${app.stock.events.interval-ms:500}")
+    public void publishChanges() {
+        List<Long> batch = new ArrayList<>(Math.min(changed.size(), batchSize));
+        Iterator<Long> it = changed.iterator();
+        while (it.hasNext()) {
+            batch.add(it.next());
+            it.remove();
+            if (batch.size() == batchSize) {
+                if (!publish(batch)) {
+                    return;
+                }
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            publish(batch);
+        }
+    }
+
+    // On failure the ids go back into the set for the next run; the caller stops there,
+    // so it does not iterate over them again
+    private boolean publish(List<Long> itemIds) {
+        try {
+            publishBatch(itemIds);
+            return true;
+        } catch (RuntimeException e) {
+            changed.addAll(itemIds);
+            log.error("Publishing stock changes of {} items failed, will retry", itemIds.size(), e);
+            return false;
+        }
+    }
+
+    private void publishBatch(List<Long> itemIds) {
+        // One version step and one event per item, whatever the number of changes in between
+        transactionTemplate.executeWithoutResult(status -> {
+            itemRepository.bumpVersions(itemIds);
+            catalogVersionService.bump();
+            for (Object[] row : itemRepository.findStockStates(itemIds)) {
+                Long itemId = (Long) row[0];
+                int quantity = ledger != null ? (int) Math.max(0, ledger.quantity(itemId)) : (Integer) row[2];
+                itemEventPublisher.stockChanged(itemId, (Long) row[1], quantity);
+            }
+        });
+    }
+}
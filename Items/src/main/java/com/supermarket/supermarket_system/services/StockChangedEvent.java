@@ -0,0 +1,5 @@
+package com.supermarket.supermarket_system.services;
+
+// Raised by StockService whenever the quantity of an item changes
+public record StockChangedEvent(Long itemId) {
+}
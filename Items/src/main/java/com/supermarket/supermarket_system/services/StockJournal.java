@@ -0,0 +1,196 @@
+package com.supermarket.supermarket_system.services;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Append-only, segmented journal of stock ledger changes, used for crash recovery.
+ *
+ * Each record is 16 bytes: the item id followed by the packed (version, quantity)
+ * state written by the ledger. Records are written straight to the file channel,
+ * so they survive a process crash; {@link #force()} additionally syncs them to disk.
+ *
+ * Appends are spread over lanes by item id, each with its own lock and file, so
+ * deductions of different items do not queue behind one journal lock. All records
+ * of an item go to the same lane, and replay keeps the highest version per item,
+ * so the order between lanes does not matter.
+ *
+ * Segments are rotated on every flush and deleted once their content is in MySQL.
+ */
+class StockJournal implements Closeable {
+
+    static final int RECORD_SIZE = 16;
+
+    private static final String PREFIX = "stock-journal-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final Lane[] lanes;
+    private final int laneMask;
+
+    private long currentSegment;
+
+    StockJournal(Path directory, int lanes) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create stock journal directory " + directory, e);
+        }
+        int count = Integer.highestOneBit(Math.max(1, lanes - 1)) << 1; // next power of two
+        this.lanes = new Lane[count];
+        this.laneMask = count - 1;
+        for (int i = 0; i < count; i++) {
+            this.lanes[i] = new Lane(i);
+        }
+
+        List<Long> existing = new ArrayList<>(segmentFiles().keySet());
+        this.currentSegment = existing.isEmpty() ? 0 : existing.get(existing.size() - 1);
+    }
+
+    // Appends one change; called by the ledger after each successful update
+    void append(long itemId, long state) {
+        Lane lane = lanes[(int) (itemId ^ (itemId >>> 32)) & laneMask];
+        synchronized (lane) {
+            lane.record.clear();
+            lane.record.putLong(itemId).putLong(state).flip();
+            try {
+                while (lane.record.hasRemaining()) {
+                    lane.channel.write(lane.record);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to append to stock journal", e);
+            }
+        }
+    }
+
+    // Starts a new segment and returns its number; older segments can be deleted after a flush.
+    // Lanes switch one at a time: a record is in the old segment only if it was appended
+    // before this returns.
+    synchronized long rotate() {
+        currentSegment++;
+        for (Lane lane : lanes) {
+            synchronized (lane) {
+                lane.close();
+                try {
+                    lane.channel = FileChannel.open(segmentPath(currentSegment, lane.index),
+                            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to open stock journal segment", e);
+                }
+            }
+        }
+        return currentSegment;
+    }
+
+    synchronized void force() {
+        for (Lane lane : lanes) {
+            synchronized (lane) {
+                if (lane.channel == null) {
+                    continue;
+                }
+                try {
+                    lane.channel.force(false);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to sync stock journal", e);
+                }
+            }
+        }
+    }
+
+    // Deletes every segment strictly older than the given one
+    void deleteSegmentsBefore(long segment) {
+        segmentFiles().headMap(segment).values().forEach(files -> files.forEach(file -> {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to delete stock journal segment " + file, e);
+            }
+        }));
+    }
+
+    // Reads every record of every remaining segment, oldest segment first
+    void replay(RecordConsumer consumer) {
+        for (List<Path> files : segmentFiles().values()) {
+            for (Path file : files) {
+                try {
+                    ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+                    // A torn last record (crash mid-write) is ignored
+                    while (data.remaining() >= RECORD_SIZE) {
+                        consumer.accept(data.getLong(), data.getLong());
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to read stock journal segment " + file, e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        for (Lane lane : lanes) {
+            synchronized (lane) {
+                lane.close();
+            }
+        }
+    }
+
+    // Files by segment number ("stock-journal-<segment>-<lane>.log"; older files have no lane)
+    private TreeMap<Long, List<Path>> segmentFiles() {
+        TreeMap<Long, List<Path>> result = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path p : stream) {
+                String name = p.getFileName().toString();
+                String segment = name.substring(PREFIX.length(), name.length() - SUFFIX.length()).split("-")[0];
+                result.computeIfAbsent(Long.parseLong(segment), s -> new ArrayList<>()).add(p);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list stock journal segments", e);
+        }
+        return result;
+    }
+
+    private Path segmentPath(long segment, int lane) {
+        return directory.resolve(String.format("%s%020d-%03d%s", PREFIX, segment, lane, SUFFIX));
+    }
+
+    private static final class Lane {
+        final int index;
+        final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        FileChannel channel;
+
+        Lane(int index) {
+            this.index = index;
+        }
+
+        // Caller holds the lane's lock
+        void close() {
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.force(false);
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to close stock journal segment", e);
+            } finally {
+                channel = null;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface RecordConsumer {
+        void accept(long itemId, long state);
+    }
+}
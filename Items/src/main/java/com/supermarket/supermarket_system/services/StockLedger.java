@@ -0,0 +1,548 @@
+package com.supermarket.supermarket_system.services;
+
+import com.supermarket.supermarket_system.repositories.ItemRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory stock ledger for flash sales (enabled with app.stock.ledger.enabled=true).
+ *
+ * Quantities live in a lock-striped, open-addressing map keyed by primitive item ids.
+ * Deductions and restores are CAS updates on a packed (version, quantity) long, taken
+ * under the stripe's read lock; only inserts, removals and resizes take the write lock.
+ *
+ * Every change is appended to a local {@link StockJournal} and marks its slot dirty.
+ * Dirty rows are written to MySQL in periodic JDBC batches (write-behind). On startup
+ * the ledger loads quantities from {@link ItemRepository}, replays any journal left by
+ * a crash, and flushes the result before serving requests.
+ *
+ * Flushes write absolute quantities, so only one instance may run the ledger: it
+ * holds the single-row stock_ledger_owner lease, claimed at startup (startup fails
+ * if another live instance holds it) and renewed by every flush before writing.
+ * Stock operations are refused once the lease has run out without renewal, and
+ * for good once another instance has taken it over.
+ */
+@Component
+@ConditionalOnProperty(name = "app.stock.ledger.enabled", havingValue = "true")
+public class StockLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(StockLedger.class);
+
+    // Results of tryDeduct besides the (non-negative) remaining quantity
+    public static final long NOT_FOUND = -1;
+    public static final long INSUFFICIENT = -2;
+
+    private static final long EMPTY = 0;     // item ids are IDENTITY values, starting at 1
+    private static final long REMOVED = -1;  // tombstone for deleted items
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final String FLUSH_SQL = "UPDATE items SET quantity = ? WHERE id = ?";
+
+    private static final String CLAIM_EXPIRED =
+            "UPDATE stock_ledger_owner SET owner = ?, expires_at = TIMESTAMPADD(MICROSECOND, ?, UTC_TIMESTAMP(6)) " +
+            "WHERE id = 1 AND expires_at < UTC_TIMESTAMP(6)";
+
+    private static final String INSERT_OWNER =
+            "INSERT INTO stock_ledger_owner (id, owner, expires_at) " +
+            "VALUES (1, ?, TIMESTAMPADD(MICROSECOND, ?, UTC_TIMESTAMP(6)))";
+
+    private static final String RENEW =
+            "UPDATE stock_ledger_owner SET expires_at = TIMESTAMPADD(MICROSECOND, ?, UTC_TIMESTAMP(6)) " +
+            "WHERE id = 1 AND owner = ?";
+
+    private final ItemRepository itemRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final StockJournal journal;
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final int flushBatchSize;
+    private final long leaseTtlMillis;
+
+    // Unique per process, so a restarted instance never mistakes an old lease for its own
+    private final String owner = UUID.randomUUID().toString();
+
+    // Local clock time until which the lease is known to be held
+    private volatile long leaseValidUntil;
+    private volatile boolean leaseLost;
+
+    public StockLedger(ItemRepository itemRepository,
+                       JdbcTemplate jdbcTemplate,
+                       @Value("${app.stock.ledger.stripes:64}") int stripes,
+                       @Value("${app.stock.ledger.journal-dir:./data/stock-journal}") String journalDir,
+                       @Value("${app.stock.ledger.journal-lanes:8}") int journalLanes,
+                       @Value("${app.stock.ledger.flush-batch-size:500}") int flushBatchSize,
+                       @Value("${app.stock.ledger.lease-ttl-ms:10000}") long leaseTtlMillis) {
+        this.itemRepository = itemRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.journal = new StockJournal(Path.of(journalDir), journalLanes);
+        this.flushBatchSize = flushBatchSize;
+        this.leaseTtlMillis = leaseTtlMillis;
+
+        int count = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1; // next power of two
+        this.stripes = new Stripe[count];
+        this.stripeMask = count - 1;
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    // ----------------------
+    // STARTUP / RECOVERY
+    // ----------------------
+
+    @PostConstruct
+    void load() {
+        // Before reading anything: a second writer would overwrite the owner's quantities
+        if (!claimLease()) {
+            throw new IllegalStateException("Another Items instance owns the stock ledger "
+                    + "(stock_ledger_owner); run the ledger on one instance only");
+        }
+
+        for (Object[] row : itemRepository.findAllQuantities()) {
+            stripeFor((Long) row[0]).put((Long) row[0], (Integer) row[1], false);
+        }
+
+        // Keep the latest journaled state (highest version) of each item
+        Map<Long, Long> recovered = new HashMap<>();
+        journal.replay((itemId, state) -> recovered.merge(itemId, state,
+                (a, b) -> stateVersion(b) - stateVersion(a) > 0 ? b : a));
+
+        journal.rotate();
+        recovered.forEach((itemId, state) -> {
+            // Skip items deleted from MySQL since the journal was written
+            if (quantity(itemId) != NOT_FOUND) {
+                stripeFor(itemId).put(itemId, stateQuantity(state), true);
+            }
+        });
+
+        // Make the recovered state durable in MySQL, then start a fresh journal
+        flush();
+        if (!recovered.isEmpty()) {
+            log.info("Stock ledger recovered {} items from the journal", recovered.size());
+        }
+        log.info("Stock ledger loaded with {} stripes", stripes.length);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+        journal.close();
+        if (!leaseLost) {
+            try {
+                jdbcTemplate.update("UPDATE stock_ledger_owner SET expires_at = UTC_TIMESTAMP(6) "
+                        + "WHERE id = 1 AND owner = ?", owner);
+            } catch (DataAccessException e) {
+                log.warn("Could not release the stock ledger lease, it frees up when it expires: {}", e.getMessage());
+            }
+        }
+    }
+
+    // ----------------------
+    // OWNERSHIP LEASE
+    // ----------------------
+
+    // Takes the lease if it is free or expired
+    private boolean claimLease() {
+        long validUntil = System.currentTimeMillis() + leaseTtlMillis;
+        if (jdbcTemplate.update(CLAIM_EXPIRED, owner, leaseTtlMillis * 1000) == 0) {
+            try {
+                jdbcTemplate.update(INSERT_OWNER, owner, leaseTtlMillis * 1000);
+            } catch (DuplicateKeyException e) {
+                return false; // held by a live instance
+            }
+        }
+        leaseValidUntil = validUntil;
+        return true;
+    }
+
+    // Extends the lease; false once another instance has taken it over
+    private boolean renewLease() {
+        long validUntil = System.currentTimeMillis() + leaseTtlMillis;
+        if (jdbcTemplate.update(RENEW, leaseTtlMillis * 1000, owner) == 1) {
+            leaseValidUntil = validUntil;
+            return true;
+        }
+        return false;
+    }
+
+    private void checkLease() {
+        if (leaseLost) {
+            throw new IllegalStateException("The stock ledger lease was taken over by another Items instance");
+        }
+        if (System.currentTimeMillis() >= leaseValidUntil) {
+            throw new IllegalStateException("The stock ledger lease has run out");
+        }
+    }
+
+    // ----------------------
+    // STOCK OPERATIONS
+    // ----------------------
+
+    /**
+     * Deducts stock with a CAS loop, never going below zero.
+     *
+     * @return the remaining quantity, or {@link #NOT_FOUND} / {@link #INSUFFICIENT}
+     */
+    public long tryDeduct(long itemId, int quantity) {
+        checkLease();
+        Stripe stripe = stripeFor(itemId);
+        stripe.lock.readLock().lock();
+        try {
+            int slot = stripe.find(itemId);
+            if (slot < 0) {
+                return NOT_FOUND;
+            }
+            while (true) {
+                long current = stripe.states.get(slot);
+                int available = stateQuantity(current);
+                if (available < quantity) {
+                    return INSUFFICIENT;
+                }
+                long next = pack(stateVersion(current) + 1, available - quantity);
+                if (stripe.states.compareAndSet(slot, current, next)) {
+                    recordChange(stripe, slot, itemId, next);
+                    return available - quantity;
+                }
+            }
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds stock back.
+     *
+     * @return the new quantity, or {@link #NOT_FOUND}
+     */
+    public long restore(long itemId, int quantity) {
+        checkLease();
+        Stripe stripe = stripeFor(itemId);
+        stripe.lock.readLock().lock();
+        try {
+            int slot = stripe.find(itemId);
+            if (slot < 0) {
+                return NOT_FOUND;
+            }
+            while (true) {
+                long current = stripe.states.get(slot);
+                long next = pack(stateVersion(current) + 1, stateQuantity(current) + quantity);
+                if (stripe.states.compareAndSet(slot, current, next)) {
+                    recordChange(stripe, slot, itemId, next);
+                    return stateQuantity(next);
+                }
+            }
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a signed change to the stock, never going below zero.
+     *
+     * @return the quantity before the change, or {@link #NOT_FOUND}
+     */
+    public long adjust(long itemId, int delta) {
+        checkLease();
+        Stripe stripe = stripeFor(itemId);
+        stripe.lock.readLock().lock();
+        try {
+            int slot = stripe.find(itemId);
+            if (slot < 0) {
+                return NOT_FOUND;
+            }
+            while (true) {
+                long current = stripe.states.get(slot);
+                int before = stateQuantity(current);
+                long next = pack(stateVersion(current) + 1, Math.max(0, before + delta));
+                if (stripe.states.compareAndSet(slot, current, next)) {
+                    recordChange(stripe, slot, itemId, next);
+                    return before;
+                }
+            }
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the current quantity, or {@link #NOT_FOUND}
+     */
+    public long quantity(long itemId) {
+        Stripe stripe = stripeFor(itemId);
+        stripe.lock.readLock().lock();
+        try {
+            int slot = stripe.find(itemId);
+            return slot < 0 ? NOT_FOUND : stateQuantity(stripe.states.get(slot));
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    // Sets an absolute quantity (item created); edits go through adjust()
+    public void set(long itemId, int quantity) {
+        checkLease();
+        stripeFor(itemId).put(itemId, quantity, true);
+    }
+
+    public void remove(long itemId) {
+        stripeFor(itemId).remove(itemId);
+    }
+
+    private void recordChange(Stripe stripe, int slot, long itemId, long state) {
+        // Mark dirty before journaling: a record in a rotated segment is then always
+        // covered by the flush that rotated it out
+        stripe.dirty.set(slot, 1);
+        journal.append(itemId, state);
+    }
+
+    // ----------------------
+    // WRITE-BEHIND FLUSH
+    // ----------------------
+
+    @Scheduled(fixedDelayString = "${app.stock.ledger.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        if (leaseLost) {
+            return;
+        }
+        // Fence: nothing is written unless the lease is still ours (renewed even when idle)
+        try {
+            if (!renewLease()) {
+                leaseLost = true;
+                log.error("Stock ledger lease was taken over by another Items instance; "
+                        + "unflushed changes stay in the journal, restart this instance");
+                return;
+            }
+        } catch (DataAccessException e) {
+            // Operations continue until the current lease runs out; the next flush retries
+            log.warn("Could not renew the stock ledger lease: {}", e.getMessage());
+            return;
+        }
+
+        long segment = journal.rotate();
+
+        long[] ids = new long[64];
+        int[] quantities = new int[64];
+        int count = 0;
+
+        for (Stripe stripe : stripes) {
+            stripe.lock.readLock().lock();
+            try {
+                for (int slot = 0; slot < stripe.keys.length; slot++) {
+                    long key = stripe.keys[slot];
+                    if (key <= EMPTY || stripe.dirty.getAndSet(slot, 0) == 0) {
+                        continue;
+                    }
+                    if (count == ids.length) {
+                        ids = Arrays.copyOf(ids, count * 2);
+                        quantities = Arrays.copyOf(quantities, count * 2);
+                    }
+                    ids[count] = key;
+                    quantities[count] = stateQuantity(stripe.states.get(slot));
+                    count++;
+                }
+            } finally {
+                stripe.lock.readLock().unlock();
+            }
+        }
+
+        if (count > 0) {
+            final long[] flushIds = ids;
+            final int[] flushQuantities = quantities;
+            try {
+                for (int from = 0; from < count; from += flushBatchSize) {
+                    int to = Math.min(count, from + flushBatchSize);
+                    int offset = from;
+                    jdbcTemplate.batchUpdate(FLUSH_SQL, new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            ps.setInt(1, flushQuantities[offset + i]);
+                            ps.setLong(2, flushIds[offset + i]);
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return to - offset;
+                        }
+                    });
+                }
+            } catch (RuntimeException e) {
+                // Keep the rows dirty and the journal segments; the next flush retries
+                for (int i = 0; i < count; i++) {
+                    stripeFor(flushIds[i]).markDirty(flushIds[i]);
+                }
+                log.error("Stock ledger flush of {} items failed, will retry", count, e);
+                return;
+            }
+        }
+
+        journal.deleteSegmentsBefore(segment);
+        journal.force();
+    }
+
+    // ----------------------
+    // PACKED STATE: high 32 bits version, low 32 bits quantity
+    // ----------------------
+
+    private static long pack(int version, int quantity) {
+        return ((long) version << 32) | (quantity & 0xFFFFFFFFL);
+    }
+
+    private static int stateVersion(long state) {
+        return (int) (state >>> 32);
+    }
+
+    private static int stateQuantity(long state) {
+        return (int) state;
+    }
+
+    private Stripe stripeFor(long itemId) {
+        return stripes[(int) mix(itemId) & stripeMask];
+    }
+
+    private static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    // ----------------------
+    // STRIPE: open-addressing long -> packed state map
+    // ----------------------
+
+    private final class Stripe {
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        long[] keys = new long[INITIAL_CAPACITY];
+        AtomicLongArray states = new AtomicLongArray(INITIAL_CAPACITY);
+        AtomicIntegerArray dirty = new AtomicIntegerArray(INITIAL_CAPACITY);
+        int used; // live entries + tombstones
+
+        // Caller holds the read or write lock
+        int find(long itemId) {
+            int mask = keys.length - 1;
+            int slot = (int) (mix(itemId) >>> 16) & mask;
+            while (true) {
+                long key = keys[slot];
+                if (key == itemId) {
+                    return slot;
+                }
+                if (key == EMPTY) {
+                    return -1;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        void put(long itemId, int quantity, boolean journaled) {
+            lock.writeLock().lock();
+            try {
+                int slot = find(itemId);
+                long next;
+                if (slot >= 0) {
+                    next = pack(stateVersion(states.get(slot)) + 1, quantity);
+                    states.set(slot, next);
+                } else {
+                    if ((used + 1) * 4 > keys.length * 3) {
+                        resize();
+                    }
+                    slot = insertSlot(itemId);
+                    next = pack(1, quantity);
+                    keys[slot] = itemId;
+                    states.set(slot, next);
+                    used++;
+                }
+                if (journaled) {
+                    recordChange(this, slot, itemId, next);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(long itemId) {
+            lock.writeLock().lock();
+            try {
+                int slot = find(itemId);
+                if (slot >= 0) {
+                    keys[slot] = REMOVED;
+                    states.set(slot, 0);
+                    dirty.set(slot, 0);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void markDirty(long itemId) {
+            lock.readLock().lock();
+            try {
+                int slot = find(itemId);
+                if (slot >= 0) {
+                    dirty.set(slot, 1);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private int insertSlot(long itemId) {
+            int mask = keys.length - 1;
+            int slot = (int) (mix(itemId) >>> 16) & mask;
+            while (keys[slot] > EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        // Rehashes live entries (dropping tombstones), doubling capacity when needed
+        private void resize() {
+            long[] oldKeys = keys;
+            AtomicLongArray oldStates = states;
+            AtomicIntegerArray oldDirty = dirty;
+
+            int live = 0;
+            for (long key : oldKeys) {
+                if (key > EMPTY) {
+                    live++;
+                }
+            }
+            int capacity = oldKeys.length;
+            while ((live + 1) * 2 > capacity) {
+                capacity <<= 1;
+            }
+
+            keys = new long[capacity];
+            states = new AtomicLongArray(capacity);
+            dirty = new AtomicIntegerArray(capacity);
+            used = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] > EMPTY) {
+                    int slot = insertSlot(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    states.set(slot, oldStates.get(i));
+                    dirty.set(slot, oldDirty.get(i));
+                    used++;
+                }
+            }
+        }
+    }
+}
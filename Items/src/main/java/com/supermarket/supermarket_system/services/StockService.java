@@ -0,0 +1,410 @@
+package com.supermarket.supermarket_system.services;
+
+import com.supermarket.supermarket_system.models.Item;
+import com.supermarket.supermarket_system.repositories.ItemRepository;
+import com.supermarket.supermarket_system.repositories.StockRestoreRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+// Stock changes go to MySQL with conditional updates, or to the in-memory
+// StockLedger when app.stock.ledger.enabled=true (flushed to MySQL in the background).
+@Service
+public class StockService {
+
+    private final ItemRepository itemRepository;
+    private final StockRestoreRepository stockRestoreRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StockLedger ledger; // null unless the ledger mode is enabled
+
+    @Autowired
+    public StockService(ItemRepository itemRepository,
+                        StockRestoreRepository stockRestoreRepository,
+                        TransactionTemplate transactionTemplate,
+                        ApplicationEventPublisher eventPublisher,
+                        ObjectProvider<StockLedger> ledger) {
+        this.itemRepository = itemRepository;
+        this.stockRestoreRepository = stockRestoreRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.ledger = ledger.getIfAvailable();
+    }
+
+    /**
+     * Deducts stock for one item with a single conditional UPDATE,
+     * so concurrent requests can never take the quantity below zero.
+     *
+     * Response shape: {"success": bool, "message": str, "remainingQuantity": int}
+     */
+    public Map<String, Object> deduct(Long itemId, int quantity) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (ledger != null) {
+            long remaining = ledger.tryDeduct(itemId, quantity);
+            if (remaining < 0) {
+                response.put("success", false);
+                response.put("message", deductFailureMessage(itemId));
+                return response;
+            }
+            eventPublisher.publishEvent(new StockChangedEvent(itemId));
+            response.put("success", true);
+            response.put("message", "Quantity deducted successfully");
+            response.put("remainingQuantity", (int) remaining);
+            return response;
+        }
+
+        return transactionTemplate.execute(status -> {
+            if (itemRepository.deductIfAvailable(itemId, quantity) == 0) {
+                response.put("success", false);
+                response.put("message", deductFailureMessage(itemId));
+                return response;
+            }
+
+            eventPublisher.publishEvent(new StockChangedEvent(itemId));
+            response.put("success", true);
+            response.put("message", "Quantity deducted successfully");
+            response.put("remainingQuantity", itemRepository.findQuantityById(itemId).orElse(0));
+            return response;
+        });
+    }
+
+    /**
+     * Adds stock back for one item with a single UPDATE.
+     *
+     * Response shape: {"success": bool, "message": str, "newQuantity": int}
+     */
+    public Map<String, Object> restore(Long itemId, int quantity) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (ledger != null) {
+            long newQuantity = ledger.restore(itemId, quantity);
+            if (newQuantity < 0) {
+                response.put("success", false);
+                response.put("message", "Item not found");
+                return response;
+            }
+            eventPublisher.publishEvent(new StockChangedEvent(itemId));
+            response.put("success", true);
+            response.put("message", "Quantity restored successfully");
+            response.put("newQuantity", (int) newQuantity);
+            return response;
+        }
+
+        return transactionTemplate.execute(status -> {
+            if (itemRepository.restore(itemId, quantity) == 0) {
+                response.put("success", false);
+                response.put("message", "Item not found");
+                return response;
+            }
+
+            eventPublisher.publishEvent(new StockChangedEvent(itemId));
+            response.put("success", true);
+            response.put("message", "Quantity restored successfully");
+            response.put("newQuantity", itemRepository.findQuantityById(itemId).orElse(0));
+            return response;
+        });
+    }
+
+    /**
+     * Deducts a whole list of (itemId, quantity) lines in one transaction.
+     * Items are updated in ascending id order, so concurrent batches always take
+     * row locks in the same order, and either every line is applied or none is.
+     *
+     * Request shape: {"items": [{"itemId": 1, "quantity": 2}, ...]}
+     * Response shape: {"success": bool, "message": str, "results": [per-line result, ...]}
+     */
+    public Map<String, Object> deductBatch(Map<String, Object> request) {
+        Map<String, Object> response = new HashMap<>();
+
+        List<Map<String, Object>> lines = parseLines(request);
+        if (lines == null) {
+            response.put("success", false);
+            response.put("message", "Invalid request: items must be a non-empty list of itemId and quantity");
+            response.put("results", List.of());
+            return response;
+        }
+
+        // Total quantity requested per item (the same item may appear on several lines), in id order
+        Map<Long, Integer> requestedPerItem = new TreeMap<>();
+        for (Map<String, Object> line : lines) {
+            requestedPerItem.merge((Long) line.get("itemId"), (Integer) line.get("quantity"), Integer::sum);
+        }
+
+        if (ledger != null) {
+            return batchResponse(lines, deductBatchFromLedger(requestedPerItem));
+        }
+
+        return transactionTemplate.execute(status -> {
+            // One conditional UPDATE per item; stop at the first item that cannot be served
+            for (Map.Entry<Long, Integer> entry : requestedPerItem.entrySet()) {
+                if (itemRepository.deductIfAvailable(entry.getKey(), entry.getValue()) == 0) {
+                    // Undo the updates already applied in this transaction
+                    status.setRollbackOnly();
+                    return batchResponse(lines, entry.getKey());
+                }
+            }
+            return batchResponse(lines, null);
+        });
+    }
+
+    /**
+     * Adds stock back for a whole list of lines, at most once per restoreId: a request
+     * repeated with the same restoreId (a retry) changes nothing and reports success.
+     * Lines of items that no longer exist are skipped and reported, the others are applied.
+     *
+     * Request shape: {"restoreId": str, "items": [{"itemId": 1, "quantity": 2}, ...]}
+     * Response shape: {"success": bool, "message": str, "alreadyApplied": bool, "results": [per-line result, ...]}
+     */
+    public Map<String, Object> restoreBatch(Map<String, Object> request) {
+        Map<String, Object> response = new HashMap<>();
+
+        List<Map<String, Object>> lines = parseLines(request);
+        String restoreId = request != null && request.get("restoreId") instanceof String id ? id : null;
+        if (lines == null || restoreId == null || restoreId.isBlank() || restoreId.length() > 64) {
+            response.put("success", false);
+            response.put("message", "Invalid request: restoreId (up to 64 characters) and a non-empty list of itemId and quantity are required");
+            response.put("results", List.of());
+            return response;
+        }
+
+        // Total quantity per item, in id order (same lock order as deductBatch)
+        Map<Long, Integer> restorePerItem = new TreeMap<>();
+        for (Map<String, Object> line : lines) {
+            restorePerItem.merge((Long) line.get("itemId"), (Integer) line.get("quantity"), Integer::sum);
+        }
+
+        if (ledger != null) {
+            // Restored inside the claim's transaction; the ledger is not transactional,
+            // so the restores are taken back if the claim does not commit
+            return transactionTemplate.execute(status -> {
+                if (stockRestoreRepository.claim(restoreId, Instant.now()) == 0) {
+                    return alreadyRestored(restoreId);
+                }
+                Map<Long, Boolean> found = new HashMap<>();
+                restorePerItem.forEach((itemId, quantity) -> {
+                    boolean restored = ledger.restore(itemId, quantity) >= 0;
+                    if (restored) {
+                        undoOnRollback(() -> ledger.adjust(itemId, -quantity));
+                    }
+                    found.put(itemId, restored);
+                });
+                return restoreBatchResponse(lines, found);
+            });
+        }
+
+        return transactionTemplate.execute(status -> {
+            if (stockRestoreRepository.claim(restoreId, Instant.now()) == 0) {
+                return alreadyRestored(restoreId);
+            }
+            Map<Long, Boolean> found = new HashMap<>();
+            restorePerItem.forEach((itemId, quantity) -> found.put(itemId, itemRepository.restore(itemId, quantity) == 1));
+            return restoreBatchResponse(lines, found);
+        });
+    }
+
+    private Map<String, Object> restoreBatchResponse(List<Map<String, Object>> lines, Map<Long, Boolean> found) {
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (Map<String, Object> line : lines) {
+            Long itemId = (Long) line.get("itemId");
+            boolean restored = found.get(itemId);
+            if (restored) {
+                eventPublisher.publishEvent(new StockChangedEvent(itemId));
+            }
+            Map<String, Object> result = lineResult(line, restored);
+            result.put("message", restored ? "Quantity restored successfully" : "Item not found");
+            results.add(result);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Quantities restored");
+        response.put("alreadyApplied", false);
+        response.put("results", results);
+        return response;
+    }
+
+    private Map<String, Object> alreadyRestored(String restoreId) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Restore " + restoreId + " was already applied");
+        response.put("alreadyApplied", true);
+        response.put("results", List.of());
+        return response;
+    }
+
+    // Applies the batch in memory, compensating already-deducted items if one fails.
+    // Returns the id of the failed item, or null if every item was deducted.
+    private Long deductBatchFromLedger(Map<Long, Integer> requestedPerItem) {
+        List<Map.Entry<Long, Integer>> applied = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : requestedPerItem.entrySet()) {
+            if (ledger.tryDeduct(entry.getKey(), entry.getValue()) < 0) {
+                applied.forEach(done -> ledger.restore(done.getKey(), done.getValue()));
+                return entry.getKey();
+            }
+            applied.add(entry);
+        }
+        return null;
+    }
+
+    private Map<String, Object> batchResponse(List<Map<String, Object>> lines, Long failedItemId) {
+        Map<String, Object> response = new HashMap<>();
+        List<Map<String, Object>> results = new ArrayList<>();
+
+        if (failedItemId != null) {
+            String failure = deductFailureMessage(failedItemId);
+            for (Map<String, Object> line : lines) {
+                Map<String, Object> result = lineResult(line, false);
+                result.put("message", failedItemId.equals(line.get("itemId"))
+                        ? failure
+                        : "Not deducted: another line in the batch failed");
+                results.add(result);
+            }
+
+            response.put("success", false);
+            response.put("message", "Item " + failedItemId + ": " + failure);
+            response.put("results", results);
+            return response;
+        }
+
+        for (Map<String, Object> line : lines) {
+            eventPublisher.publishEvent(new StockChangedEvent((Long) line.get("itemId")));
+            Map<String, Object> result = lineResult(line, true);
+            result.put("message", "Quantity deducted successfully");
+            result.put("remainingQuantity", currentQuantity((Long) line.get("itemId")));
+            results.add(result);
+        }
+
+        response.put("success", true);
+        response.put("message", "All quantities deducted successfully");
+        response.put("results", results);
+        return response;
+    }
+
+    // ----------------------
+    // LEDGER-AWARE READS AND ADMIN CHANGES
+    // ----------------------
+
+    public boolean isLedgerEnabled() {
+        return ledger != null;
+    }
+
+    // Current quantity of an item: from the ledger when enabled, else from MySQL (0 if missing)
+    public int currentQuantity(Long itemId) {
+        if (ledger != null) {
+            return (int) Math.max(0, ledger.quantity(itemId));
+        }
+        return itemRepository.findQuantityById(itemId).orElse(0);
+    }
+
+    // Refreshes a loaded entity with the ledger's quantity, which may be ahead of MySQL
+    public void refreshQuantity(Item item) {
+        if (ledger != null && item.getId() != null) {
+            long quantity = ledger.quantity(item.getId());
+            if (quantity >= 0) {
+                item.setQuantity((int) quantity);
+            }
+        }
+    }
+
+    /**
+     * Applies an admin's quantity edit as a change relative to the quantity the admin
+     * started from, so deductions made in the meantime are kept. Never goes below zero.
+     * Must run inside the item-write transaction: in ledger mode the change is taken
+     * back if that transaction rolls back.
+     *
+     * @return the new quantity
+     */
+    public int adjustQuantity(Long itemId, int delta) {
+        if (ledger != null) {
+            long before = ledger.adjust(itemId, delta);
+            if (before == StockLedger.NOT_FOUND) {
+                return 0;
+            }
+            int after = (int) Math.max(0, before + delta);
+            int applied = after - (int) before;
+            undoOnRollback(() -> ledger.adjust(itemId, -applied));
+            return after;
+        }
+        itemRepository.adjustQuantity(itemId, delta);
+        return itemRepository.findQuantityById(itemId).orElse(0);
+    }
+
+    // Runs the given compensation if the current transaction rolls back
+    private void undoOnRollback(Runnable undo) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    undo.run();
+                }
+            }
+        });
+    }
+
+    // Adds a newly created item to the ledger (its id is not visible to anyone before the commit)
+    public void onItemSaved(Item item) {
+        if (ledger != null) {
+            ledger.set(item.getId(), item.getQuantity());
+        }
+    }
+
+    public void onItemDeleted(Long itemId) {
+        if (ledger != null) {
+            ledger.remove(itemId);
+        }
+    }
+
+    // Explains why a deduction could not be applied
+    private String deductFailureMessage(Long itemId) {
+        Optional<Integer> available = ledger != null
+                ? Optional.of(ledger.quantity(itemId)).filter(q -> q >= 0).map(Long::intValue)
+                : itemRepository.findQuantityById(itemId);
+        return available
+                .map(q -> "Not enough quantity available. Available: " + q)
+                .orElse("Item not found");
+    }
+
+    private Map<String, Object> lineResult(Map<String, Object> line, boolean success) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("itemId", line.get("itemId"));
+        result.put("quantity", line.get("quantity"));
+        result.put("success", success);
+        return result;
+    }
+
+    // Returns the validated lines (itemId as Long, quantity as Integer) or null if the request is invalid
+    private List<Map<String, Object>> parseLines(Map<String, Object> request) {
+        if (request == null || !(request.get("items") instanceof List<?> rawLines) || rawLines.isEmpty()) {
+            return null;
+        }
+
+        List<Map<String, Object>> lines = new ArrayList<>();
+        for (Object raw : rawLines) {
+            if (!(raw instanceof Map<?, ?> line)
+                    || !(line.get("itemId") instanceof Number itemIdNum)
+                    || !(line.get("quantity") instanceof Number quantityNum)
+                    || quantityNum.intValue() <= 0) {
+                return null;
+            }
+
+            Map<String, Object> parsed = new HashMap<>();
+            parsed.put("itemId", itemIdNum.longValue());
+            parsed.put("quantity", quantityNum.intValue());
+            lines.add(parsed);
+        }
+        return lines;
+    }
+}
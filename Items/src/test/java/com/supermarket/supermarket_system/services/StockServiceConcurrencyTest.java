@@ -0,0 +1,86 @@
+package com.supermarket.supermarket_system.services;
+
+import com.supermarket.supermarket_system.models.Item;
+import com.supermarket.supermarket_system.repositories.ItemRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Runs against an in-memory H2 database; every deduction commits in its own transaction.
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:items;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(StockService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StockServiceConcurrencyTest {
+
+    private static final int THREADS = 64;
+    private static final int STOCK = 40;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Test
+    void concurrentDeductionsNeverOversell() throws Exception {
+        Item item = itemRepository.save(new Item("Promo item", 9.99, STOCK, "promo", "launch deal", null));
+        Long itemId = item.getId();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Map<String, Object>>> futures = new ArrayList<>();
+
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return stockService.deduct(itemId, 1);
+            }));
+        }
+        start.countDown();
+
+        int succeeded = 0;
+        for (Future<Map<String, Object>> future : futures) {
+            if (Boolean.TRUE.equals(future.get(30, TimeUnit.SECONDS).get("success"))) {
+                succeeded++;
+            }
+        }
+        pool.shutdown();
+
+        assertEquals(STOCK, succeeded);
+        assertEquals(0, itemRepository.findQuantityById(itemId).orElseThrow());
+    }
+
+    @Test
+    void failedBatchLeavesStockUntouched() {
+        Item first = itemRepository.save(new Item("First", 1.0, 5, "misc", null, null));
+        Item second = itemRepository.save(new Item("Second", 1.0, 1, "misc", null, null));
+
+        Map<String, Object> response = stockService.deductBatch(Map.of("items", List.of(
+                Map.of("itemId", first.getId(), "quantity", 2),
+                Map.of("itemId", second.getId(), "quantity", 3)
+        )));
+
+        assertEquals(false, response.get("success"));
+        assertEquals(5, itemRepository.findQuantityById(first.getId()).orElseThrow());
+        assertEquals(1, itemRepository.findQuantityById(second.getId()).orElseThrow());
+    }
+}
@@ -1,12 +1,17 @@
 package com.supermarket.supermarket_system;
 
+import com.supermarket.common.loadbalancer.LatencyAwareLoadBalancerConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
 
 @SpringBootApplication
+@EnableScheduling
+@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerConfig.class)
 public class OrdersApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,25 @@
+package com.supermarket.supermarket_system.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JdbcConfig {
+
+    // Lets MySQL Connector/J send JDBC batches (order and order line inserts, see OrderIngestService)
+    // as multi-row statements instead of one round trip per row, whatever the datasource URL says
+    @Bean
+    public static BeanPostProcessor batchRewritePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource) {
+                    dataSource.addDataSourceProperty("rewriteBatchedStatements", "true");
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -1,18 +1,31 @@
 package com.supermarket.supermarket_system.config;
 
+import com.supermarket.common.messaging.JacksonCborMessageConverter;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
 import org.springframework.amqp.core.DirectExchange;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.annotation.EnableRabbit;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Configuration
 @EnableRabbit
 public class RabbitConfig {
@@ -26,6 +39,33 @@ public class RabbitConfig {
     @Value("${app.rabbitmq.order-routing-key:orders.routingkey}")
     private String orderRoutingKey;
 
+    @Value("${app.orders.ingest.batch-size:100}")
+    private int ingestBatchSize;
+
+    @Value("${app.orders.ingest.receive-timeout-ms:200}")
+    private long ingestReceiveTimeoutMillis;
+
+    @Value("${app.orders.ingest.prefetch:250}")
+    private int ingestPrefetch;
+
+    @Value("${app.orders.ingest.concurrency:2}")
+    private int ingestConcurrency;
+
+    @Value("${app.orders.ingest.max-concurrency:4}")
+    private int ingestMaxConcurrency;
+
+    @Value("${app.orders.retry.delays-ms:1000,5000,30000}")
+    private long[] retryDelaysMillis;
+
+    // Names of the delay queue for the n-th retry (1-based) and of the dead-letter queue
+    public static String retryQueueName(String orderQueue, int retry) {
+        return orderQueue + ".retry." + retry;
+    }
+
+    public static String deadLetterQueueName(String orderQueue) {
+        return orderQueue + ".dlq";
+    }
+
     @Bean
     public Queue orderQueue() {
         return new Queue(orderQueue, true);
@@ -41,9 +81,64 @@ public class RabbitConfig {
         return BindingBuilder.bind(orderQueue()).to(orderExchange()).with(orderRoutingKey);
     }
 
+    // JSON by default; messages are read with the converter matching their content type,
+    // so publishers can switch a message to CBOR without breaking consumers
     @Bean
     public MessageConverter jacksonMessageConverter() {
-        return new Jackson2JsonMessageConverter();
+        Jackson2JsonMessageConverter json = new Jackson2JsonMessageConverter();
+        ContentTypeDelegatingMessageConverter converter = new ContentTypeDelegatingMessageConverter(json);
+        converter.addDelegate(MessageProperties.CONTENT_TYPE_JSON, json);
+        converter.addDelegate(JacksonCborMessageConverter.CONTENT_TYPE, new JacksonCborMessageConverter());
+        return converter;
+    }
+
+    // Failed checkout events wait in one delay queue per retry (growing TTLs), then expire
+    // back into orders.exchange. After the last retry they are parked in the dead-letter queue.
+    @Bean
+    public Declarables checkoutRetryQueues() {
+        List<Declarable> queues = new ArrayList<>();
+        for (int i = 0; i < retryDelaysMillis.length; i++) {
+            queues.add(QueueBuilder.durable(retryQueueName(orderQueue, i + 1))
+                    .ttl((int) retryDelaysMillis[i])
+                    .deadLetterExchange(orderExchange)
+                    .deadLetterRoutingKey(orderRoutingKey)
+                    .build());
+        }
+        queues.add(QueueBuilder.durable(deadLetterQueueName(orderQueue)).build());
+        return new Declarables(queues);
+    }
+
+    // Checkout events are consumed in batches: a batch is handed to the listener when it
+    // holds batch-size messages, or when no new message arrived for receive-timeout-ms.
+    // AUTO acks the whole batch once the listener returns (after the insert committed).
+    @Bean
+    public SimpleRabbitListenerContainerFactory checkoutBatchContainerFactory(ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(ingestBatchSize);
+        factory.setReceiveTimeout(ingestReceiveTimeoutMillis);
+        factory.setPrefetchCount(Math.max(ingestPrefetch, ingestBatchSize));
+        factory.setConcurrentConsumers(ingestConcurrency);
+        factory.setMaxConcurrentConsumers(ingestMaxConcurrency);
+        factory.setAcknowledgeMode(AcknowledgeMode.AUTO);
+        return factory;
+    }
+
+    // Retried and dead-lettered checkout events wait for publisher confirms (see CheckoutRetryService),
+    // whatever spring.rabbitmq.publisher-confirm-type says
+    @Bean
+    public static BeanPostProcessor publisherConfirmsPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof CachingConnectionFactory connectionFactory) {
+                    connectionFactory.setPublisherConfirmType(CachingConnectionFactory.ConfirmType.SIMPLE);
+                }
+                return bean;
+            }
+        };
     }
 
     @Bean
@@ -0,0 +1,65 @@
+package com.supermarket.supermarket_system.controller;
+
+import com.supermarket.supermarket_system.service.CheckoutRetryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+// Checkout events that could not be turned into orders (ADMIN ONLY)
+@RestController
+@RequestMapping("/orders/admin/dead-letters")
+public class CheckoutDeadLetterController {
+
+    private static final int MAX_LIMIT = 500;
+
+    @Autowired
+    private CheckoutRetryService checkoutRetryService;
+
+    // Lists the oldest dead-lettered events without removing them
+    @GetMapping
+    public ResponseEntity<?> getDeadLetters(
+            @RequestHeader("X-User-Role") String role,
+            @RequestParam(defaultValue = "50") int limit) {
+
+        if (!"ADMIN".equalsIgnoreCase(role)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "Access denied: Admins only"));
+        }
+
+        try {
+            List<Map<String, Object>> deadLetters = checkoutRetryService.peekDeadLetters(clamp(limit));
+            return ResponseEntity.ok(Map.of("count", deadLetters.size(), "deadLetters", deadLetters));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Sends the oldest dead-lettered events back to the checkout queue
+    @PostMapping("/replay")
+    public ResponseEntity<?> replayDeadLetters(
+            @RequestHeader("X-User-Role") String role,
+            @RequestParam(defaultValue = "50") int limit) {
+
+        if (!"ADMIN".equalsIgnoreCase(role)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "Access denied: Admins only"));
+        }
+
+        try {
+            int replayed = checkoutRetryService.replayDeadLetters(clamp(limit));
+            return ResponseEntity.ok(Map.of("replayed", replayed));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+}
@@ -4,14 +4,17 @@ import com.supermarket.supermarket_system.dto.OrderMapper;
 import com.supermarket.supermarket_system.dto.OrderResponseDto;
 import com.supermarket.supermarket_system.dto.UpdateStatusRequestDto;
 import com.supermarket.supermarket_system.model.Order;
+import com.supermarket.supermarket_system.service.OrderQueryService;
 import com.supermarket.supermarket_system.service.OrderService;
+import com.supermarket.supermarket_system.service.OrderStatsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
-import java.util.List;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.Map;
 
 @RestController
@@ -21,6 +24,12 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private OrderQueryService orderQueryService;
+
+    @Autowired
+    private OrderStatsService orderStatsService;
+
     @Autowired
     private OrderMapper orderMapper;
 
@@ -59,24 +68,26 @@ public class OrderController {
 
 
 
-    // Get user's order history
+    // Get user's order history, one page at a time (pass nextCursor back as cursor)
     @GetMapping("/history")
     public ResponseEntity<?> getUserOrders(
-            @RequestHeader("X-User-Id") Long userId) {
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
         try {
-            List<Order> orders = orderService.getUserOrders(userId);
-            List<OrderResponseDto> response = orderMapper.toResponseDtoList(orders);
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(orderQueryService.findPage(userId, null, limit, cursor));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest()
                     .body(Map.of("error", e.getMessage()));
         }
     }
 
-    // Get all orders (ADMIN ONLY)
+    // Get all orders, one page at a time (ADMIN ONLY)
     @GetMapping("/all")
     public ResponseEntity<?> getAllOrders(
-            @RequestHeader("X-User-Role") String role) {
+            @RequestHeader("X-User-Role") String role,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
 
         if (!"ADMIN".equalsIgnoreCase(role)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN)
@@ -84,9 +95,10 @@ public class OrderController {
         }
 
         try {
-            List<Order> orders = orderService.getAllOrders();
-            List<OrderResponseDto> response = orderMapper.toResponseDtoList(orders);
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(orderQueryService.findPage(null, null, limit, cursor));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", e.getMessage()));
@@ -94,12 +106,38 @@ public class OrderController {
     }
 
 
-    // Get orders by status (Admins see all, Users see only their own)
+    // Order counts and revenue per status, payment method and day (ADMIN ONLY)
+    // Dates are ISO (yyyy-MM-dd), inclusive; defaults to the last 30 days
+    @GetMapping("/stats")
+    public ResponseEntity<?> getOrderStats(
+            @RequestHeader("X-User-Role") String role,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+
+        if (!"ADMIN".equalsIgnoreCase(role)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "Access denied: Admins only"));
+        }
+
+        try {
+            return ResponseEntity.ok(orderStatsService.getStats(
+                    from != null ? LocalDate.parse(from) : null,
+                    to != null ? LocalDate.parse(to) : null));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+
+    // Get orders by status, one page at a time (Admins see all, Users see only their own)
     @PostMapping("/status")
     public ResponseEntity<?> getOrdersByStatus(
             @RequestHeader("X-User-Id") Long userId,
             @RequestHeader("X-User-Role") String role,
-            @RequestBody Map<String, String> body) {
+            @RequestBody Map<String, String> body,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
 
         String status = body.get("status");
         if (status == null || status.isBlank()) {
@@ -108,19 +146,10 @@ public class OrderController {
         }
 
         try {
-            List<Order> orders;
-
-            // Admins see all orders with the given status
-            if ("ADMIN".equalsIgnoreCase(role)) {
-                orders = orderService.getOrdersByStatus(status);
-            }
-            // Regular users see only their own orders with the given status
-            else {
-                orders = orderService.getUserOrdersByStatus(userId, status);
-            }
-
-            List<OrderResponseDto> response = orderMapper.toResponseDtoList(orders);
-            return ResponseEntity.ok(response);
+            // Admins see all orders with the given status,
+            // regular users see only their own orders with the given status
+            Long owner = "ADMIN".equalsIgnoreCase(role) ? null : userId;
+            return ResponseEntity.ok(orderQueryService.findPage(owner, status, limit, cursor));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(Map.of("error", e.getMessage()));
@@ -0,0 +1,28 @@
+package com.supermarket.supermarket_system.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// One row of an order list: everything but the item details
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryDto {
+
+    private Long id;
+    private Long userId;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime orderDate;
+
+    private String status;
+    private String paymentMethod;
+    private BigDecimal totalAmount;
+}
@@ -14,6 +14,7 @@ public class CartCheckoutEvent implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    private Long orderId;                            // assigned by Cart, used as the order's primary key
     private Long userId;
     private Map<String, Integer> items;              // itemId -> quantity
     private Map<String, Double> itemPrices;          // itemId -> unitPrice
@@ -0,0 +1,75 @@
+package com.supermarket.supermarket_system.dto.cart;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Checkout event, schema version 2: every cart line once, in a list.
+// Version 1 events (CartCheckoutEvent) are upcast with fromV1.
+@Data
+@NoArgsConstructor
+public class CheckoutEventV2 implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int SCHEMA_VERSION = 2;
+
+    private int schemaVersion = SCHEMA_VERSION;
+    private Long orderId;
+    private Long userId;
+    private String paymentMethod;
+    private Double totalPrice;
+    private List<Line> lines = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    public static class Line implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Long itemId;
+        private String name;
+        private String imageUrl;
+        private Double unitPrice;
+        private Integer quantity;
+        private Double subtotal;
+    }
+
+    // Full item details when the v1 event has them, else the quantity and price maps
+    public static CheckoutEventV2 fromV1(CartCheckoutEvent v1) {
+        CheckoutEventV2 event = new CheckoutEventV2();
+        event.setOrderId(v1.getOrderId());
+        event.setUserId(v1.getUserId());
+        event.setPaymentMethod(v1.getPaymentMethod());
+        event.setTotalPrice(v1.getTotalPrice());
+
+        if (v1.getItemDetails() != null && !v1.getItemDetails().isEmpty()) {
+            v1.getItemDetails().forEach((itemId, details) -> {
+                Line line = new Line();
+                line.setItemId(Long.parseLong(itemId));
+                line.setName(details.getName());
+                line.setImageUrl(details.getImageUrl());
+                line.setUnitPrice(details.getUnitPrice());
+                line.setQuantity(details.getQuantity());
+                line.setSubtotal(details.getSubtotal());
+                event.getLines().add(line);
+            });
+        } else if (v1.getItems() != null) {
+            Map<String, Double> prices = v1.getItemPrices() != null ? v1.getItemPrices() : Map.of();
+            v1.getItems().forEach((itemId, quantity) -> {
+                Double unitPrice = prices.get(itemId);
+                Line line = new Line();
+                line.setItemId(Long.parseLong(itemId));
+                line.setUnitPrice(unitPrice);
+                line.setQuantity(quantity);
+                line.setSubtotal(unitPrice != null && quantity != null ? unitPrice * quantity : null);
+                event.getLines().add(line);
+            });
+        }
+        return event;
+    }
+}
@@ -1,30 +1,76 @@
 package com.supermarket.supermarket_system.listeners;
 
-import com.supermarket.supermarket_system.dto.cart.CartCheckoutEvent;
-import com.supermarket.supermarket_system.service.OrderService;
+import com.supermarket.supermarket_system.dto.cart.CheckoutEventV2;
+import com.supermarket.supermarket_system.service.CheckoutEventDecoder;
+import com.supermarket.supermarket_system.service.CheckoutDeduplicator;
+import com.supermarket.supermarket_system.service.CheckoutRetryService;
+import com.supermarket.supermarket_system.service.OrderIngestService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+
+// Receives checkout events in batches (see RabbitConfig.checkoutBatchContainerFactory).
+// The batch is acknowledged when this method returns, i.e. after the orders are committed
+// and the failed events have been handed to their retry or dead-letter queue (confirmed by
+// the broker: if not, the exception fails the whole batch and it is redelivered).
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class CheckoutListener {
 
-    private final OrderService orderService;
+    private final OrderIngestService orderIngestService;
+    private final CheckoutDeduplicator checkoutDeduplicator;
+    private final CheckoutRetryService checkoutRetryService;
+    private final CheckoutEventDecoder checkoutEventDecoder;
 
-    @RabbitListener(queues = "${app.rabbitmq.order-queue:orders.queue}")
-    public void handleCheckoutEvent(CartCheckoutEvent event) {
-        log.info("Received checkout event for user {} with {} items and total price {}",
-                event.getUserId(), event.getItems().size(), event.getTotalPrice());
+    @RabbitListener(queues = "${app.rabbitmq.order-queue:orders.queue}",
+            containerFactory = "checkoutBatchContainerFactory")
+    public void handleCheckoutEvents(List<Message> messages) {
+        List<Received> batch = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            CheckoutEventV2 event;
+            try {
+                event = checkoutEventDecoder.decode(message);
+            } catch (Exception e) {
+                checkoutRetryService.deadLetter(message, "Unreadable checkout event: " + e.getMessage());
+                continue;
+            }
+            if (event.getOrderId() == null) {
+                checkoutRetryService.deadLetter(message, "Checkout event has no order id");
+                continue;
+            }
+            if (checkoutDeduplicator.isKnown(event.getOrderId())) {
+                log.debug("Dropping duplicate checkout event for order {}", event.getOrderId());
+                continue;
+            }
+            batch.add(new Received(message, event));
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        log.info("Received {} checkout events", batch.size());
         try {
-            // Create order directly from the event data (no REST call needed)
-            orderService.createOrderFromCheckoutEvent(event);
-            log.info("Order created successfully from checkout event for user {}", event.getUserId());
+            orderIngestService.createOrders(batch.stream().map(Received::event).toList());
+            checkoutDeduplicator.remember(batch.stream().map(r -> r.event().getOrderId()).toList());
         } catch (Exception e) {
-            log.error("Failed to process checkout event for user {}", event.getUserId(), e);
-            // Consider implementing retry logic or dead letter queue here
+            // One bad event must not block the others: retry them one by one
+            log.warn("Batch insert of {} orders failed, inserting one by one", batch.size(), e);
+            for (Received received : batch) {
+                try {
+                    orderIngestService.createOrders(List.of(received.event()));
+                    checkoutDeduplicator.remember(List.of(received.event().getOrderId()));
+                } catch (Exception single) {
+                    checkoutRetryService.retryOrDeadLetter(received.message(), single);
+                }
+            }
         }
     }
-}
\ No newline at end of file
+
+    private record Received(Message message, CheckoutEventV2 event) {}
+}
@@ -6,26 +6,35 @@ import lombok.Setter;
 
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // Keyset pagination of order lists, newest first (see OrderQueryService)
+        @Index(name = "idx_orders_user_date", columnList = "user_id, orderDate, id"),
+        @Index(name = "idx_orders_status_date", columnList = "status, orderDate, id"),
+        @Index(name = "idx_orders_date", columnList = "orderDate, id")
+})
 @Getter
 @Setter
 public class Order {
 
+    // Assigned by Cart at checkout (time-ordered Snowflake id), shared with Payment
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     @Column(name = "user_id", nullable = false)
     private Long userId;
 
-    // Single field for item details: itemId (as String) -> ItemDetailsDto
-    @Convert(converter = ItemsMapConverter.class)
-    @Column(name = "item_details", columnDefinition = "TEXT")
-    private Map<String, ItemDetailsDto> itemDetails = new HashMap<>();
+    // Lines are written with the order by OrderIngestService (JDBC batch), never through this mapping
+    @OneToMany(fetch = FetchType.EAGER)
+    @JoinColumn(name = "order_id", insertable = false, updatable = false)
+    @OrderBy("itemId")
+    private List<OrderLine> lines = new ArrayList<>();
 
     @Column(nullable = false)
     private LocalDateTime orderDate;
@@ -46,17 +55,27 @@ public class Order {
         this.totalAmount = 0.0;
     }
 
-    public Order(Long userId, Map<String, ItemDetailsDto> itemDetails) {
-        this.userId = userId;
-        this.itemDetails = itemDetails;
-        this.orderDate = LocalDateTime.now();
-        this.status = "PENDING";
-        this.totalAmount = 0.0;
+    // Item details: itemId (as String) -> ItemDetailsDto, in the shape the API has always returned
+    public Map<String, ItemDetailsDto> getItemDetails() {
+        Map<String, ItemDetailsDto> itemDetails = new LinkedHashMap<>();
+        if (lines != null) {
+            for (OrderLine line : lines) {
+                ItemDetailsDto details = new ItemDetailsDto();
+                details.setName(line.getName());
+                details.setImageUrl(line.getImageUrl());
+                details.setUnitPrice(line.getUnitPrice());
+                details.setQuantity(line.getQuantity());
+                details.setSubtotal(line.getSubtotal());
+                itemDetails.put(String.valueOf(line.getItemId()), details);
+            }
+        }
+        return itemDetails;
     }
 
     // Calculate total from itemDetails
     public Double calculateTotal() {
-        if (itemDetails == null || itemDetails.isEmpty()) {
+        Map<String, ItemDetailsDto> itemDetails = getItemDetails();
+        if (itemDetails.isEmpty()) {
             return totalAmount != null ? totalAmount : 0.0;
         }
         return itemDetails.values().stream()
@@ -67,13 +86,11 @@ public class Order {
     // Helper method to get items map for backwards compatibility
     public Map<String, Integer> getItemsMap() {
         Map<String, Integer> items = new HashMap<>();
-        if (itemDetails != null) {
-            itemDetails.forEach((itemId, details) -> {
-                if (details.getQuantity() != null) {
-                    items.put(itemId, details.getQuantity());
-                }
-            });
-        }
+        getItemDetails().forEach((itemId, details) -> {
+            if (details.getQuantity() != null) {
+                items.put(itemId, details.getQuantity());
+            }
+        });
         return items;
     }
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.supermarket.supermarket_system.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+// Order count and revenue of one (day, status, payment method) bucket: the read model
+// behind GET /orders/stats. Written only by OrderStatsService, which adds its in-memory
+// deltas to these rows, so the table stays a few rows per day whatever the order volume.
+@Entity
+@Table(name = "order_daily_stats")
+@IdClass(OrderDailyStatsId.class)
+@Getter
+@Setter
+public class OrderDailyStats {
+
+    @Id
+    @Column(name = "stats_day")
+    private LocalDate day;
+
+    @Id
+    @Column(name = "status", length = 32)
+    private String status;
+
+    @Id
+    @Column(name = "payment_method", length = 64)
+    private String paymentMethod;
+
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    @Column(nullable = false)
+    private double revenue;
+}
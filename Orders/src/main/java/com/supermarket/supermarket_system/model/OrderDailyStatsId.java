@@ -0,0 +1,34 @@
+package com.supermarket.supermarket_system.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+public class OrderDailyStatsId implements Serializable {
+
+    private LocalDate day;
+    private String status;
+    private String paymentMethod;
+
+    public OrderDailyStatsId() {}
+
+    public OrderDailyStatsId(LocalDate day, String status, String paymentMethod) {
+        this.day = day;
+        this.status = status;
+        this.paymentMethod = paymentMethod;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof OrderDailyStatsId that)) return false;
+        return Objects.equals(day, that.day)
+                && Objects.equals(status, that.status)
+                && Objects.equals(paymentMethod, that.paymentMethod);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(day, status, paymentMethod);
+    }
+}
@@ -0,0 +1,39 @@
+package com.supermarket.supermarket_system.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+// One item of an order. Keyed by (order_id, item_id), so the lines of an order
+// are stored together and read with one primary key range scan.
+@Entity
+@Table(name = "order_lines", indexes = {
+        // Per-item queries (e.g. best sellers)
+        @Index(name = "idx_order_lines_item", columnList = "item_id")
+})
+@IdClass(OrderLineId.class)
+@Getter
+@Setter
+public class OrderLine {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+
+    private String name;
+
+    @Column(name = "image_url", length = 1000)
+    private String imageUrl;
+
+    @Column(name = "unit_price")
+    private Double unitPrice;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    private Double subtotal;
+}
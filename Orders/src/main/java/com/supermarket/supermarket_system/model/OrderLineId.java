@@ -0,0 +1,29 @@
+package com.supermarket.supermarket_system.model;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+public class OrderLineId implements Serializable {
+
+    private Long orderId;
+    private Long itemId;
+
+    public OrderLineId() {}
+
+    public OrderLineId(Long orderId, Long itemId) {
+        this.orderId = orderId;
+        this.itemId = itemId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof OrderLineId that)) return false;
+        return Objects.equals(orderId, that.orderId) && Objects.equals(itemId, that.itemId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(orderId, itemId);
+    }
+}
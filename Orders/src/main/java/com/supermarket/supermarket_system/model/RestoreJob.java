@@ -0,0 +1,49 @@
+package com.supermarket.supermarket_system.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// Stock to give back to Items for a cancelled order. Created in the same transaction
+// as the cancellation and retried by StockRestoreService until Items confirms it.
+// One job per order: the order id is the key, and "order-{id}-cancel" the restore id
+// sent to Items, so a retried job can never restore the stock twice.
+@Entity
+@Table(name = "restore_jobs", indexes = {
+        // Due jobs, for the retry sweep
+        @Index(name = "idx_restore_jobs_status_next", columnList = "status, next_attempt_at")
+})
+@Getter
+@Setter
+public class RestoreJob {
+
+    public static final String PENDING = "PENDING";
+    public static final String DONE = "DONE";
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(nullable = false, length = 16)
+    private String status;
+
+    private int attempts;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    public String restoreId() {
+        return "order-" + orderId + "-cancel";
+    }
+}
@@ -0,0 +1,26 @@
+package com.supermarket.supermarket_system.repository;
+
+import com.supermarket.supermarket_system.model.RestoreJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface RestoreJobRepository extends JpaRepository<RestoreJob, Long> {
+
+    // Returns 1 if the job was created, 0 if the order already has one (already cancelled)
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO restore_jobs (order_id, status, attempts, next_attempt_at, created_at, updated_at) " +
+            "VALUES (:orderId, 'PENDING', 0, :now, :now, :now)", nativeQuery = true)
+    int create(@Param("orderId") Long orderId, @Param("now") Instant now);
+
+    // Uses idx_restore_jobs_status_next
+    @Query("SELECT j.orderId FROM RestoreJob j WHERE j.status = :status AND j.nextAttemptAt <= :now ORDER BY j.nextAttemptAt")
+    List<Long> findDue(@Param("status") String status, @Param("now") Instant now, Pageable pageable);
+}
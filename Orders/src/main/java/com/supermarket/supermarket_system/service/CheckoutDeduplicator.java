@@ -0,0 +1,45 @@
+package com.supermarket.supermarket_system.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Order ids (one per checkout) recently written by this node, so redelivered
+ * checkout events are dropped without touching the database. The set is
+ * bounded (oldest ids are forgotten first); the orders primary key remains
+ * the authority for ids that fell out of it.
+ */
+@Component
+public class CheckoutDeduplicator {
+
+    @Value("${app.orders.dedup.max-entries:100000}")
+    private int maxEntries;
+
+    private Map<Long, Boolean> recent;
+
+    @PostConstruct
+    void init() {
+        recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public synchronized boolean isKnown(Long orderId) {
+        return recent.containsKey(orderId);
+    }
+
+    // Called once the orders are committed
+    public synchronized void remember(Collection<Long> orderIds) {
+        for (Long orderId : orderIds) {
+            recent.put(orderId, Boolean.TRUE);
+        }
+    }
+}
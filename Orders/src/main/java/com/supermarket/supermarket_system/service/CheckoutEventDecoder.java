@@ -0,0 +1,78 @@
+package com.supermarket.supermarket_system.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.supermarket.common.messaging.JacksonCborMessageConverter;
+import com.supermarket.supermarket_system.dto.cart.CartCheckoutEvent;
+import com.supermarket.supermarket_system.dto.cart.CheckoutEventV2;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Reads checkout events of every format Cart may send:
+ * - the body format comes from the content type (application/json or application/cbor)
+ * - the schema from the "x-schema-version" header; events without it are version 1
+ *
+ * Version 1 events are upcast, so the rest of the service only sees CheckoutEventV2.
+ */
+@Component
+public class CheckoutEventDecoder {
+
+    public static final String SCHEMA_VERSION_HEADER = "x-schema-version";
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper cborMapper;
+
+    public CheckoutEventDecoder(ObjectMapper objectMapper) {
+        this.jsonMapper = objectMapper;
+        this.cborMapper = CBORMapper.builder()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+    }
+
+    public CheckoutEventV2 decode(Message message) throws IOException {
+        MessageProperties properties = message.getMessageProperties();
+        ObjectMapper mapper = mapperFor(properties.getContentType());
+
+        int version = schemaVersion(properties.getHeaders().get(SCHEMA_VERSION_HEADER));
+        return switch (version) {
+            case 1 -> CheckoutEventV2.fromV1(mapper.readValue(message.getBody(), CartCheckoutEvent.class));
+            case CheckoutEventV2.SCHEMA_VERSION -> mapper.readValue(message.getBody(), CheckoutEventV2.class);
+            default -> throw new IOException("Unsupported checkout event schema version " + version);
+        };
+    }
+
+    // The body as a JSON tree, whatever its wire format (for showing events that failed)
+    public JsonNode readTree(byte[] body, String contentType) throws IOException {
+        return mapperFor(contentType).readTree(body);
+    }
+
+    private ObjectMapper mapperFor(String contentType) throws IOException {
+        if (contentType == null || contentType.contains("json")) {
+            return jsonMapper;
+        }
+        if (contentType.startsWith(JacksonCborMessageConverter.CONTENT_TYPE)) {
+            return cborMapper;
+        }
+        throw new IOException("Unsupported checkout event content type " + contentType);
+    }
+
+    private int schemaVersion(Object header) throws IOException {
+        if (header == null) {
+            return 1;
+        }
+        if (header instanceof Number number) {
+            return number.intValue();
+        }
+        try {
+            return Integer.parseInt(header.toString());
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid " + SCHEMA_VERSION_HEADER + " header: " + header);
+        }
+    }
+}
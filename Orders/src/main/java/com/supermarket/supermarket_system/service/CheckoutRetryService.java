@@ -0,0 +1,206 @@
+package com.supermarket.supermarket_system.service;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.GetResponse;
+import com.supermarket.supermarket_system.config.RabbitConfig;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Retries and dead-lettering of checkout events that could not be turned into orders.
+ *
+ * A failed event is republished to the delay queue of its next retry
+ * (orders.queue.retry.N, see RabbitConfig), from which it expires back into
+ * orders.queue. Once every retry is used, or straight away for events that can
+ * never succeed (unreadable, no order id), it goes to orders.queue.dlq, where
+ * admins can inspect and replay it.
+ *
+ * Every copy is published with a publisher confirm (enabled in RabbitConfig) and the
+ * original is only acked once the broker has confirmed it: if the broker does not, the
+ * failure propagates and the original is redelivered instead of being lost.
+ */
+@Service
+@Slf4j
+public class CheckoutRetryService {
+
+    public static final String ATTEMPTS_HEADER = "x-checkout-attempts";
+    public static final String ERROR_HEADER = "x-checkout-error";
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    @Autowired
+    private CheckoutEventDecoder checkoutEventDecoder;
+
+    @Value("${app.rabbitmq.order-queue:orders.queue}")
+    private String orderQueue;
+
+    @Value("${app.rabbitmq.order-exchange:orders.exchange}")
+    private String orderExchange;
+
+    @Value("${app.rabbitmq.order-routing-key:orders.routingkey}")
+    private String orderRoutingKey;
+
+    @Value("${app.orders.retry.delays-ms:1000,5000,30000}")
+    private long[] retryDelaysMillis;
+
+    @Value("${app.orders.retry.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMillis;
+
+    @PostConstruct
+    void requirePublisherConfirms() {
+        if (!rabbitTemplate.getConnectionFactory().isSimplePublisherConfirms()) {
+            throw new IllegalStateException("Checkout retries need simple publisher confirms");
+        }
+    }
+
+    public void retryOrDeadLetter(Message message, Exception cause) {
+        int attempts = attempts(message) + 1;
+        String error = describe(cause);
+
+        if (attempts > retryDelaysMillis.length) {
+            deadLetter(message, error);
+            return;
+        }
+
+        log.warn("Checkout event {} failed (attempt {}), retrying in {} ms: {}",
+                message.getMessageProperties().getMessageId(), attempts, retryDelaysMillis[attempts - 1], error);
+        sendConfirmed(RabbitConfig.retryQueueName(orderQueue, attempts), MessageBuilder.fromMessage(message)
+                .setHeader(ATTEMPTS_HEADER, attempts)
+                .setHeader(ERROR_HEADER, error)
+                .build());
+    }
+
+    public void deadLetter(Message message, String reason) {
+        log.error("Checkout event {} moved to the dead-letter queue: {}",
+                message.getMessageProperties().getMessageId(), reason);
+        sendConfirmed(RabbitConfig.deadLetterQueueName(orderQueue), MessageBuilder.fromMessage(message)
+                .setHeader(ERROR_HEADER, reason)
+                .build());
+    }
+
+    // Publishes on one channel and waits until the broker has confirmed the message
+    private void sendConfirmed(String queue, Message message) {
+        Boolean confirmed = rabbitTemplate.invoke(operations -> {
+            operations.send("", queue, message);
+            return operations.waitForConfirms(confirmTimeoutMillis);
+        });
+        if (!Boolean.TRUE.equals(confirmed)) {
+            throw new AmqpException("Broker did not confirm checkout event "
+                    + message.getMessageProperties().getMessageId() + " for " + queue);
+        }
+    }
+
+    // ----------------------
+    // DEAD-LETTER ADMIN
+    // ----------------------
+
+    // Oldest dead-lettered events, left in the queue
+    public List<Map<String, Object>> peekDeadLetters(int limit) {
+        String dlq = RabbitConfig.deadLetterQueueName(orderQueue);
+        return rabbitTemplate.execute(channel -> {
+            List<Map<String, Object>> result = new ArrayList<>();
+            long lastTag = -1;
+            try {
+                while (result.size() < limit) {
+                    GetResponse response = channel.basicGet(dlq, false);
+                    if (response == null) {
+                        break;
+                    }
+                    lastTag = response.getEnvelope().getDeliveryTag();
+                    result.add(summary(response));
+                }
+            } finally {
+                if (lastTag >= 0) {
+                    // Put everything back, in place
+                    channel.basicNack(lastTag, true, true);
+                }
+            }
+            return result;
+        });
+    }
+
+    // Sends up to "limit" dead-lettered events back to orders.queue with a fresh retry budget
+    public int replayDeadLetters(int limit) {
+        String dlq = RabbitConfig.deadLetterQueueName(orderQueue);
+        Integer replayed = rabbitTemplate.execute(channel -> {
+            int count = 0;
+            long lastTag = -1;
+            while (count < limit) {
+                GetResponse response = channel.basicGet(dlq, false);
+                if (response == null) {
+                    break;
+                }
+                Map<String, Object> headers = response.getProps().getHeaders() == null
+                        ? new HashMap<>()
+                        : new HashMap<>(response.getProps().getHeaders());
+                headers.remove(ATTEMPTS_HEADER);
+                headers.remove(ERROR_HEADER);
+                headers.remove("x-death");
+                AMQP.BasicProperties props = response.getProps().builder().headers(headers).build();
+
+                channel.basicPublish(orderExchange, orderRoutingKey, props, response.getBody());
+                lastTag = response.getEnvelope().getDeliveryTag();
+                count++;
+            }
+            if (lastTag >= 0) {
+                // Acked only once the broker confirmed every copy; otherwise the channel is closed
+                // and the originals go back to the DLQ. A crash in between duplicates events,
+                // which the consumer drops.
+                channel.waitForConfirmsOrDie(confirmTimeoutMillis);
+                channel.basicAck(lastTag, true);
+            }
+            return count;
+        });
+        log.info("Replayed {} dead-lettered checkout events", replayed);
+        return replayed == null ? 0 : replayed;
+    }
+
+    private Map<String, Object> summary(GetResponse response) {
+        Map<String, Object> headers = response.getProps().getHeaders() == null ? Map.of() : response.getProps().getHeaders();
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("messageId", response.getProps().getMessageId());
+        summary.put("attempts", headers.get(ATTEMPTS_HEADER) instanceof Number n ? n.intValue() : 0);
+        summary.put("error", headers.get(ERROR_HEADER) == null ? null : headers.get(ERROR_HEADER).toString());
+        summary.put("contentType", response.getProps().getContentType());
+        summary.put("payload", payload(response.getBody(), response.getProps().getContentType()));
+        return summary;
+    }
+
+    // The body as JSON whatever its format (CBOR included); as it is if it cannot be parsed:
+    // text for JSON bodies, base64 for binary ones
+    private Object payload(byte[] body, String contentType) {
+        try {
+            return checkoutEventDecoder.readTree(body, contentType);
+        } catch (IOException e) {
+            return contentType == null || contentType.contains("json")
+                    ? new String(body, StandardCharsets.UTF_8)
+                    : Base64.getEncoder().encodeToString(body);
+        }
+    }
+
+    private int attempts(Message message) {
+        Object attempts = message.getMessageProperties().getHeaders().get(ATTEMPTS_HEADER);
+        return attempts instanceof Number n ? n.intValue() : 0;
+    }
+
+    private String describe(Exception e) {
+        String message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+        return message.length() > 500 ? message.substring(0, 500) : message;
+    }
+}
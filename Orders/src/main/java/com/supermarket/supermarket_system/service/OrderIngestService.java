@@ -0,0 +1,153 @@
+package com.supermarket.supermarket_system.service;
+
+import com.supermarket.supermarket_system.dto.cart.CheckoutEventV2;
+import com.supermarket.supermarket_system.dto.cart.ItemDetailsDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes orders and their order_lines from checkout events with JDBC batch
+ * inserts, one transaction per batch. Order ids come from Cart, so no generated
+ * keys are read back and the driver can send the whole batch at once
+ * (rewriteBatchedStatements).
+ *
+ * Checkout events are delivered at least once: an order or line that already
+ * exists is left untouched. The orders primary key decides which orders are new
+ * (a duplicate key error, the only error absorbed), and only those are counted in
+ * the order stats. Any other error fails the batch, so bad events reach the DLQ.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderIngestService {
+
+    private static final String INSERT_ORDERS =
+            "INSERT INTO orders (id, user_id, order_date, status, payment_method, total_amount) VALUES ";
+
+    private static final String ORDER_VALUES = "(?, ?, ?, ?, ?, ?)";
+
+    static final String INSERT_LINE =
+            "INSERT INTO order_lines (order_id, item_id, name, image_url, unit_price, quantity, subtotal) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE order_id = order_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderStatsService orderStatsService;
+
+    // Inserts every order of the batch with its lines, or nothing if one of them fails
+    public void createOrders(List<CheckoutEventV2> events) {
+        List<Object[]> orderRows = new ArrayList<>(events.size());
+        List<Object[]> lineRows = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (CheckoutEventV2 event : events) {
+            if (event.getOrderId() == null) {
+                throw new IllegalArgumentException("Checkout event for user " + event.getUserId() + " has no order id");
+            }
+            orderRows.add(new Object[]{
+                    event.getOrderId(),
+                    event.getUserId(),
+                    now,
+                    "PENDING",
+                    event.getPaymentMethod() != null ? event.getPaymentMethod() : "UNSPECIFIED",
+                    event.getTotalPrice() != null ? event.getTotalPrice() : 0.0
+            });
+            for (CheckoutEventV2.Line line : event.getLines()) {
+                lineRows.add(new Object[]{
+                        event.getOrderId(),
+                        line.getItemId(),
+                        line.getName(),
+                        line.getImageUrl(),
+                        line.getUnitPrice(),
+                        line.getQuantity() != null ? line.getQuantity() : 0,
+                        line.getSubtotal()
+                });
+            }
+        }
+
+        // Usually every order is new and one multi-row insert succeeds. If some were already
+        // there (redelivered events), that transaction is rolled back and the orders are
+        // inserted one by one, to learn which ones hit the primary key.
+        Set<Long> inserted = transactionTemplate.execute(status -> insertAllOrNone(orderRows, lineRows, status));
+        if (inserted == null) {
+            inserted = transactionTemplate.execute(status -> insertOneByOne(orderRows, lineRows));
+        }
+
+        for (CheckoutEventV2 event : events) {
+            // remove: an order id repeated within the batch is counted once
+            if (inserted.remove(event.getOrderId())) {
+                orderStatsService.recordCreated(now.toLocalDateTime(), "PENDING",
+                        event.getPaymentMethod() != null ? event.getPaymentMethod() : "UNSPECIFIED",
+                        event.getTotalPrice());
+            }
+        }
+        log.info("Created {} orders with {} lines from checkout events", orderRows.size(), lineRows.size());
+    }
+
+    // The ids of all the orders, or null (transaction marked for rollback) if one of them existed
+    private Set<Long> insertAllOrNone(List<Object[]> orderRows, List<Object[]> lineRows, TransactionStatus status) {
+        String sql = INSERT_ORDERS + String.join(", ", Collections.nCopies(orderRows.size(), ORDER_VALUES));
+        Object[] args = orderRows.stream().flatMap(Arrays::stream).toArray();
+        try {
+            jdbcTemplate.update(sql, args);
+        } catch (DuplicateKeyException e) {
+            status.setRollbackOnly();
+            return null;
+        }
+        jdbcTemplate.batchUpdate(INSERT_LINE, lineRows);
+        return orderIds(orderRows);
+    }
+
+    // The ids of the orders that did not exist yet
+    private Set<Long> insertOneByOne(List<Object[]> orderRows, List<Object[]> lineRows) {
+        Set<Long> inserted = new HashSet<>();
+        for (Object[] row : orderRows) {
+            try {
+                jdbcTemplate.update(INSERT_ORDERS + ORDER_VALUES, row);
+                inserted.add((Long) row[0]);
+            } catch (DuplicateKeyException e) {
+                // Already there: only this statement is undone, the transaction goes on
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_LINE, lineRows);
+        return inserted;
+    }
+
+    private static Set<Long> orderIds(List<Object[]> orderRows) {
+        Set<Long> ids = new HashSet<>(orderRows.size());
+        for (Object[] row : orderRows) {
+            ids.add((Long) row[0]);
+        }
+        return ids;
+    }
+
+    // order_lines rows (INSERT_LINE parameters) for an itemId -> details map, as stored in the old item_details column
+    static List<Object[]> lineRows(Long orderId, Map<String, ItemDetailsDto> itemDetails) {
+        List<Object[]> rows = new ArrayList<>(itemDetails.size());
+        itemDetails.forEach((itemId, details) -> rows.add(new Object[]{
+                orderId,
+                Long.parseLong(itemId),
+                details.getName(),
+                details.getImageUrl(),
+                details.getUnitPrice(),
+                details.getQuantity() != null ? details.getQuantity() : 0,
+                details.getSubtotal()
+        }));
+        return rows;
+    }
+}
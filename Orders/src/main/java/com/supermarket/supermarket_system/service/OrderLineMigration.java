@@ -0,0 +1,97 @@
+package com.supermarket.supermarket_system.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.supermarket.supermarket_system.dto.cart.ItemDetailsDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One-off migration of the legacy orders.item_details JSON column into order_lines.
+ *
+ * Runs at startup, in chunks of orders by id. Each chunk inserts the lines and
+ * clears the JSON of the migrated orders in one transaction, so the migration
+ * can be interrupted and resumed, and several nodes may run it at once.
+ * Orders whose JSON cannot be parsed are logged and left as they are.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderLineMigration {
+
+    private static final TypeReference<Map<String, ItemDetailsDto>> ITEM_DETAILS = new TypeReference<>() {};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.orders.line-migration.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.orders.line-migration.batch-size:500}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        if (!enabled || !legacyColumnExists()) {
+            return;
+        }
+
+        long lastId = Long.MIN_VALUE;
+        int migrated = 0;
+        int failed = 0;
+        while (true) {
+            List<Map<String, Object>> chunk = jdbcTemplate.queryForList(
+                    "SELECT id, item_details FROM orders WHERE item_details IS NOT NULL AND id > ? ORDER BY id LIMIT ?",
+                    lastId, batchSize);
+            if (chunk.isEmpty()) {
+                break;
+            }
+
+            List<Object[]> lineRows = new ArrayList<>();
+            List<Object[]> migratedIds = new ArrayList<>();
+            for (Map<String, Object> row : chunk) {
+                Long orderId = ((Number) row.get("id")).longValue();
+                lastId = orderId;
+                try {
+                    String json = (String) row.get("item_details");
+                    Map<String, ItemDetailsDto> details = json.isBlank() ? Map.of() : objectMapper.readValue(json, ITEM_DETAILS);
+                    lineRows.addAll(OrderIngestService.lineRows(orderId, details));
+                    migratedIds.add(new Object[]{orderId});
+                } catch (Exception e) {
+                    failed++;
+                    log.warn("Cannot migrate item_details of order {}, left unchanged: {}", orderId, e.getMessage());
+                }
+            }
+
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(OrderIngestService.INSERT_LINE, lineRows);
+                jdbcTemplate.batchUpdate("UPDATE orders SET item_details = NULL WHERE id = ?", migratedIds);
+            });
+            migrated += migratedIds.size();
+        }
+
+        if (migrated > 0 || failed > 0) {
+            log.info("Migrated item_details of {} orders to order_lines ({} failed)", migrated, failed);
+        }
+    }
+
+    // Databases created after the switch to order_lines never had the column
+    private boolean legacyColumnExists() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.columns " +
+                "WHERE table_schema = DATABASE() AND table_name = 'orders' AND column_name = 'item_details'",
+                Integer.class);
+        return count != null && count > 0;
+    }
+}
@@ -0,0 +1,119 @@
+package com.supermarket.supermarket_system.service;
+
+import com.supermarket.supermarket_system.dto.OrderSummaryDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keyset-paginated order lists, newest first.
+ *
+ * Pages are ordered by (order_date, id) descending and the cursor holds the
+ * order date and id of the last row returned, so every page is a range scan on
+ * one of the (user_id | status, order_date, id) indexes whatever its depth.
+ * The item_details column is never read.
+ *
+ * Response shape: {"orders": [OrderSummaryDto, ...], "nextCursor": str | null, "limit": int}
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderQueryService {
+
+    private static final String SUMMARY_COLUMNS =
+            "SELECT id, user_id, order_date, status, payment_method, total_amount FROM orders";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.orders.page.default-limit:20}")
+    private int defaultLimit;
+
+    @Value("${app.orders.page.max-limit:100}")
+    private int maxLimit;
+
+    /**
+     * @param userId Only this user's orders, or every user's if null
+     * @param status Only orders in this status, or every status if null
+     * @throws IllegalArgumentException on a malformed cursor
+     */
+    public Map<String, Object> findPage(Long userId, String status, Integer limit, String cursor) {
+        int pageSize = Math.min(Math.max(1, limit == null ? defaultLimit : limit), maxLimit);
+
+        StringBuilder sql = new StringBuilder(SUMMARY_COLUMNS);
+        List<Object> args = new ArrayList<>();
+        List<String> conditions = new ArrayList<>();
+
+        if (userId != null) {
+            conditions.add("user_id = ?");
+            args.add(userId);
+        }
+        if (status != null) {
+            conditions.add("status = ?");
+            args.add(status);
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            Object[] position = decodeCursor(cursor);
+            conditions.add("(order_date < ? OR (order_date = ? AND id < ?))");
+            args.add(position[0]);
+            args.add(position[0]);
+            args.add(position[1]);
+        }
+
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        // One extra row tells whether there is a next page
+        sql.append(" ORDER BY order_date DESC, id DESC LIMIT ?");
+        args.add(pageSize + 1);
+
+        List<OrderSummaryDto> orders = jdbcTemplate.query(sql.toString(), (rs, rowNum) -> OrderSummaryDto.builder()
+                .id(rs.getLong("id"))
+                .userId(rs.getLong("user_id"))
+                .orderDate(rs.getTimestamp("order_date").toLocalDateTime())
+                .status(rs.getString("status"))
+                .paymentMethod(rs.getString("payment_method"))
+                .totalAmount(rs.getObject("total_amount") == null ? BigDecimal.ZERO : BigDecimal.valueOf(rs.getDouble("total_amount")))
+                .build(), args.toArray());
+
+        String nextCursor = null;
+        if (orders.size() > pageSize) {
+            orders = orders.subList(0, pageSize);
+            OrderSummaryDto last = orders.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getOrderDate(), last.getId());
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("orders", orders);
+        response.put("nextCursor", nextCursor);
+        response.put("limit", pageSize);
+        return response;
+    }
+
+    // ----------------------
+    // CURSOR: base64url("orderDate|id")
+    // ----------------------
+
+    private String encodeCursor(LocalDateTime orderDate, Long id) {
+        String raw = orderDate + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Object[] decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+            return new Object[]{Timestamp.valueOf(LocalDateTime.parse(parts[0])), Long.parseLong(parts[1])};
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.supermarket.supermarket_system.service;
+
+import com.supermarket.supermarket_system.model.Order;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Incremental order counters for admin dashboards: order count and revenue per
+ * (day, status, payment method), read by GET /orders/stats without scanning orders.
+ *
+ * Order changes are counted in memory as they commit (new orders, status changes,
+ * cancellations) and the accumulated deltas are added to order_daily_stats every
+ * few seconds. Adding deltas instead of overwriting totals lets several Orders
+ * nodes share the table; a node's own unflushed deltas are included in its reads,
+ * other nodes' show up after their next flush.
+ *
+ * The table is built once from the orders table when it is empty, before the
+ * listeners and the web server start, so no change is counted twice. Nodes starting
+ * together build it under a MySQL named lock: the first one builds, the others find
+ * the table filled once they get the lock.
+ */
+@Service
+@DependsOn("entityManagerFactory") // order_daily_stats is created by Hibernate (ddl-auto)
+@RequiredArgsConstructor
+@Slf4j
+public class OrderStatsService {
+
+    private static final String ADD_DELTA =
+            "INSERT INTO order_daily_stats (stats_day, status, payment_method, order_count, revenue) " +
+            "VALUES (?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE order_count = order_count + VALUES(order_count), revenue = revenue + VALUES(revenue)";
+
+    private static final String REBUILD =
+            "INSERT INTO order_daily_stats (stats_day, status, payment_method, order_count, revenue) " +
+            "SELECT DATE(order_date), UPPER(status), payment_method, COUNT(*), COALESCE(SUM(total_amount), 0) " +
+            "FROM orders GROUP BY DATE(order_date), UPPER(status), payment_method " +
+            "ON DUPLICATE KEY UPDATE order_count = VALUES(order_count), revenue = VALUES(revenue)";
+
+    private static final String BUILD_LOCK = "order_daily_stats_build";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.orders.stats.default-range-days:30}")
+    private int defaultRangeDays;
+
+    @Value("${app.orders.stats.max-range-days:366}")
+    private int maxRangeDays;
+
+    @Value("${app.orders.stats.build-lock-timeout-s:60}")
+    private int buildLockTimeoutSeconds;
+
+    // Changes not yet added to order_daily_stats, guarded by "this"
+    private Map<Bucket, Delta> pending = new HashMap<>();
+
+    @PostConstruct
+    void buildIfEmpty() {
+        // GET_LOCK belongs to the connection, so everything runs on one
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            JdbcTemplate locked = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            Integer acquired = locked.queryForObject("SELECT GET_LOCK(?, ?)", Integer.class,
+                    BUILD_LOCK, buildLockTimeoutSeconds);
+            if (acquired == null || acquired != 1) {
+                throw new IllegalStateException("Timed out waiting for another node to build order_daily_stats");
+            }
+            try {
+                Integer rows = locked.queryForObject("SELECT COUNT(*) FROM order_daily_stats", Integer.class);
+                if (rows != null && rows == 0) {
+                    int built = locked.update(REBUILD);
+                    log.info("Built order_daily_stats from the orders table ({} rows)", built);
+                }
+            } finally {
+                locked.queryForObject("SELECT RELEASE_LOCK(?)", Integer.class, BUILD_LOCK);
+            }
+            return null;
+        });
+    }
+
+    // ----------------------
+    // RECORDING
+    // ----------------------
+
+    // A new order, called after it is committed
+    public void recordCreated(LocalDateTime orderDate, String status, String paymentMethod, Double amount) {
+        add(new Bucket(orderDate.toLocalDate(), normalize(status), paymentMethod), 1, amount(amount));
+    }
+
+    // The order moved from oldStatus to its current status, called after it is saved
+    public void recordStatusChange(Order order, String oldStatus) {
+        LocalDate day = order.getOrderDate().toLocalDate();
+        double amount = amount(order.getTotalAmount());
+        add(new Bucket(day, normalize(oldStatus), order.getPaymentMethod()), -1, -amount);
+        add(new Bucket(day, normalize(order.getStatus()), order.getPaymentMethod()), 1, amount);
+    }
+
+    private synchronized void add(Bucket bucket, long count, double revenue) {
+        Delta delta = pending.computeIfAbsent(bucket, b -> new Delta());
+        delta.count += count;
+        delta.revenue += revenue;
+    }
+
+    // ----------------------
+    // SNAPSHOTS
+    // ----------------------
+
+    @Scheduled(fixedDelayString = "${app.orders.stats.flush-interval-ms:5000}")
+    public void flush() {
+        Map<Bucket, Delta> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new HashMap<>();
+        }
+
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        batch.forEach((bucket, delta) -> {
+            if (delta.count != 0 || delta.revenue != 0) {
+                rows.add(new Object[]{Date.valueOf(bucket.day()), bucket.status(), bucket.paymentMethod(),
+                        delta.count, delta.revenue});
+            }
+        });
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(ADD_DELTA, rows));
+        } catch (RuntimeException e) {
+            // Keep the deltas for the next round
+            batch.forEach((bucket, delta) -> add(bucket, delta.count, delta.revenue));
+            log.warn("Could not flush {} order stats buckets, will retry: {}", rows.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    // ----------------------
+    // READ
+    // ----------------------
+
+    /**
+     * Order counts and revenue between two days (inclusive). Revenue excludes
+     * cancelled orders everywhere except in their own byStatus entry.
+     *
+     * Response shape: {"from", "to", "orders", "revenue",
+     *                  "byStatus": {status: {"orders", "revenue"}},
+     *                  "byPaymentMethod": {method: {"orders", "revenue"}},
+     *                  "byDay": [{"day", "orders", "revenue"}, ...]}
+     *
+     * @throws IllegalArgumentException if the range is reversed or too long
+     */
+    public Map<String, Object> getStats(LocalDate from, LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(defaultRangeDays - 1L);
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= maxRangeDays) {
+            throw new IllegalArgumentException("The range must not exceed " + maxRangeDays + " days");
+        }
+
+        Map<Bucket, Delta> buckets = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT stats_day, status, payment_method, order_count, revenue FROM order_daily_stats " +
+                "WHERE stats_day BETWEEN ? AND ?",
+                rs -> {
+                    Delta delta = new Delta();
+                    delta.count = rs.getLong("order_count");
+                    delta.revenue = rs.getDouble("revenue");
+                    buckets.put(new Bucket(rs.getDate("stats_day").toLocalDate(),
+                            rs.getString("status"), rs.getString("payment_method")), delta);
+                },
+                Date.valueOf(start), Date.valueOf(end));
+
+        synchronized (this) {
+            pending.forEach((bucket, delta) -> {
+                if (!bucket.day().isBefore(start) && !bucket.day().isAfter(end)) {
+                    Delta total = buckets.computeIfAbsent(bucket, b -> new Delta());
+                    total.count += delta.count;
+                    total.revenue += delta.revenue;
+                }
+            });
+        }
+
+        long orders = 0;
+        double revenue = 0;
+        Map<String, Delta> byStatus = new TreeMap<>();
+        Map<String, Delta> byPaymentMethod = new TreeMap<>();
+        Map<LocalDate, Delta> byDay = new TreeMap<>();
+
+        for (Map.Entry<Bucket, Delta> entry : buckets.entrySet()) {
+            Bucket bucket = entry.getKey();
+            Delta delta = entry.getValue();
+            double counted = "CANCELLED".equals(bucket.status()) ? 0 : delta.revenue;
+
+            orders += delta.count;
+            revenue += counted;
+            byStatus.computeIfAbsent(bucket.status(), k -> new Delta()).add(delta.count, delta.revenue);
+            byPaymentMethod.computeIfAbsent(bucket.paymentMethod(), k -> new Delta()).add(delta.count, counted);
+            byDay.computeIfAbsent(bucket.day(), k -> new Delta()).add(delta.count, counted);
+        }
+
+        List<Map<String, Object>> days = new ArrayList<>(byDay.size());
+        byDay.forEach((day, delta) -> {
+            Map<String, Object> entry = delta.toMap();
+            entry.put("day", day.toString());
+            days.add(entry);
+        });
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("from", start.toString());
+        response.put("to", end.toString());
+        response.put("orders", orders);
+        response.put("revenue", revenue);
+        response.put("byStatus", toMaps(byStatus));
+        response.put("byPaymentMethod", toMaps(byPaymentMethod));
+        response.put("byDay", days);
+        return response;
+    }
+
+    private Map<String, Object> toMaps(Map<String, Delta> deltas) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        deltas.forEach((key, delta) -> result.put(key, delta.toMap()));
+        return result;
+    }
+
+    private static String normalize(String status) {
+        return status == null ? "UNKNOWN" : status.toUpperCase();
+    }
+
+    private static double amount(Double amount) {
+        return amount != null ? amount : 0.0;
+    }
+
+    private record Bucket(LocalDate day, String status, String paymentMethod) {}
+
+    private static final class Delta {
+        private long count;
+        private double revenue;
+
+        private void add(long count, double revenue) {
+            this.count += count;
+            this.revenue += revenue;
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("orders", count);
+            map.put("revenue", revenue);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.supermarket.supermarket_system.service;
+
+import com.supermarket.supermarket_system.model.RestoreJob;
+import com.supermarket.supermarket_system.repository.RestoreJobRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gives the stock of cancelled orders back to Items, off the request thread.
+ *
+ * Each cancellation leaves a RestoreJob row. Jobs run on a small bounded pool:
+ * one POST /items/restore/batch per order with all its lines, keyed by the job's
+ * restore id, so Items applies it at most once however often it is retried.
+ * A failed job is retried with exponential backoff by the sweep, which also picks
+ * up jobs left behind by a restart or by a full pool.
+ */
+@Service
+@Slf4j
+public class StockRestoreService {
+
+    private final RestoreJobRepository restoreJobRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final RestTemplate restTemplate;
+    private final ThreadPoolExecutor executor;
+
+    // Jobs queued or running on this node, so the sweep does not queue them twice
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    @Value("${app.orders.restore.backoff-initial-ms:1000}")
+    private long backoffInitialMillis;
+
+    @Value("${app.orders.restore.backoff-max-ms:300000}")
+    private long backoffMaxMillis;
+
+    @Value("${app.orders.restore.sweep-batch-size:100}")
+    private int sweepBatchSize;
+
+    public StockRestoreService(RestoreJobRepository restoreJobRepository,
+                               JdbcTemplate jdbcTemplate,
+                               RestTemplate restTemplate,
+                               @Value("${app.orders.restore.threads:4}") int threads,
+                               @Value("${app.orders.restore.queue-capacity:1000}") int queueCapacity) {
+        this.restoreJobRepository = restoreJobRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.restTemplate = restTemplate;
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "stock-restore");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    // Runs the job soon; must be called after the transaction that created it has committed
+    public void submit(Long orderId) {
+        if (!inFlight.add(orderId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    run(orderId);
+                } finally {
+                    inFlight.remove(orderId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(orderId);
+            log.debug("Restore pool full, order {} is left to the sweep", orderId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.orders.restore.sweep-interval-ms:10000}")
+    public void sweep() {
+        restoreJobRepository.findDue(RestoreJob.PENDING, Instant.now(), PageRequest.of(0, sweepBatchSize))
+                .forEach(this::submit);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // Queued jobs stay PENDING in the table and are picked up after the restart
+        executor.shutdownNow();
+    }
+
+    private void run(Long orderId) {
+        RestoreJob job = restoreJobRepository.findById(orderId).orElse(null);
+        if (job == null || RestoreJob.DONE.equals(job.getStatus())) {
+            return;
+        }
+
+        try {
+            List<Map<String, Object>> items = jdbcTemplate.queryForList(
+                    "SELECT item_id AS itemId, quantity FROM order_lines WHERE order_id = ? AND quantity > 0",
+                    orderId);
+            if (!items.isEmpty()) {
+                restoreBatch(job.restoreId(), items);
+            }
+            job.setStatus(RestoreJob.DONE);
+            job.setLastError(null);
+            log.info("Restored stock of {} lines for cancelled order {}", items.size(), orderId);
+        } catch (RuntimeException e) {
+            job.setAttempts(job.getAttempts() + 1);
+            String error = e.getMessage();
+            job.setLastError(error != null && error.length() > 500 ? error.substring(0, 500) : error);
+            job.setNextAttemptAt(Instant.now().plusMillis(backoff(job.getAttempts())));
+            log.warn("Stock restore for order {} failed (attempt {}), retrying later: {}",
+                    orderId, job.getAttempts(), error);
+        }
+        job.setUpdatedAt(Instant.now());
+        restoreJobRepository.save(job);
+    }
+
+    // One call for every line of the order; Items ignores a restoreId it has already applied
+    private void restoreBatch(String restoreId, List<Map<String, Object>> items) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("restoreId", restoreId);
+        request.put("items", items);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        ResponseEntity<Map> response = restTemplate.postForEntity(
+                "http://Items/items/restore/batch",
+                new HttpEntity<>(request, headers),
+                Map.class
+        );
+
+        Map<?, ?> body = response.getBody();
+        if (body == null || !Boolean.TRUE.equals(body.get("success"))) {
+            throw new RuntimeException(body == null
+                    ? "Items service did not respond properly for restoration"
+                    : String.valueOf(body.get("message")));
+        }
+    }
+
+    private long backoff(int attempts) {
+        long delay = backoffInitialMillis << Math.min(attempts - 1, 16);
+        return Math.min(delay, backoffMaxMillis);
+    }
+}
@@ -15,11 +15,19 @@ export const authAPI = {
 
 // Items APIs
 export const itemsAPI = {
-  getAllItems: async () => {
-    const response = await api.get('/items');
+  // One keyset page: { items, nextCursor, limit }
+  // params: category, minPrice, maxPrice, sort, fields, limit, cursor
+  getItemsPage: async (params = {}) => {
+    const response = await api.get('/items', { params });
     return response.data;
   },
 
+  // Ranked search, last word matched as a prefix (search-as-you-type)
+  searchItems: async (q, limit = 10) => {
+    const response = await api.get('/items/search', { params: { q, limit } });
+    return response.data.results;
+  },
+
   getItemById: async (id) => {
     // Backend uses GET /items/details with @RequestBody which is non-standard
     // Use axios POST as workaround or fetch all items and filter
@@ -31,13 +39,17 @@ export const itemsAPI = {
       // If POST fails, try GET with params
       console.warn('POST to /items/details failed, trying alternative');
       try {
-        // Fallback: get all items and find the one we need
-        const allItems = await api.get('/items');
-        const item = allItems.data.find(item => item.id === id);
-        if (!item) {
-          throw new Error('Item not found');
-        }
-        return item;
+        // Fallback: look through the catalog page by page, stopping at the item
+        let cursor;
+        do {
+          const page = await itemsAPI.getItemsPage({ limit: 200, cursor });
+          const item = page.items.find(item => item.id === id);
+          if (item) {
+            return item;
+          }
+          cursor = page.nextCursor;
+        } while (cursor);
+        throw new Error('Item not found');
       } catch (fallbackError) {
         console.error('Both methods failed to get item', error, fallbackError);
         throw error;
@@ -66,6 +78,9 @@ export const itemsAPI = {
   },
 };
 
+// How long checkout() waits for the background checkout to finish
+const CHECKOUT_POLL_TIMEOUT_MS = 2 * 60 * 1000;
+
 // Cart APIs
 export const cartAPI = {
   getCart: async () => {
@@ -103,17 +118,34 @@ export const cartAPI = {
     return response.data;
   },
 
+  // Checkout is processed in the background: start it, then poll its status until it finishes.
+  // Polls back off from 500 ms to 5 s; after 2 minutes the last status (still PENDING) is returned.
   checkout: async (checkoutRequest) => {
     const response = await api.post('/cart/checkout', checkoutRequest);
+    let status = response.data;
+    const deadline = Date.now() + CHECKOUT_POLL_TIMEOUT_MS;
+    let delay = 500;
+    while (status.result === 'PENDING' && Date.now() + delay <= deadline) {
+      await new Promise((resolve) => setTimeout(resolve, delay));
+      status = await cartAPI.getCheckoutStatus(status.sagaId);
+      delay = Math.min(delay * 1.5, 5000);
+    }
+    return status;
+  },
+
+  getCheckoutStatus: async (sagaId) => {
+    const response = await api.get(`/cart/checkout/${sagaId}`);
     return response.data;
   },
 };
 
 // Orders APIs
 export const ordersAPI = {
+  // Order lists are paginated: each call returns { orders, nextCursor, limit },
+  // pass nextCursor back to get the next (older) page
   // Get user's order history
-  getUserOrders: async () => {
-    const response = await api.get('/orders/history');
+  getUserOrders: async (cursor) => {
+    const response = await api.get('/orders/history', { params: { cursor } });
     return response.data;
   },
 
@@ -124,14 +156,21 @@ export const ordersAPI = {
   },
 
   // Get all orders (ADMIN only)
-  getAllOrders: async () => {
-    const response = await api.get('/orders/all');
+  getAllOrders: async (cursor) => {
+    const response = await api.get('/orders/all', { params: { cursor } });
     return response.data;
   },
 
   // Get orders by status (using POST for better compatibility with body)
-  getOrdersByStatus: async (status) => {
-    const response = await api.post('/orders/status', { status });
+  getOrdersByStatus: async (status, cursor) => {
+    const response = await api.post('/orders/status', { status }, { params: { cursor } });
+    return response.data;
+  },
+
+  // Order counts and revenue per status, payment method and day (ADMIN only)
+  // from / to are 'YYYY-MM-DD' (inclusive), both optional
+  getOrderStats: async (from, to) => {
+    const response = await api.get('/orders/stats', { params: { from, to } });
     return response.data;
   },
 
@@ -9,10 +9,15 @@ import Spinner from '../common/Spinner';
 import Input from '../common/Input';
 import Button from '../common/Button';
 
+const PAGE_SIZE = 24;
+
 const ItemList = () => {
   const [items, setItems] = useState([]);
   const [filteredItems, setFilteredItems] = useState([]);
   const [loading, setLoading] = useState(true);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
+  const [categories, setCategories] = useState(['All']);
   const [searchQuery, setSearchQuery] = useState('');
   const [selectedCategory, setSelectedCategory] = useState('All');
   const [showModal, setShowModal] = useState(false);
@@ -21,34 +26,65 @@ const ItemList = () => {
   const { isAdmin } = useAuth();
   const { refreshTrigger } = useCart(); // Get refresh trigger from cart context
 
-  useEffect(() => {
-    fetchItems();
-  }, []);
+  // One page of items for the selected category, starting after the given cursor
+  const fetchPage = useCallback(async (cursor) => {
+    const category = selectedCategory === 'All' ? undefined : selectedCategory;
+    return itemsAPI.getItemsPage({ category, limit: PAGE_SIZE, cursor });
+  }, [selectedCategory]);
 
-  // Refresh items when cart actions occur
-  useEffect(() => {
-    if (refreshTrigger > 0) {
-      fetchItems();
-    }
-  }, [refreshTrigger]); // eslint-disable-line react-hooks/exhaustive-deps
+  // Categories seen so far: the catalog is loaded page by page, never as a whole
+  const rememberCategories = (pageItems) => {
+    setCategories((current) => {
+      const seen = pageItems.map(item => item.category || 'General').filter(category => !current.includes(category));
+      return seen.length === 0 ? current : [...current, ...new Set(seen)];
+    });
+  };
 
-  const fetchItems = async () => {
+  const fetchItems = useCallback(async () => {
     try {
       setLoading(true);
-      const data = await itemsAPI.getAllItems();
-      setItems(data);
-      setFilteredItems(data);
+      const data = await fetchPage();
+      setItems(data.items);
+      setNextCursor(data.nextCursor || null);
+      rememberCategories(data.items);
     } catch (error) {
       console.error('Error fetching items:', error);
+      setItems([]);
+      setNextCursor(null);
     } finally {
       setLoading(false);
     }
+  }, [fetchPage]);
+
+  const loadMoreItems = async () => {
+    try {
+      setLoadingMore(true);
+      const data = await fetchPage(nextCursor);
+      setItems((current) => [...current, ...data.items]);
+      setNextCursor(data.nextCursor || null);
+      rememberCategories(data.items);
+    } catch (error) {
+      console.error('Error fetching more items:', error);
+    } finally {
+      setLoadingMore(false);
+    }
   };
 
+  useEffect(() => {
+    fetchItems();
+  }, [fetchItems]);
+
+  // Refresh items when cart actions occur
+  useEffect(() => {
+    if (refreshTrigger > 0) {
+      fetchItems();
+    }
+  }, [refreshTrigger]); // eslint-disable-line react-hooks/exhaustive-deps
+
   const filterItems = useCallback(() => {
     let filtered = items;
 
-    // Filter by search query
+    // Filter the loaded items by search query (the category is filtered by the server)
     if (searchQuery) {
       filtered = filtered.filter(item =>
         item.name.toLowerCase().includes(searchQuery.toLowerCase()) ||
@@ -56,18 +92,13 @@ const ItemList = () => {
       );
     }
 
-    // Filter by category
-    if (selectedCategory !== 'All') {
-      filtered = filtered.filter(item => item.category === selectedCategory);
-    }
-
     // Regular users should not see out-of-stock items
     if (!isAdmin) {
       filtered = filtered.filter(item => item.quantity > 0);
     }
 
     setFilteredItems(filtered);
-  }, [items, searchQuery, selectedCategory, isAdmin]);
+  }, [items, searchQuery, isAdmin]);
 
   useEffect(() => {
     filterItems();
@@ -121,8 +152,6 @@ const ItemList = () => {
     }
   };
 
-  const categories = ['All', ...new Set(items.map(item => item.category || 'General'))];
-
   if (loading) {
     return (
       <div className="flex justify-center items-center min-h-[60vh]">
@@ -225,6 +254,18 @@ const ItemList = () => {
         </div>
       )}
 
+      {nextCursor && (
+        <div className="text-center mt-8">
+          <button
+            onClick={loadMoreItems}
+            disabled={loadingMore}
+            className="px-6 py-2 bg-white text-gray-700 border border-gray-300 rounded-lg hover:bg-gray-100 transition font-medium disabled:opacity-50"
+          >
+            {loadingMore ? 'Loading...' : 'Load more products'}
+          </button>
+        </div>
+      )}
+
       {/* Item Modal for Add/Edit */}
       {showModal && (
         <ItemModal
@@ -123,6 +123,18 @@ export const CartProvider = ({ children }) => {
       console.log('Checkout response:', response);
 
       await fetchCart(); // Refresh cart after checkout
+      if (response.result === 'FAILED') {
+        return {
+          success: false,
+          message: response.message
+        };
+      }
+      if (response.result === 'PENDING') {
+        return {
+          success: false,
+          message: 'Your checkout is still being processed. Please check your orders in a few minutes.'
+        };
+      }
       return {
         success: true,
         orderId: response.orderId,
@@ -7,39 +7,75 @@ import Spinner from '../components/common/Spinner';
 const OrdersPage = () => {
   const [orders, setOrders] = useState([]);
   const [loading, setLoading] = useState(true);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [selectedStatus, setSelectedStatus] = useState('ALL');
+  const [stats, setStats] = useState(null);
   const { isAdmin } = useAuth();
 
+  // One page of orders for the current filter, starting after the given cursor
+  const fetchPage = useCallback(async (cursor) => {
+    if (selectedStatus === 'ALL') {
+      return isAdmin ? ordersAPI.getAllOrders(cursor) : ordersAPI.getUserOrders(cursor);
+    }
+    return ordersAPI.getOrdersByStatus(selectedStatus, cursor);
+  }, [selectedStatus, isAdmin]);
+
   const fetchOrders = useCallback(async () => {
     try {
       setLoading(true);
-      let data;
-
-      if (selectedStatus === 'ALL') {
-        data = isAdmin ? await ordersAPI.getAllOrders() : await ordersAPI.getUserOrders();
-      } else {
-        data = await ordersAPI.getOrdersByStatus(selectedStatus);
-      }
+      const data = await fetchPage();
 
       console.log('Fetched orders:', data);
-      setOrders(Array.isArray(data) ? data : []);
+      setOrders(Array.isArray(data?.orders) ? data.orders : []);
+      setNextCursor(data?.nextCursor || null);
     } catch (error) {
       console.error('Error fetching orders:', error);
       console.error('Error response:', error.response?.data);
       setOrders([]);
+      setNextCursor(null);
     } finally {
       setLoading(false);
     }
-  }, [selectedStatus, isAdmin]);
+  }, [fetchPage]);
+
+  const loadMoreOrders = async () => {
+    try {
+      setLoadingMore(true);
+      const data = await fetchPage(nextCursor);
+      setOrders((current) => [...current, ...(data?.orders || [])]);
+      setNextCursor(data?.nextCursor || null);
+    } catch (error) {
+      console.error('Error fetching more orders:', error);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
 
   useEffect(() => {
     fetchOrders();
   }, [fetchOrders]);
 
+  // Order counts and revenue of the last 30 days (ADMIN only)
+  const fetchStats = useCallback(async () => {
+    if (!isAdmin) return;
+    try {
+      setStats(await ordersAPI.getOrderStats());
+    } catch (error) {
+      console.error('Error fetching order stats:', error);
+      setStats(null);
+    }
+  }, [isAdmin]);
+
+  useEffect(() => {
+    fetchStats();
+  }, [fetchStats]);
+
   const handleUpdateStatus = async (orderId, newStatus) => {
     try {
       await ordersAPI.updateOrderStatus(orderId, newStatus);
       fetchOrders(); // Refresh orders
+      fetchStats();
       alert('Order status updated successfully!');
     } catch (error) {
       console.error('Error updating status:', error);
@@ -105,6 +141,30 @@ const OrdersPage = () => {
           </p>
         </div>
 
+        {/* Order Stats - Admin Only */}
+        {isAdmin && stats && (
+          <div className="mb-6 grid grid-cols-1 md:grid-cols-3 gap-4">
+            <div className="bg-white rounded-lg shadow-md p-4">
+              <p className="text-sm text-gray-500">Orders (last 30 days)</p>
+              <p className="text-2xl font-bold text-gray-900">{stats.orders}</p>
+            </div>
+            <div className="bg-white rounded-lg shadow-md p-4">
+              <p className="text-sm text-gray-500">Revenue (last 30 days, excluding cancelled)</p>
+              <p className="text-2xl font-bold text-blue-600">EGP {stats.revenue?.toFixed(2)}</p>
+            </div>
+            <div className="bg-white rounded-lg shadow-md p-4">
+              <p className="text-sm text-gray-500 mb-2">By Status</p>
+              <div className="flex flex-wrap gap-2">
+                {Object.entries(stats.byStatus || {}).map(([status, entry]) => (
+                  <span key={status} className={`px-3 py-1 rounded-full text-sm font-medium ${getStatusColor(status)}`}>
+                    {status}: {entry.orders}
+                  </span>
+                ))}
+              </div>
+            </div>
+          </div>
+        )}
+
         {/* Status Filters */}
         <div className="mb-6 flex flex-wrap gap-2">
           {statusFilters.map((status) => (
@@ -203,6 +263,18 @@ const OrdersPage = () => {
                 )}
               </div>
             ))}
+
+            {nextCursor && (
+              <div className="text-center">
+                <button
+                  onClick={loadMoreOrders}
+                  disabled={loadingMore}
+                  className="px-6 py-2 bg-white text-gray-700 border border-gray-300 rounded-lg hover:bg-gray-100 transition font-medium disabled:opacity-50"
+                >
+                  {loadingMore ? 'Loading...' : 'Load more orders'}
+                </button>
+              </div>
+            )}
           </div>
         )}
       </div>